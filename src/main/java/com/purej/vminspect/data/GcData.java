@@ -0,0 +1,44 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data;
+
+/**
+ * Stores the data of a single garbage collector.
+ *
+ * @author Stefan Mueller
+ */
+public final class GcData {
+  private final String name;
+  private final long collectionCount;
+  private final long collectionTimeMillis;
+
+  /**
+   * Creates a new instance of this class.
+   */
+  public GcData(String name, long collectionCount, long collectionTimeMillis) {
+    super();
+    this.name = name;
+    this.collectionCount = collectionCount;
+    this.collectionTimeMillis = collectionTimeMillis;
+  }
+
+  /**
+   * Returns the name of the garbage collector.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of collections of this garbage collector, -1 if unknown.
+   */
+  public long getCollectionCount() {
+    return collectionCount;
+  }
+
+  /**
+   * Returns the accumulated collection time of this garbage collector in milliseconds, -1 if unknown.
+   */
+  public long getCollectionTimeMillis() {
+    return collectionTimeMillis;
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data;
+
+import java.io.Closeable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Listens to the notifications sent by the garbage collectors after each collection to track the pauses and the memory
+ * reclaimed from the heap. The latter allows to calculate the number of bytes allocated in the heap as the currently used heap
+ * plus everything reclaimed since this monitor was started.
+ * <p/>
+ * The notifications are only available with sun-classes, see {@link #isSupported()}. Without them, the monitor does nothing and
+ * only the collection counts and times of the garbage collector MXBeans are available, see {@link SystemData#getGcCollectors()}.
+ * The pause of a collection is the duration reported by the garbage collector, which for concurrent collectors is the duration
+ * of the cycle and not only of the pause.
+ *
+ * @author Stefan Mueller
+ */
+public final class GcMonitor implements Closeable {
+  // If sun-classes exists in classpath:
+  private static final boolean SUN_CLASSES_EXIST;
+  static {
+    boolean sunexists = false;
+    try {
+      Class.forName("com.sun.management.GarbageCollectionNotificationInfo");
+      sunexists = true;
+    } catch (Throwable t) {
+      // Ignore...
+    }
+    SUN_CLASSES_EXIST = sunexists;
+  }
+
+  private final Set<String> heapPools = new HashSet<>();
+  private final Map<String, AtomicLong> maxPauses = new ConcurrentHashMap<>();
+  private final AtomicLong reclaimedBytes = new AtomicLong();
+  private final NotificationListener listener;
+
+  /**
+   * Creates a new instance of this class and starts listening to the garbage collector notifications.
+   */
+  public GcMonitor() {
+    super();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        heapPools.add(pool.getName());
+      }
+    }
+    var supported = SUN_CLASSES_EXIST;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      supported &= gc instanceof NotificationEmitter;
+    }
+    if (supported) {
+      listener = new SunGcNotificationListener(this);
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        maxPauses.put(gc.getName(), new AtomicLong());
+        ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+      }
+    } else {
+      listener = null;
+    }
+  }
+
+  /**
+   * Returns if the garbage collector notifications are supported by this VM.
+   */
+  public boolean isSupported() {
+    return listener != null;
+  }
+
+  /**
+   * Returns the longest pause of the garbage collector with the given name in milliseconds since the last call of this method and
+   * resets it, NaN if not supported or the garbage collector is unknown.
+   */
+  public double takeMaxPauseMillis(String gcName) {
+    var maxPause = maxPauses.get(gcName);
+    return maxPause != null ? maxPause.getAndSet(0) : Double.NaN;
+  }
+
+  /**
+   * Returns the number of bytes allocated in the heap since this monitor was started (including the objects that existed at that
+   * time), -1 if not supported. This is an estimate, as the value is off by the size of a collection running concurrently.
+   */
+  public long getAllocatedBytes() {
+    if (!isSupported()) {
+      return -1;
+    }
+    return reclaimedBytes.get() + ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Called by the notification listener after each collection.
+   */
+  void collected(String gcName, long durationMillis, Map<String, MemoryUsage> usageBefore, Map<String, MemoryUsage> usageAfter) {
+    var maxPause = maxPauses.get(gcName);
+    if (maxPause != null) {
+      maxPause.accumulateAndGet(durationMillis, Math::max);
+    }
+    // Objects promoted to another pool are not reclaimed, so compare the sum of all heap pools:
+    var reclaimed = getUsed(usageBefore) - getUsed(usageAfter);
+    if (reclaimed > 0) {
+      reclaimedBytes.addAndGet(reclaimed);
+    }
+  }
+
+  private long getUsed(Map<String, MemoryUsage> usages) {
+    var used = 0L;
+    for (var entry : usages.entrySet()) {
+      if (heapPools.contains(entry.getKey())) {
+        used += entry.getValue().getUsed();
+      }
+    }
+    return used;
+  }
+
+  /**
+   * Stops listening to the garbage collector notifications.
+   */
+  @Override
+  public void close() {
+    if (listener != null) {
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        try {
+          ((NotificationEmitter) gc).removeNotificationListener(listener);
+        } catch (ListenerNotFoundException e) {
+          // Ignore...
+        }
+      }
+    }
+  }
+}
@@ -12,16 +12,25 @@ public class MBeanAttribute {
   private final String description;
   private final String type;
   private final boolean writable;
+  private final boolean pending;
 
   /**
    * Creates a new instance of this class.
    */
   public MBeanAttribute(String name, Object value, String description, String type, boolean writable) {
+    this(name, value, description, type, writable, false);
+  }
+
+  /**
+   * Creates a new instance of this class.
+   */
+  public MBeanAttribute(String name, Object value, String description, String type, boolean writable, boolean pending) {
     this.name = name;
     this.value = value;
     this.description = description;
     this.type = type;
     this.writable = writable;
+    this.pending = pending;
   }
   /**
    * @return the MBean attribute name
@@ -57,4 +66,11 @@ public class MBeanAttribute {
   public boolean isWritable() {
     return writable;
   }
+
+  /**
+   * @return if the MBean attribute value was not read within the timeout and thus is not available
+   */
+  public boolean isPending() {
+    return pending;
+  }
 }
@@ -0,0 +1,168 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.management.InstanceNotFoundException;
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.relation.MBeanServerNotificationFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the sorted names of all MBeans of all MBean servers. The MBean servers are queried once only, afterwards the index is
+ * maintained through the registration and unregistration notifications of each {@link MBeanServerDelegate}. If the list of
+ * MBean servers changes, the index is rebuilt.
+ * <p/>
+ * The index is created on first use and kept until the last reference registered with {@link #init(Object)} calls
+ * {@link #destroy(Object)}, so multiple servlets or servers in the same VM share the index.
+ *
+ * @author Stefan Mueller
+ */
+public final class MBeanNameIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(MBeanNameIndex.class);
+
+  // The order of the MBeanNameComparator, made unique by server and object name:
+  private static final Comparator<MBeanName> COMPARATOR = new MBeanNameComparator().thenComparingInt(MBeanName::getServerIdx)
+      .thenComparing(MBeanName::getObjectName);
+
+  // This static variables ensure only one index per VM:
+  private static MBeanNameIndex instance;
+  private static Set<Object> instanceRefs = new HashSet<>();
+
+  private final List<MBeanServer> servers;
+  private final NotificationListener listener = this::handleNotification;
+  private final TreeSet<MBeanName> names = new TreeSet<>(COMPARATOR);
+  private final List<Map<ObjectName, MBeanName>> namesByServer;
+  private List<MBeanName> snapshot; // Null if modified since the last snapshot
+
+  private MBeanNameIndex(List<MBeanServer> servers) {
+    this.servers = servers;
+    this.namesByServer = new ArrayList<>(servers.size());
+    for (var i = 0; i < servers.size(); i++) {
+      namesByServer.add(new HashMap<>());
+      var server = servers.get(i);
+      // Listen first so no registration gets lost, adding an existing name again has no effect:
+      var filter = new MBeanServerNotificationFilter();
+      filter.enableAllObjectNames();
+      try {
+        server.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, filter, Integer.valueOf(i));
+      } catch (InstanceNotFoundException e) {
+        throw new RuntimeException("Could not listen to MBean server registrations!", e);
+      }
+      for (var name : server.queryNames(null, null)) {
+        add(i, name);
+      }
+    }
+  }
+
+  /**
+   * Returns the index, creates it on first use or if the list of MBean servers changed.
+   */
+  public static synchronized MBeanNameIndex getInstance() {
+    var servers = MBeanUtils.getMBeanServers();
+    if (instance != null && !instance.servers.equals(servers)) {
+      LOG.debug("MBean servers changed, rebuilding the MBean name index...");
+      instance.close();
+      instance = null;
+    }
+    if (instance == null) {
+      instance = new MBeanNameIndex(servers);
+    }
+    return instance;
+  }
+
+  /**
+   * Registers a reference to the index, which keeps the index until {@link #destroy(Object)} gets called with it.
+   *
+   * @param ref the instance of the class that uses the index; will be used when calling destroy again
+   */
+  public static synchronized void init(Object ref) {
+    instanceRefs.add(ref);
+  }
+
+  /**
+   * Stops listening to the MBean servers and discards the index if the given reference is the last reference to the index,
+   * a new one will be created on next use.
+   *
+   * @see #init(Object)
+   */
+  public static synchronized void destroy(Object ref) {
+    instanceRefs.remove(ref);
+    if (instanceRefs.isEmpty() && instance != null) {
+      instance.close();
+      instance = null;
+    }
+  }
+
+  /**
+   * Returns an unmodifiable snapshot of the names of all MBeans of all MBean servers sorted with {@link MBeanNameComparator}.
+   * The snapshot is not affected by later registrations or unregistrations.
+   */
+  public synchronized List<MBeanName> getNames() {
+    if (snapshot == null) {
+      snapshot = Collections.unmodifiableList(new ArrayList<>(names));
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the number of indexed MBeans.
+   */
+  public synchronized int size() {
+    return names.size();
+  }
+
+  private void handleNotification(Notification notification, Object handback) {
+    if (notification instanceof MBeanServerNotification) {
+      var serverIdx = ((Integer) handback).intValue();
+      var name = ((MBeanServerNotification) notification).getMBeanName();
+      if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(notification.getType())) {
+        add(serverIdx, name);
+      } else if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(notification.getType())) {
+        remove(serverIdx, name);
+      }
+    }
+  }
+
+  private synchronized void add(int serverIdx, ObjectName name) {
+    var serverNames = namesByServer.get(serverIdx);
+    if (!serverNames.containsKey(name)) {
+      var mbName = new MBeanName(serverIdx, name);
+      serverNames.put(name, mbName);
+      names.add(mbName);
+      snapshot = null;
+    }
+  }
+
+  private synchronized void remove(int serverIdx, ObjectName name) {
+    var mbName = namesByServer.get(serverIdx).remove(name);
+    if (mbName != null) {
+      names.remove(mbName);
+      snapshot = null;
+    }
+  }
+
+  private void close() {
+    for (var server : servers) {
+      try {
+        server.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener);
+      } catch (InstanceNotFoundException | ListenerNotFoundException e) {
+        // Ignore...
+      }
+    }
+  }
+}
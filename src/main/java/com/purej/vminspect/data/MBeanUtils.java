@@ -7,11 +7,19 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.management.Attribute;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanFeatureInfo;
@@ -33,6 +41,22 @@ import com.purej.vminspect.util.Utils;
 public final class MBeanUtils {
   private static final String JAVA_LANG = "java.lang.";
   private static final int JAVA_LANG_LENGTH = JAVA_LANG.length();
+  private static final Object PENDING = new Object(); // Marks values not read within the timeout
+
+  // Reads the attribute values with a timeout, the threads end if idle. Reads not accepted by the full queue are pending:
+  private static final ThreadPoolExecutor ATTRIBUTE_READER;
+  // The reads by server index, MBean and attribute name, a read not done in time is continued by the browser:
+  private static final Map<String, AsyncRead> ASYNC_READS = new ConcurrentHashMap<>();
+  private static final long STALE_READ_MILLIS = 120000;
+  static {
+    var threadCount = new AtomicInteger();
+    ATTRIBUTE_READER = new ThreadPoolExecutor(8, 8, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1024), r -> {
+      var thread = new Thread(r, "VmInspect-MBean-Attribute-Reader-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    ATTRIBUTE_READER.allowCoreThreadTimeOut(true);
+  }
 
   private MBeanUtils() {
   }
@@ -63,25 +87,24 @@ public final class MBeanUtils {
   }
 
   /**
-   * Returns a list of all MBeans from all MBean servers.
+   * Returns a sorted, unmodifiable list of all MBeans from all MBean servers, see {@link MBeanNameIndex}.
    */
   public static List<MBeanName> getMBeanNames() {
-    var result = new ArrayList<MBeanName>(30);
-    var servers = getMBeanServers();
-    for (var i = 0; i < servers.size(); i++) {
-      var objectNames = servers.get(i).queryNames(null, null);
-      for (ObjectName name : objectNames) {
-        result.add(new MBeanName(i, name));
-      }
-    }
-    Collections.sort(result, new MBeanNameComparator());
-    return result;
+    return MBeanNameIndex.getInstance().getNames();
   }
 
   /**
    * Returns the MBean for the given object name or null if the MBean could not be found.
    */
   public static MBeanData getMBean(MBeanName mbName) {
+    return getMBean(mbName, 0);
+  }
+
+  /**
+   * Returns the MBean for the given object name or null if the MBean could not be found. The attribute values are read in parallel
+   * if the given timeout is greater than 0, values not read within the timeout are {@link MBeanAttribute#isPending() pending}.
+   */
+  public static MBeanData getMBean(MBeanName mbName, int attributeTimeoutMillis) {
     try {
       var server = getMBeanServer(mbName.getServerIdx());
       var mbeanInfo = server.getMBeanInfo(mbName.getObjectName());
@@ -92,8 +115,9 @@ public final class MBeanUtils {
       var getters = new HashMap<String, String>();
       var setters = new HashMap<String, String>();
 
-      // Create the list of attributes:
+      // Create the list of attributes, the readable values are read at once:
       var attributeInfos = mbeanInfo.getAttributes();
+      var values = readAttributes(server, mbName, attributeInfos, attributeTimeoutMillis);
       var attributes = new MBeanAttribute[attributeInfos.length];
       for (var i = 0; i < attributes.length; i++) {
         var info = attributeInfos[i];
@@ -103,7 +127,7 @@ public final class MBeanUtils {
         if (info.isWritable()) {
           setters.put("set" + info.getName(), info.getType());
         }
-        attributes[i] = createAttribute(server, mbName.getObjectName(), info);
+        attributes[i] = createAttribute(info, values);
       }
       Arrays.sort(attributes, new MBeanAttributeComparator());
 
@@ -148,8 +172,16 @@ public final class MBeanUtils {
    * Returns the MBean for the given object name or null if the MBean could not be found.
    */
   public static MBeanData getMBean(int mbServerIdx, String mbName) {
+    return getMBean(mbServerIdx, mbName, 0);
+  }
+
+  /**
+   * Returns the MBean for the given object name or null if the MBean could not be found, reads the attribute values with the
+   * given timeout, see {@link #getMBean(MBeanName, int)}.
+   */
+  public static MBeanData getMBean(int mbServerIdx, String mbName, int attributeTimeoutMillis) {
     try {
-      return getMBean(new MBeanName(mbServerIdx, new ObjectName(mbName)));
+      return getMBean(new MBeanName(mbServerIdx, new ObjectName(mbName)), attributeTimeoutMillis);
     } catch (MalformedObjectNameException e) {
       throw new RuntimeException("MBean with name '" + mbName + "' could not be resolved!", e);
     }
@@ -210,20 +242,178 @@ public final class MBeanUtils {
     return getMBeanServers().get(mbServerIdx);
   }
 
-  private static MBeanAttribute createAttribute(MBeanServer server, ObjectName name, MBeanAttributeInfo attributeInfo) {
-    Object value = null;
-    if (attributeInfo.isReadable()) {
+  /**
+   * Returns the value of the given attribute of the specified MBean as shown on the MBean page, polled by the browser. The read
+   * is started by the first call and continued by the following calls, each call waits at most the given wait milliseconds.
+   * Returns a pending value (see {@link #isPending(Object)}) if the value is not read yet, or a timeout message once the value
+   * was polled longer than the given timeout milliseconds.
+   */
+  public static Object getAttributeValue(int mbServerIdx, String mbName, String attributeName, int waitMillis, int timeoutMillis) {
+    var key = getReadKey(mbServerIdx, mbName, attributeName);
+    AsyncRead read = null;
+    try {
+      purgeAsyncReads();
+      var server = getMBeanServer(mbServerIdx);
+      var objectName = new ObjectName(mbName);
+      read = startRead(key, server, objectName, attributeName, true);
+      var remainingMillis = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - read.startNanos);
+      if (read.future != null) {
+        try {
+          var value = read.future.get(Math.max(Math.min(waitMillis, remainingMillis), 0), TimeUnit.MILLISECONDS);
+          ASYNC_READS.remove(key, read);
+          return value;
+        } catch (TimeoutException e) {
+          // Still running, not interrupted as this might harm the MBean...
+        }
+      }
+      if (remainingMillis > waitMillis) {
+        return PENDING;
+      }
+      // Kept while running, the getter must not be called again before it returns:
+      if (read.future == null) {
+        ASYNC_READS.remove(key, read);
+      }
+      return "Timeout reading attribute value after " + timeoutMillis + "ms";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return PENDING;
+    } catch (Exception e) {
+      if (read != null) {
+        ASYNC_READS.remove(key, read);
+      }
+      return "Exception reading attribute value: " + Utils.getExceptionInfo(e instanceof ExecutionException ? e.getCause() : e);
+    }
+  }
+
+  /**
+   * Returns if the given attribute value returned by {@link #getAttributeValue(int, String, String, int, int)} is not read yet.
+   */
+  public static boolean isPending(Object value) {
+    return value == PENDING;
+  }
+
+  /**
+   * Reads the values of all readable attributes. Without timeout, with a single call, only the attributes that failed are read
+   * again separately. With a timeout, the attributes are read separately in parallel, a getter that does not return blocks only
+   * its own attribute. The values still not read once the timeout elapsed are {@link #PENDING}, their reads are continued by
+   * {@link #getAttributeValue(int, String, String, int, int)}.
+   */
+  private static Map<String, Object> readAttributes(MBeanServer server, MBeanName mbName, MBeanAttributeInfo[] attributeInfos,
+      int timeoutMillis) {
+    var names = new ArrayList<String>(attributeInfos.length);
+    for (var info : attributeInfos) {
+      if (info.isReadable()) {
+        names.add(info.getName());
+      }
+    }
+    var values = new HashMap<String, Object>();
+    if (names.isEmpty()) {
+      return values;
+    }
+    var name = mbName.getObjectName();
+    if (timeoutMillis > 0) {
+      readAttributes(server, mbName, names, timeoutMillis, values);
+      return values;
+    }
+    try {
+      var attributes = server.getAttributes(name, names.toArray(new String[names.size()]));
+      for (var attribute : attributes.asList()) {
+        try {
+          values.put(attribute.getName(), convertValueIfNeeded(attribute.getValue()));
+        } catch (Exception e) {
+          // Ignore, read separately to get its exception...
+        }
+      }
+    } catch (Exception e) {
+      // Ignore, read each attribute separately to get its exception...
+    }
+
+    // Read the attributes that failed separately:
+    for (var attributeName : names) {
+      if (!values.containsKey(attributeName)) {
+        values.put(attributeName, readAttribute(server, name, attributeName));
+      }
+    }
+    return values;
+  }
+
+  private static void readAttributes(MBeanServer server, MBeanName mbName, List<String> names, int timeoutMillis,
+      Map<String, Object> values) {
+    // Reads still running (eg. from a previous page view) are continued instead of calling the getter again:
+    purgeAsyncReads();
+    var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    var mbNameString = mbName.getObjectNameString();
+    var reads = new HashMap<String, AsyncRead>();
+    for (var attributeName : names) {
+      var key = getReadKey(mbName.getServerIdx(), mbNameString, attributeName);
+      reads.put(attributeName, startRead(key, server, mbName.getObjectName(), attributeName, false));
+    }
+    for (var entry : reads.entrySet()) {
+      var read = entry.getValue();
+      if (read.future == null) {
+        values.put(entry.getKey(), PENDING); // All readers busy, loaded by the browser
+        continue;
+      }
       try {
-        var o = server.getAttribute(name, attributeInfo.getName());
-        value = convertValueIfNeeded(o);
+        values.put(entry.getKey(), read.future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+        ASYNC_READS.remove(getReadKey(mbName.getServerIdx(), mbNameString, entry.getKey()), read);
+      } catch (TimeoutException e) {
+        values.put(entry.getKey(), PENDING);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        values.put(entry.getKey(), PENDING);
       } catch (Exception e) {
-        // Skip wrapper exception (MBeanException, ReflectionException) as it contains all info twice:
-        value = "Exception reading attribute value: " + Utils.getExceptionInfo(e.getCause() != null ? e.getCause() : e);
+        ASYNC_READS.remove(getReadKey(mbName.getServerIdx(), mbNameString, entry.getKey()), read);
+        values.put(entry.getKey(), "Exception reading attribute value: " + Utils.getExceptionInfo(e));
+      }
+    }
+  }
+
+  private static String getReadKey(int mbServerIdx, String mbName, String attributeName) {
+    return mbServerIdx + "|" + mbName + "|" + attributeName;
+  }
+
+  /**
+   * Returns the read of the given attribute, at most one read per attribute is running. A new read is started if none is running
+   * and the last one is done (or not accepted by the readers). A done read is reused if requested, its value was not fetched yet.
+   */
+  private static AsyncRead startRead(String key, MBeanServer server, ObjectName name, String attributeName, boolean reuseDone) {
+    return ASYNC_READS.compute(key, (k, read) -> {
+      if (read != null && read.future != null && (reuseDone || !read.future.isDone())) {
+        return read;
       }
+      // Not accepted reads keep their start to time out:
+      var startNanos = read != null && read.future == null ? read.startNanos : System.nanoTime();
+      try {
+        return new AsyncRead(ATTRIBUTE_READER.submit(() -> readAttribute(server, name, attributeName)), startNanos);
+      } catch (RejectedExecutionException e) {
+        return new AsyncRead(null, startNanos);
+      }
+    });
+  }
+
+  private static void purgeAsyncReads() {
+    // The reads not polled anymore (eg. the page was closed) are forgotten once done:
+    var staleNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(STALE_READ_MILLIS);
+    ASYNC_READS.values().removeIf(r -> (r.future == null || r.future.isDone()) && r.startNanos - staleNanos < 0);
+  }
+
+  private static Object readAttribute(MBeanServer server, ObjectName name, String attributeName) {
+    try {
+      return convertValueIfNeeded(server.getAttribute(name, attributeName));
+    } catch (Exception e) {
+      // Skip wrapper exception (MBeanException, ReflectionException) as it contains all info twice:
+      return "Exception reading attribute value: " + Utils.getExceptionInfo(e.getCause() != null ? e.getCause() : e);
     }
+  }
+
+  private static MBeanAttribute createAttribute(MBeanAttributeInfo attributeInfo, Map<String, Object> values) {
+    var value = values.get(attributeInfo.getName()); // Null if not readable
+    var pending = value == PENDING;
     // Convert arrays to readable stuff:
     var type = getTypeDescription(attributeInfo.getType());
-    return new MBeanAttribute(attributeInfo.getName(), value, getDescription(attributeInfo), type, attributeInfo.isWritable());
+    return new MBeanAttribute(attributeInfo.getName(), pending ? null : value, getDescription(attributeInfo), type, attributeInfo.isWritable(),
+        pending);
   }
 
   private static MBeanOperation createOperation(MBeanOperationInfo operationInfo) {
@@ -333,4 +523,17 @@ public final class MBeanUtils {
       throw new IllegalArgumentException("The value '" + value + "' could not be converted to type '" + type + "'!", e);
     }
   }
+
+  /**
+   * A read of an attribute value polled by the browser.
+   */
+  private static final class AsyncRead {
+    private final Future<Object> future; // Null if not accepted by the readers
+    private final long startNanos;
+
+    AsyncRead(Future<Object> future, long startNanos) {
+      this.future = future;
+      this.startNanos = startNanos;
+    }
+  }
 }
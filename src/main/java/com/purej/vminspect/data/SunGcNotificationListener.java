@@ -0,0 +1,35 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Listener that downcasts to sun-classes to read the garbage collector notifications for the {@link GcMonitor}.
+ * Only created if the sun-classes exist, so the {@link GcMonitor} can be loaded without them.
+ *
+ * @author Stefan Mueller
+ */
+@SuppressWarnings("restriction")
+final class SunGcNotificationListener implements NotificationListener {
+  private final GcMonitor monitor;
+
+  /**
+   * Creates a new instance of this class.
+   */
+  SunGcNotificationListener(GcMonitor monitor) {
+    this.monitor = monitor;
+  }
+
+  @Override
+  public void handleNotification(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+    var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    var gcInfo = info.getGcInfo();
+    monitor.collected(info.getGcName(), gcInfo.getDuration(), gcInfo.getMemoryUsageBeforeGc(), gcInfo.getMemoryUsageAfterGc());
+  }
+}
@@ -13,37 +13,54 @@ import com.sun.management.UnixOperatingSystemMXBean;
 public class SunSystemData extends SystemData {
 
   /**
-   * Creates a new instance of this class.
+   * Creates a new instance of this class, the values are sampled on first access.
    */
   public SunSystemData() {
+    super();
+  }
+
+  @Override
+  protected void sample(int value) {
     if (osb instanceof com.sun.management.OperatingSystemMXBean) {
       var ssb = (com.sun.management.OperatingSystemMXBean)osb;
-
-      var memPhysTotal = ssb.getTotalMemorySize();
-      var memPhysFree = ssb.getFreeMemorySize();
-      memoryPhysical = new MemoryData(memPhysTotal != -1 ? memPhysTotal - memPhysFree : -1, -1, memPhysTotal);
-      var memSwapTotal = ssb.getTotalSwapSpaceSize();
-      var memSwapFree = ssb.getFreeSwapSpaceSize();
-      memorySwap = new MemoryData(memSwapTotal != -1 ? memSwapTotal - memSwapFree : -1, -1, memSwapTotal);
-
-      // Process Cpu time - value is in nanoseconds:
-      var cpuTime = ssb.getProcessCpuTime();
-      processCpuTimeMillis = cpuTime > 0 ? cpuTime / 1000000 : -1;
-
-      // Process Cpu load - value is a double between 0..1:
-      var cpuLoad = ssb.getProcessCpuLoad();
-      processCpuLoadPct = cpuLoad < 0 ? cpuLoad : cpuLoad * 100;
-
-      // System Cpu load - value is a double between 0..1:
-      var systemLoad = ssb.getCpuLoad();
-      systemCpuLoadPct = systemLoad < 0 ? systemLoad : systemLoad * 100;
+      switch (value) {
+      case MEMORY_PHYSICAL:
+        var memPhysTotal = ssb.getTotalMemorySize();
+        var memPhysFree = ssb.getFreeMemorySize();
+        memoryPhysical = new MemoryData(memPhysTotal != -1 ? memPhysTotal - memPhysFree : -1, -1, memPhysTotal);
+        return;
+      case MEMORY_SWAP:
+        var memSwapTotal = ssb.getTotalSwapSpaceSize();
+        var memSwapFree = ssb.getFreeSwapSpaceSize();
+        memorySwap = new MemoryData(memSwapTotal != -1 ? memSwapTotal - memSwapFree : -1, -1, memSwapTotal);
+        return;
+      case PROCESS_CPU_TIME:
+        // Process Cpu time - value is in nanoseconds:
+        var cpuTime = ssb.getProcessCpuTime();
+        processCpuTimeMillis = cpuTime > 0 ? cpuTime / 1000000 : -1;
+        return;
+      case PROCESS_CPU_LOAD:
+        // Process Cpu load - value is a double between 0..1:
+        var cpuLoad = ssb.getProcessCpuLoad();
+        processCpuLoadPct = cpuLoad < 0 ? cpuLoad : cpuLoad * 100;
+        return;
+      case SYSTEM_CPU_LOAD:
+        // System Cpu load - value is a double between 0..1:
+        var systemLoad = ssb.getCpuLoad();
+        systemCpuLoadPct = systemLoad < 0 ? systemLoad : systemLoad * 100;
+        return;
+      default:
+        break;
+      }
     }
 
     // Open/Max file descriptor count:
-    if (osb instanceof UnixOperatingSystemMXBean) {
+    if (value == FILE_DESCRIPTORS && osb instanceof UnixOperatingSystemMXBean) {
       var usb = (UnixOperatingSystemMXBean)osb;
       openFileDescriptorCount = usb.getOpenFileDescriptorCount();
       maxFileDescriptorCount = usb.getMaxFileDescriptorCount();
+      return;
     }
+    super.sample(value);
   }
 }
@@ -1,21 +1,46 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.data;
 
+import java.lang.management.ClassLoadingMXBean;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides information about the virtual machine currently running in.
+ * <p/>
+ * An instance is either a full snapshot that queries all values when created (see {@link #create()}) or samples each group
+ * of values on first access only and keeps it afterwards (see {@link #createLazy()}). The latter is used by the statistics
+ * collection, so only the MXBeans that are actually read by the registered statistics get queried. Each group is sampled once
+ * even if accessed by multiple threads, groups already sampled are read without locking.
  *
  * @author Stefan Mueller
  */
 public class SystemData {
+  // The groups of values that are sampled together:
+  protected static final int THREADS = 1;
+  protected static final int CLASS_LOADING = 1 << 1;
+  protected static final int GC = 1 << 2;
+  protected static final int MEMORY_HEAP = 1 << 3;
+  protected static final int MEMORY_NON_HEAP = 1 << 4;
+  protected static final int MEMORY_PHYSICAL = 1 << 5;
+  protected static final int MEMORY_SWAP = 1 << 6;
+  protected static final int PROCESS_CPU_TIME = 1 << 7;
+  protected static final int PROCESS_CPU_LOAD = 1 << 8;
+  protected static final int SYSTEM_CPU_LOAD = 1 << 9;
+  protected static final int FILE_DESCRIPTORS = 1 << 10;
+  protected static final int ALL = (1 << 11) - 1;
+  private static final int GROUP_COUNT = 11;
+
   // Host name and IP:
   private static final String HOST_IP;
   // If sun-classes exists in classpath:
@@ -43,17 +68,45 @@ public class SystemData {
     SUN_CLASSES_EXIST = sunexists;
   }
 
-  private final String rtInfo;
+  // The MXBeans and the facts that do not change during the lifetime of the VM:
+  private static final RuntimeMXBean RUNTIME_MXBEAN = ManagementFactory.getRuntimeMXBean();
+  private static final OperatingSystemMXBean OS_MXBEAN = ManagementFactory.getOperatingSystemMXBean();
+  private static final ThreadMXBean THREAD_MXBEAN = ManagementFactory.getThreadMXBean();
+  private static final ClassLoadingMXBean CLASS_LOADING_MXBEAN = ManagementFactory.getClassLoadingMXBean();
+  private static final MemoryMXBean MEMORY_MXBEAN = ManagementFactory.getMemoryMXBean();
+  private static final GarbageCollectorMXBean[] GC_MXBEANS = ManagementFactory.getGarbageCollectorMXBeans()
+      .toArray(new GarbageCollectorMXBean[0]);
+  private static final String RT_INFO = System.getProperty("java.runtime.name") + ", " + System.getProperty("java.runtime.version");
+  private static final String VM_NAME = RUNTIME_MXBEAN.getVmName();
+  private static final String VM_VENDOR = RUNTIME_MXBEAN.getVmVendor();
+  private static final String VM_VERSION = RUNTIME_MXBEAN.getVmVersion();
+  private static final String OS_NAME = OS_MXBEAN.getName();
+  private static final String OS_ARCHITECTURE = OS_MXBEAN.getArch();
+  private static final String OS_VERSION = OS_MXBEAN.getVersion();
+  private static final String GC_NAME;
+  static {
+    var gcName = new StringBuilder();
+    for (var gc : GC_MXBEANS) {
+      if (gcName.length() > 0) {
+        gcName.append(", ");
+      }
+      gcName.append(gc.getName());
+    }
+    GC_NAME = gcName.toString();
+  }
+
   private final RuntimeMXBean rtb;
   protected final OperatingSystemMXBean osb;
-  private final int threadCurrentCount;
-  private final int clLoadedClassCount;
-  private final long clTotalLoadedClassCount;
-  private final String gcName;
-  private final long gcCollectionCount;
-  private final long gcCollectionTimeMillis;
-  private final MemoryData memoryHeap;
-  private final MemoryData memoryNonHeap;
+  private final AtomicInteger sampled = new AtomicInteger(); // The groups of values sampled so far
+  private final Object[] sampleLocks = new Object[GROUP_COUNT]; // One lock per group
+  private int threadCurrentCount;
+  private int clLoadedClassCount;
+  private long clTotalLoadedClassCount;
+  private long gcCollectionCount;
+  private long gcCollectionTimeMillis;
+  private List<GcData> gcCollectors;
+  private MemoryData memoryHeap;
+  private MemoryData memoryNonHeap;
   // Those values might be set by subclasses:
   protected MemoryData memoryPhysical;
   protected MemoryData memorySwap;
@@ -64,53 +117,31 @@ public class SystemData {
   protected long maxFileDescriptorCount;
 
   /**
-   * Creates a new instanceof of the correct SystemData instance.
+   * Creates a new instanceof of the correct SystemData instance with all values sampled.
    */
   public static SystemData create() {
+    var data = createLazy();
+    data.ensureSampled(ALL);
+    return data;
+  }
+
+  /**
+   * Creates a new instanceof of the correct SystemData instance that samples each group of values on first access.
+   */
+  public static SystemData createLazy() {
     return SUN_CLASSES_EXIST ? new SunSystemData() : new SystemData();
   }
 
   /**
-   * Creates a new instance of this class.
+   * Creates a new instance of this class, the values are sampled on first access.
    */
   protected SystemData() {
     // Store runtime-infos:
-    rtInfo = System.getProperty("java.runtime.name") + ", " + System.getProperty("java.runtime.version");
-    rtb = ManagementFactory.getRuntimeMXBean();
-
-    // Store thread-infos:
-    var tb = ManagementFactory.getThreadMXBean();
-    threadCurrentCount = tb.getThreadCount();
-
-    // Get class-loader stuff:
-    var clb = ManagementFactory.getClassLoadingMXBean();
-    clLoadedClassCount = clb.getLoadedClassCount();
-    clTotalLoadedClassCount = clb.getTotalLoadedClassCount();
-
-    // Build gc name and collection time:
-    var tmpGcCollectionCount = 0L;
-    var tmpGcCollectionTimeMillis = 0L;
-    var tmpGcName = new StringBuilder();
-    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
-      if (tmpGcName.length() > 0) {
-        tmpGcName.append(", ");
-      }
-      tmpGcName.append(gc.getName());
-      tmpGcCollectionCount += gc.getCollectionCount();
-      tmpGcCollectionTimeMillis += gc.getCollectionTime();
-    }
-    gcName = tmpGcName.toString();
-    gcCollectionCount = tmpGcCollectionCount;
-    gcCollectionTimeMillis = tmpGcCollectionTimeMillis;
-
-    // Get heap / none heap memory:
-    var mb = ManagementFactory.getMemoryMXBean();
-    memoryHeap = new MemoryData(mb.getHeapMemoryUsage());
-    memoryNonHeap = new MemoryData(mb.getNonHeapMemoryUsage());
+    rtb = RUNTIME_MXBEAN;
 
     // Physical / swap memory - Note: Most info is hidden in sun-classes, cannot check instance-of here
     // to prevent class-not-found-exception for VMs without sun-classes! See dedicated sub-class SunSystemData.
-    osb = ManagementFactory.getOperatingSystemMXBean();
+    osb = OS_MXBEAN;
     memoryPhysical = MemoryData.UNKNOWN;
     memorySwap = MemoryData.UNKNOWN;
     processCpuTimeMillis = -1;
@@ -118,13 +149,81 @@ public class SystemData {
     systemCpuLoadPct = -1;
     openFileDescriptorCount = -1;
     maxFileDescriptorCount = -1;
+    for (var i = 0; i < GROUP_COUNT; i++) {
+      sampleLocks[i] = new Object();
+    }
+  }
+
+  /**
+   * Samples the given groups of values if not yet done. Threads accessing different groups do not block each other.
+   */
+  protected final void ensureSampled(int values) {
+    var missing = values & ~sampled.get();
+    for (var value = 1; missing != 0; value <<= 1) {
+      if ((missing & value) != 0) {
+        synchronized (sampleLocks[Integer.numberOfTrailingZeros(value)]) {
+          if ((sampled.get() & value) == 0) {
+            sample(value);
+            // Publishes the sampled values to the threads that see the flag:
+            sampled.accumulateAndGet(value, (s, v) -> s | v);
+          }
+        }
+        missing &= ~value;
+      }
+    }
+  }
+
+  /**
+   * Returns if all of the given groups of values were sampled.
+   */
+  final boolean isSampled(int values) {
+    return (sampled.get() & values) == values;
+  }
+
+  /**
+   * Samples the given single group of values. Subclasses might sample additional values and delegate all other groups.
+   */
+  protected void sample(int value) {
+    switch (value) {
+    case THREADS:
+      threadCurrentCount = THREAD_MXBEAN.getThreadCount();
+      break;
+    case CLASS_LOADING:
+      clLoadedClassCount = CLASS_LOADING_MXBEAN.getLoadedClassCount();
+      clTotalLoadedClassCount = CLASS_LOADING_MXBEAN.getTotalLoadedClassCount();
+      break;
+    case GC:
+      // Sum gc collection count and time:
+      var tmpGcCollectionCount = 0L;
+      var tmpGcCollectionTimeMillis = 0L;
+      var tmpGcCollectors = new ArrayList<GcData>(GC_MXBEANS.length);
+      for (var gc : GC_MXBEANS) {
+        var gcData = new GcData(gc.getName(), gc.getCollectionCount(), gc.getCollectionTime());
+        tmpGcCollectionCount += gcData.getCollectionCount();
+        tmpGcCollectionTimeMillis += gcData.getCollectionTimeMillis();
+        tmpGcCollectors.add(gcData);
+      }
+      gcCollectionCount = tmpGcCollectionCount;
+      gcCollectionTimeMillis = tmpGcCollectionTimeMillis;
+      gcCollectors = Collections.unmodifiableList(tmpGcCollectors);
+      break;
+    case MEMORY_HEAP:
+      memoryHeap = new MemoryData(MEMORY_MXBEAN.getHeapMemoryUsage());
+      break;
+    case MEMORY_NON_HEAP:
+      memoryNonHeap = new MemoryData(MEMORY_MXBEAN.getNonHeapMemoryUsage());
+      break;
+    default:
+      // Not available without sun-classes...
+      break;
+    }
   }
 
   /**
    * Returns the java name and version.
    */
   public String getRtInfo() {
-    return rtInfo;
+    return RT_INFO;
   }
 
   /**
@@ -178,27 +277,28 @@ public class SystemData {
    * The VM implementation name.
    */
   public String getVmName() {
-    return rtb.getVmName();
+    return VM_NAME;
   }
 
   /**
    * The VM implementation vendor.
    */
   public String getVmVendor() {
-    return rtb.getVmVendor();
+    return VM_VENDOR;
   }
 
   /**
    * The VM implementation version.
    */
   public String getVmVersion() {
-    return rtb.getVmVersion();
+    return VM_VERSION;
   }
 
   /**
    * The open file descriptors.
    */
   public long getOpenFileDescriptorCount() {
+    ensureSampled(FILE_DESCRIPTORS);
     return openFileDescriptorCount;
   }
 
@@ -206,6 +306,7 @@ public class SystemData {
    * The max file descriptors.
    */
   public long getMaxFileDescriptorCount() {
+    ensureSampled(FILE_DESCRIPTORS);
     return maxFileDescriptorCount;
   }
 
@@ -213,6 +314,7 @@ public class SystemData {
    * Returns the used/max heap memory.
    */
   public MemoryData getMemoryHeap() {
+    ensureSampled(MEMORY_HEAP);
     return memoryHeap;
   }
 
@@ -220,6 +322,7 @@ public class SystemData {
    * Returns the used/max none-heap memory.
    */
   public MemoryData getMemoryNonHeap() {
+    ensureSampled(MEMORY_NON_HEAP);
     return memoryNonHeap;
   }
 
@@ -227,6 +330,7 @@ public class SystemData {
    * Returns the used/max physical memory.
    */
   public MemoryData getMemoryPhysical() {
+    ensureSampled(MEMORY_PHYSICAL);
     return memoryPhysical;
   }
 
@@ -234,6 +338,7 @@ public class SystemData {
    * Returns the used/max physical swap memory.
    */
   public MemoryData getMemorySwap() {
+    ensureSampled(MEMORY_SWAP);
     return memorySwap;
   }
 
@@ -241,6 +346,7 @@ public class SystemData {
    * Returns the number of currently loaded classes.
    */
   public int getCLLoadedClassCount() {
+    ensureSampled(CLASS_LOADING);
     return clLoadedClassCount;
   }
 
@@ -248,6 +354,7 @@ public class SystemData {
    * Returns the total number of classes loaded so far.
    */
   public long getCLTotalLoadedClassCount() {
+    ensureSampled(CLASS_LOADING);
     return clTotalLoadedClassCount;
   }
 
@@ -283,21 +390,21 @@ public class SystemData {
    * Returns the operating system name.
    */
   public String getOsName() {
-    return osb.getName();
+    return OS_NAME;
   }
 
   /**
    * Returns the operating system architecture.
    */
   public String getOsArchitecture() {
-    return osb.getArch();
+    return OS_ARCHITECTURE;
   }
 
   /**
    * Returns the operating system version.
    */
   public String getOsVersion() {
-    return osb.getVersion();
+    return OS_VERSION;
   }
 
   /**
@@ -317,6 +424,7 @@ public class SystemData {
    * If the system recent cpu usage is not available, the method returns -1.
    */
   public double getSystemCpuLoadPct() {
+    ensureSampled(SYSTEM_CPU_LOAD);
     return systemCpuLoadPct;
   }
 
@@ -331,6 +439,7 @@ public class SystemData {
    * If the Java Virtual Machine recent CPU usage is not available, the method returns -1.
    */
   public double getProcessCpuLoadPct() {
+    ensureSampled(PROCESS_CPU_LOAD);
     return processCpuLoadPct;
   }
 
@@ -340,6 +449,7 @@ public class SystemData {
    * This method returns -1 if the the platform does not support this operation.
    */
   public long getProcessCpuTimeMillis() {
+    ensureSampled(PROCESS_CPU_TIME);
     return processCpuTimeMillis;
   }
 
@@ -347,13 +457,14 @@ public class SystemData {
    * Returns the name of the garbage collector.
    */
   public String getGcName() {
-    return gcName;
+    return GC_NAME;
   }
 
   /**
    * Returns the number of times garbage collection occurred.
    */
   public long getGcCollectionCount() {
+    ensureSampled(GC);
     return gcCollectionCount;
   }
 
@@ -361,13 +472,23 @@ public class SystemData {
    * Returns the sum of times of all garbage collection.
    */
   public long getGcCollectionTimeMillis() {
+    ensureSampled(GC);
     return gcCollectionTimeMillis;
   }
 
+  /**
+   * Returns the data of each garbage collector.
+   */
+  public List<GcData> getGcCollectors() {
+    ensureSampled(GC);
+    return gcCollectors;
+  }
+
   /**
    * Returns the current number of threads.
    */
   public int getThreadCurrentCount() {
+    ensureSampled(THREADS);
     return threadCurrentCount;
   }
 }
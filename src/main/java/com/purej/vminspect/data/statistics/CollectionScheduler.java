@@ -0,0 +1,177 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a task on the wall-clock boundaries of a fixed period (eg. every full minute for a period of 60'000ms). The
+ * delay to the next boundary is recalculated after each run, so slow runs do not shift later runs and the collected
+ * values stay on the steps of the statistics files.
+ * <p/>
+ * A run that is started later than a tenth of the period (at most one second) after its boundary is counted as late.
+ * If a run takes longer than the period, the boundaries that passed in the meantime are handled according to the
+ * {@link OverrunPolicy} and counted as missed if not run.
+ *
+ * @author Stefan Mueller
+ */
+final class CollectionScheduler {
+  private static final Logger LOG = LoggerFactory.getLogger(CollectionScheduler.class);
+
+  private final ScheduledThreadPoolExecutor executor;
+  private final long periodMillis;
+  private final long lateToleranceMillis;
+  private final OverrunPolicy overrunPolicy;
+  private final Runnable task;
+
+  // Metrics:
+  private final AtomicLong ticks = new AtomicLong();
+  private final AtomicLong missedTicks = new AtomicLong();
+  private final AtomicLong lateTicks = new AtomicLong();
+  private volatile long lastDelayMillis;
+  private volatile long lastTickMillis;
+
+  // The boundary of the next run, only accessed by the executor thread after start:
+  private long nextTickMillis;
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param threadName the name of the daemon thread that runs the task
+   * @param periodMillis the period in milliseconds
+   * @param overrunPolicy what to do with missed boundaries
+   * @param task the task to be run
+   */
+  CollectionScheduler(String threadName, long periodMillis, OverrunPolicy overrunPolicy, Runnable task) {
+    if (periodMillis <= 0) {
+      throw new IllegalArgumentException("Value of 'periodMillis' must be greater than 0!");
+    }
+    this.periodMillis = periodMillis;
+    this.lateToleranceMillis = Math.min(periodMillis / 10, 1000);
+    this.overrunPolicy = overrunPolicy;
+    this.task = task;
+    this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+      var thread = new Thread(r, threadName);
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * Starts running the task at the next boundary.
+   */
+  synchronized void start() {
+    nextTickMillis = nextBoundary(System.currentTimeMillis());
+    scheduleNext();
+  }
+
+  /**
+   * Stops the scheduler, a currently running task is not interrupted.
+   */
+  void stop() {
+    executor.shutdown();
+  }
+
+  /**
+   * Waits until the scheduler is stopped and a currently running task is finished.
+   *
+   * @param timeoutMillis the maximum time to wait
+   * @return true if terminated, false if the timeout elapsed before
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+    return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the number of runs so far.
+   */
+  long getTicks() {
+    return ticks.get();
+  }
+
+  /**
+   * Returns the number of boundaries that were skipped because of overruns.
+   */
+  long getMissedTicks() {
+    return missedTicks.get();
+  }
+
+  /**
+   * Returns the number of runs that were started late.
+   */
+  long getLateTicks() {
+    return lateTicks.get();
+  }
+
+  /**
+   * Returns the delay in milliseconds of the last run after its boundary.
+   */
+  long getLastDelayMillis() {
+    return lastDelayMillis;
+  }
+
+  /**
+   * Returns the boundary of the last run in milliseconds.
+   */
+  long getLastTickMillis() {
+    return lastTickMillis;
+  }
+
+  private long nextBoundary(long millis) {
+    return (millis / periodMillis + 1) * periodMillis;
+  }
+
+  private void scheduleNext() {
+    try {
+      executor.schedule(this::tick, Math.max(nextTickMillis - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // Already stopped...
+    }
+  }
+
+  private synchronized void tick() {
+    var start = System.currentTimeMillis();
+    if (start < nextTickMillis - lateToleranceMillis) {
+      // Wall-clock was set back, re-align to the next boundary:
+      nextTickMillis = nextBoundary(start);
+      scheduleNext();
+      return;
+    }
+    var delay = start - nextTickMillis;
+    lastDelayMillis = Math.max(delay, 0);
+    lastTickMillis = nextTickMillis;
+    ticks.incrementAndGet();
+    if (delay > lateToleranceMillis) {
+      lateTicks.incrementAndGet();
+    }
+    try {
+      task.run();
+    } catch (Throwable t) {
+      LOG.warn("Exception while running scheduled task", t);
+    }
+
+    // Calculate the next boundary, handle overruns and wall-clock jumps:
+    var end = System.currentTimeMillis();
+    var following = nextTickMillis + periodMillis;
+    if (end >= following) {
+      var passed = (end - following) / periodMillis + 1;
+      if (overrunPolicy == OverrunPolicy.CATCH_UP) {
+        missedTicks.addAndGet(passed - 1);
+        nextTickMillis = following + (passed - 1) * periodMillis; // Most recent passed boundary, run immediately
+      } else {
+        missedTicks.addAndGet(passed);
+        nextTickMillis = following + passed * periodMillis;
+      }
+      LOG.debug("Scheduled task overrun, {} boundaries passed", passed);
+    } else {
+      nextTickMillis = following;
+    }
+    scheduleNext();
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded cache of rendered statistics graphs. The graphs only change with each collection, so the cache is
+ * invalidated by every collect tick. Within a tick, the least recently used graphs are evicted if the total
+ * size of the cached images exceeds the configured number of bytes.
+ * <p/>
+ * Concurrent requests for a graph that is not cached yet render it once only, the other callers wait
+ * for the rendering in progress.
+ *
+ * @author Stefan Mueller
+ */
+final class GraphCache {
+  private final long maxBytes;
+  private final Map<String, byte[]> graphs = new LinkedHashMap<>(64, 0.75f, true);
+  private final Map<String, CompletableFuture<byte[]>> rendering = new HashMap<>();
+  private long tick;
+  private long bytes;
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param maxBytes the maximum total size of the cached images
+   */
+  GraphCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the key of the graph with the given parameters.
+   */
+  static String createKey(String name, Range range, int width, int height) {
+    return name + '|' + range.asString() + '|' + width + 'x' + height;
+  }
+
+  /**
+   * Returns the current collect tick, must be read before rendering a graph to be cached.
+   */
+  synchronized long getTick() {
+    return tick;
+  }
+
+  /**
+   * Returns the cached graph with the given key or null if not cached.
+   */
+  synchronized byte[] get(String key) {
+    return graphs.get(key);
+  }
+
+  /**
+   * Returns the cached graph with the given key or renders and caches it using the given renderer. If the same
+   * graph is already being rendered within the current tick, waits for that rendering instead of rendering again.
+   *
+   * @throws IOException if rendering failed
+   */
+  byte[] get(String key, Renderer renderer) throws IOException {
+    CompletableFuture<byte[]> future;
+    long renderTick;
+    var owner = false;
+    synchronized (this) {
+      var png = graphs.get(key);
+      if (png != null) {
+        return png;
+      }
+      renderTick = tick;
+      future = rendering.get(key);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        rendering.put(key, future);
+        owner = true;
+      }
+    }
+    return owner ? render(key, renderTick, renderer, future) : await(future);
+  }
+
+  private byte[] render(String key, long renderTick, Renderer renderer, CompletableFuture<byte[]> future) throws IOException {
+    try {
+      var png = renderer.render();
+      put(key, renderTick, png);
+      future.complete(png);
+      return png;
+    }
+    catch (IOException | RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    }
+    finally {
+      synchronized (this) {
+        rendering.remove(key, future);
+      }
+    }
+  }
+
+  private static byte[] await(CompletableFuture<byte[]> future) throws IOException {
+    try {
+      return future.get();
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException("Graph rendering failed!", e.getCause());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted waiting for graph rendering!", e);
+    }
+  }
+
+  /**
+   * Caches the given graph if it was rendered within the current tick, graphs that were
+   * rendered while a collection was running are not cached as they might be outdated.
+   */
+  synchronized void put(String key, long renderTick, byte[] png) {
+    if (renderTick != tick || png == null || png.length > maxBytes) {
+      return;
+    }
+    var previous = graphs.put(key, png);
+    bytes += png.length - (previous != null ? previous.length : 0);
+    Iterator<byte[]> it = graphs.values().iterator();
+    while (bytes > maxBytes && it.hasNext()) {
+      bytes -= it.next().length;
+      it.remove();
+    }
+  }
+
+  /**
+   * Removes all cached graphs and starts a new tick.
+   */
+  synchronized void invalidate() {
+    tick++;
+    graphs.clear();
+    rendering.clear(); // Renderings in progress are outdated
+    bytes = 0;
+  }
+
+  /**
+   * Returns the number of cached graphs.
+   */
+  synchronized int size() {
+    return graphs.size();
+  }
+
+  /**
+   * Renders a graph to be cached.
+   */
+  interface Renderer {
+
+    /**
+     * Renders the graph and returns the PNG bytes.
+     *
+     * @throws IOException if rendering failed
+     */
+    byte[] render() throws IOException;
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * A single PNG image containing the graphs of multiple statistics in a grid of equally sized cells, filled
+ * row by row. Allows to load the graphs of the statistics overview with one request.
+ * <p/>
+ * Each rendered sprite has a unique id, so the page showing its layout can request exactly the same image.
+ *
+ * @author Stefan Mueller
+ */
+public final class GraphSprite {
+  private final long id;
+  private final String key;
+  private final long tick;
+  private final List<Statistics> statistics;
+  private final byte[] png;
+  private final int columns;
+  private final int cellWidth;
+  private final int cellHeight;
+
+  private GraphSprite(long id, String key, long tick, List<Statistics> statistics, byte[] png, int columns, int cellWidth, int cellHeight) {
+    this.id = id;
+    this.key = key;
+    this.tick = tick;
+    this.statistics = statistics;
+    this.png = png;
+    this.columns = columns;
+    this.cellWidth = cellWidth;
+    this.cellHeight = cellHeight;
+  }
+
+  /**
+   * Composes the given PNG graphs of the given statistics into a new sprite with the given number of columns.
+   *
+   * @param id the unique id of the sprite
+   * @param key the graph cache key of the sprite
+   * @param tick the graph cache tick the graphs were rendered in
+   * @param statistics the statistics in the order of the graphs
+   * @param graphs the graphs
+   * @param columns the number of columns
+   */
+  static GraphSprite compose(long id, String key, long tick, List<Statistics> statistics, List<byte[]> graphs, int columns) throws IOException {
+    var images = new BufferedImage[graphs.size()];
+    var cellWidth = 1;
+    var cellHeight = 1;
+    for (var i = 0; i < images.length; i++) {
+      images[i] = ImageIO.read(new ByteArrayInputStream(graphs.get(i)));
+      cellWidth = Math.max(cellWidth, images[i].getWidth());
+      cellHeight = Math.max(cellHeight, images[i].getHeight());
+    }
+    var rows = Math.max((images.length + columns - 1) / columns, 1);
+    var sprite = new BufferedImage(cellWidth * columns, cellHeight * rows, BufferedImage.TYPE_INT_RGB);
+    var graphics = sprite.createGraphics();
+    try {
+      graphics.setColor(Color.WHITE);
+      graphics.fillRect(0, 0, sprite.getWidth(), sprite.getHeight());
+      for (var i = 0; i < images.length; i++) {
+        graphics.drawImage(images[i], (i % columns) * cellWidth, (i / columns) * cellHeight, null);
+      }
+    }
+    finally {
+      graphics.dispose();
+    }
+    var out = new ByteArrayOutputStream(64 * 1024);
+    ImageIO.write(sprite, "png", out);
+    return new GraphSprite(id, key, tick, List.copyOf(statistics), out.toByteArray(), columns, cellWidth, cellHeight);
+  }
+
+  /**
+   * Returns the unique id of this sprite.
+   */
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Returns the graph cache key of this sprite.
+   */
+  String getKey() {
+    return key;
+  }
+
+  /**
+   * Returns the graph cache tick the graphs of this sprite were rendered in.
+   */
+  long getTick() {
+    return tick;
+  }
+
+  /**
+   * Returns the statistics shown by this sprite, the cell index equals the list index.
+   */
+  public List<Statistics> getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Returns the binary image data of this sprite.
+   */
+  public byte[] getPng() {
+    return png;
+  }
+
+  /**
+   * Returns the x-coordinate of the cell with the given index.
+   */
+  public int getX(int index) {
+    return (index % columns) * cellWidth;
+  }
+
+  /**
+   * Returns the y-coordinate of the cell with the given index.
+   */
+  public int getY(int index) {
+    return (index / columns) * cellHeight;
+  }
+
+  /**
+   * Returns the width of each cell.
+   */
+  public int getCellWidth() {
+    return cellWidth;
+  }
+
+  /**
+   * Returns the height of each cell.
+   */
+  public int getCellHeight() {
+    return cellHeight;
+  }
+}
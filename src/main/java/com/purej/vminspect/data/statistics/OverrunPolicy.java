@@ -0,0 +1,20 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+/**
+ * Defines what happens if a statistics collection takes longer than the collection frequency, so that one or more
+ * scheduled collections could not be run at their time. The collections are always scheduled on the wall-clock boundaries
+ * of the collection frequency, an overrun never shifts later collections.
+ *
+ * @author Stefan Mueller
+ */
+public enum OverrunPolicy {
+  /**
+   * Runs one late collection immediately for the most recent missed boundary, older missed boundaries are skipped.
+   */
+  CATCH_UP,
+  /**
+   * Skips all missed boundaries and continues with the next boundary in the future.
+   */
+  SKIP;
+}
@@ -7,30 +7,36 @@ package com.purej.vminspect.data.statistics;
  * @author Stefan Mueller
  */
 public enum Period {
+  /**
+   * Last 5 minutes, shown in high resolution if available.
+   */
+  MINUTES(5 * 60, "icons/flash-16.png", "5 Minutes", "Minutes"),
   /**
    * Day.
    */
-  DAY(1, "icons/calendar-day-16.png", "1 Day", "Day"),
+  DAY(Period.DAY_SECONDS, "icons/calendar-day-16.png", "1 Day", "Day"),
   /**
    * Week.
    */
-  WEEK(7, "icons/calendar-month-16.png", "1 Week", "Week"),
+  WEEK(7 * Period.DAY_SECONDS, "icons/calendar-month-16.png", "1 Week", "Week"),
   /**
    * Month.
    */
-  MONTH(31, "icons/calendar-month-16.png", "1 Month", "Month"),
+  MONTH(31 * Period.DAY_SECONDS, "icons/calendar-month-16.png", "1 Month", "Month"),
   /**
    * Year.
    */
-  YEAR(366, "icons/calendar-all-16.png", "1 Year", "Year"),
+  YEAR(366 * Period.DAY_SECONDS, "icons/calendar-all-16.png", "1 Year", "Year"),
   /**
    * All.
    */
-  ALL(2 * 366, "icons/calendar-all-16.png", "All", "All"),
+  ALL(2 * 366 * Period.DAY_SECONDS, "icons/calendar-all-16.png", "All", "All"),
   /**
    * Custom.
    */
-  CUSTOM(-1, "icons/calendar-custom-16.png", "Custom", "Custom");
+  CUSTOM(-Period.DAY_SECONDS, "icons/calendar-custom-16.png", "Custom", "Custom");
+
+  private static final int DAY_SECONDS = 24 * 60 * 60;
 
   private final int durationSeconds;
   private final String iconName;
@@ -38,8 +44,8 @@ public enum Period {
   private final String linkLabel;
   private final String code;
 
-  private Period(int durationDays, String iconName, String label, String linkLabel) {
-    this.durationSeconds = durationDays * 24 * 60 * 60;
+  private Period(int durationSeconds, String iconName, String label, String linkLabel) {
+    this.durationSeconds = durationSeconds;
     this.iconName = iconName;
     this.label = label;
     this.linkLabel = linkLabel;
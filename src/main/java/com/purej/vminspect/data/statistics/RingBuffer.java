@@ -0,0 +1,78 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+/**
+ * Fixed-size in-memory buffer of the most recent high resolution values of a {@link Statistics}. The oldest value is
+ * overwritten once the buffer is full, so the memory usage does not grow and nothing is written to disk.
+ *
+ * @author Stefan Mueller
+ */
+final class RingBuffer {
+  private final long[] timestamps;
+  private final double[] values;
+  private int next;
+  private int size;
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param capacity the number of values to be kept
+   */
+  RingBuffer(int capacity) {
+    this.timestamps = new long[capacity];
+    this.values = new double[capacity];
+  }
+
+  /**
+   * Adds the given value, overwrites the oldest value if full.
+   *
+   * @param timeMillis the timestamp of the value in milliseconds since epoch
+   * @param value the value, NaN if unknown
+   */
+  synchronized void add(long timeMillis, double value) {
+    timestamps[next] = timeMillis;
+    values[next] = value;
+    next = (next + 1) % values.length;
+    size = Math.min(size + 1, values.length);
+  }
+
+  /**
+   * Returns the number of values currently kept.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Consolidates the values between the given start and end time into steps of one second. Each step holds the average
+   * and maximum of the values within the second before its timestamp, steps without known values are NaN.
+   *
+   * @param startSeconds the start time in seconds since epoch (exclusive)
+   * @param endSeconds the end time in seconds since epoch (inclusive)
+   */
+  synchronized TimeSeries toTimeSeries(long startSeconds, long endSeconds) {
+    var count = (int) Math.max(endSeconds - startSeconds, 0);
+    var stepTimestamps = new long[count];
+    var averages = new double[count];
+    var maxima = new double[count];
+    var counts = new int[count];
+    for (var i = 0; i < count; i++) {
+      stepTimestamps[i] = startSeconds + i + 1;
+      maxima[i] = Double.NaN;
+    }
+    for (var i = 0; i < size; i++) {
+      var value = values[i];
+      var step = (int) ((timestamps[i] + 999) / 1000 - startSeconds - 1);
+      if (Double.isNaN(value) || step < 0 || step >= count) {
+        continue;
+      }
+      averages[step] += value;
+      maxima[step] = counts[step] == 0 ? value : Math.max(maxima[step], value);
+      counts[step]++;
+    }
+    for (var i = 0; i < count; i++) {
+      averages[i] = counts[i] > 0 ? averages[i] / counts[i] : Double.NaN;
+    }
+    return new TimeSeries(1, stepTimestamps, averages, maxima);
+  }
+}
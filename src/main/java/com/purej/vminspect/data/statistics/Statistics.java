@@ -2,8 +2,11 @@
 package com.purej.vminspect.data.statistics;
 
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import com.purej.vminspect.data.SystemData;
 import com.purej.vminspect.data.statistics.rrd.Rrd;
+import com.purej.vminspect.data.statistics.rrd.RrdProvider;
 import com.purej.vminspect.util.Utils;
 
 /**
@@ -18,6 +21,12 @@ public final class Statistics {
   private final String description;
   private final ValueProvider valueProvider;
   private final Rrd rrd;
+  private final RingBuffer highResolutionValues; // Null if not sampled in high resolution
+  private final Lock providerLock = new ReentrantLock(); // Serializes the collection and high resolution calls
+
+  // Will be changed with each collect-call:
+  private volatile long lastCollectDurationMicros;
+  private volatile long collectFailures;
 
   /**
    * Creates a new instance of this class.
@@ -32,6 +41,14 @@ public final class Statistics {
    */
   public Statistics(String name, String label, String unit, String description, ValueProvider valueProvider, Rrd rrd)
       throws IOException {
+    this(name, label, unit, description, valueProvider, rrd, null);
+  }
+
+  /**
+   * Creates a new instance of this class with optional high resolution values.
+   */
+  Statistics(String name, String label, String unit, String description, ValueProvider valueProvider, Rrd rrd,
+      RingBuffer highResolutionValues) throws IOException {
     if (name == null || name.length() > 20) {
       throw new IllegalArgumentException("RRD name should not be empty or exceed 20 characaters!");
     }
@@ -40,6 +57,7 @@ public final class Statistics {
     this.description = Utils.checkNotNull(description);
     this.valueProvider = Utils.checkNotNull(valueProvider);
     this.rrd = Utils.checkNotNull(rrd);
+    this.highResolutionValues = highResolutionValues;
   }
 
   /**
@@ -68,10 +86,80 @@ public final class Statistics {
    * This method will be called on a regular basis by the {@link StatisticsCollector}.
    */
   public void collectValue(SystemData data) throws IOException {
-    var value = valueProvider.getValue(data);
+    addValue(readValue(data));
+  }
+
+  /**
+   * Returns the current value of the configured {@link ValueProvider} and tracks the time it took.
+   */
+  double readValue(SystemData data) {
+    providerLock.lock();
+    try {
+      var start = System.nanoTime();
+      try {
+        return valueProvider.getValue(data);
+      } finally {
+        lastCollectDurationMicros = (System.nanoTime() - start) / 1000;
+      }
+    } finally {
+      providerLock.unlock();
+    }
+  }
+
+  /**
+   * Adds the given value to the RRD, NaN (unknown) if the provider has no value yet, eg. for the first delta.
+   */
+  void addValue(double value) throws IOException {
     rrd.addValue(value);
   }
 
+  /**
+   * Adds an unknown value to the RRD because the value could not be collected.
+   */
+  void addFailure() throws IOException {
+    collectFailures++;
+    rrd.addValue(Double.NaN);
+  }
+
+  /**
+   * Returns if this statistics is sampled in high resolution, see {@link Period#MINUTES}.
+   */
+  public boolean isHighResolution() {
+    return highResolutionValues != null;
+  }
+
+  /**
+   * Adds the current value of the configured {@link ValueProvider} to the high resolution values, NaN if it failed or if the
+   * provider is currently called by a collection. The provider is never called concurrently.
+   */
+  void sampleValue(SystemData data, long timeMillis) {
+    var value = Double.NaN;
+    if (providerLock.tryLock()) {
+      try {
+        value = valueProvider.getValue(data);
+      } catch (RuntimeException e) {
+        // Unknown value...
+      } finally {
+        providerLock.unlock();
+      }
+    }
+    highResolutionValues.add(timeMillis, value);
+  }
+
+  /**
+   * Returns the time in microseconds it took the {@link ValueProvider} to return the last value.
+   */
+  public long getLastCollectDurationMicros() {
+    return lastCollectDurationMicros;
+  }
+
+  /**
+   * Returns the number of collections that failed or timed out, eg. the provider threw an exception or did not return in time.
+   */
+  public long getCollectFailures() {
+    return collectFailures;
+  }
+
   /**
    * Creates a graphics binary of this statistics in PNG format.
    *
@@ -82,6 +170,35 @@ public final class Statistics {
    * @throws IOException if image creation failed
    */
   public byte[] createGraph(Range range, int width, int height) throws IOException {
+    if (isHighResolution(range)) {
+      return RrdProvider.createPng(fetchSeries(range), label, unit, range, width, height);
+    }
     return rrd.createPng(label, unit, range, width, height);
   }
+
+  /**
+   * Returns the unit for the UI.
+   */
+  public String getUnit() {
+    return unit;
+  }
+
+  /**
+   * Fetches the consolidated average and maximum values of this statistics for the given range.
+   *
+   * @param range the range to be fetched
+   * @return the fetched values
+   * @throws IOException if reading the values failed
+   */
+  public TimeSeries fetchSeries(Range range) throws IOException {
+    if (isHighResolution(range)) {
+      var endTime = (System.currentTimeMillis() + 999) / 1000;
+      return highResolutionValues.toTimeSeries(endTime - range.getPeriod().getDurationSeconds(), endTime);
+    }
+    return rrd.fetch(range);
+  }
+
+  private boolean isHighResolution(Range range) {
+    return highResolutionValues != null && range.getPeriod() == Period.MINUTES;
+  }
 }
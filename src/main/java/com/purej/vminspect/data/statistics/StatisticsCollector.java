@@ -1,23 +1,36 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.data.statistics;
 
-import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.purej.vminspect.data.GcData;
+import com.purej.vminspect.data.GcMonitor;
 import com.purej.vminspect.data.SystemData;
 import com.purej.vminspect.data.statistics.rrd.RrdProvider;
 
 /**
- * This class holds the different {@link Statistics} instances and provides a timer to
- * collect all statistics values on a regular basis.
+ * This class holds the different {@link Statistics} instances and provides a scheduler to
+ * collect all statistics values on the wall-clock boundaries of the collection frequency.
  * <p/>
  * Note: This class is a singleton and should only be created once per virtual machine!
  *
@@ -26,33 +39,95 @@ import com.purej.vminspect.data.statistics.rrd.RrdProvider;
 public final class StatisticsCollector {
   private static final Logger LOG = LoggerFactory.getLogger(StatisticsCollector.class);
   private static final double BYTES_PER_MB = 1024 * 1024;
+  private static final long GRAPH_CACHE_BYTES = 4 * 1024 * 1024;
+  private static final int MAX_SPRITES = 8;
+  private static final int GC_PREFIX_LENGTH = 12; // Leaves room for the longest suffix (MaxPause) within 20 characters
+
+  /**
+   * The number of graphs per row in the statistics overview and sprite.
+   */
+  public static final int SPRITE_COLUMNS = 3;
 
   // This static variables ensure only one collector instance per VM:
   private static StatisticsCollector instance;
   private static Set<Object> instanceRefs = new HashSet<>();
 
   // Instance members:
-  private final List<Statistics> statistics = new ArrayList<>();
+  private final List<Statistics> statistics = new CopyOnWriteArrayList<>();
   private final int collectionFrequencyMillis;
-  private final Timer timer;
+  private final CollectionScheduler scheduler;
+
+  // Samples the high resolution values, null if disabled:
+  private final CollectionScheduler highResolutionScheduler;
+  private final int highResolutionCapacity;
+
+  // Reads the values of the statistics in parallel, grows by the providers that still run after their timeout:
+  private final ThreadPoolExecutor collectPool;
+  private final int collectionThreads;
+  private final long collectionTimeoutMillis;
+  private final Map<Statistics, CollectTask> hungTasks = new HashMap<>(); // Only accessed by collect
 
   // The RRD provider:
   private final RrdProvider rrdProvider;
 
+  // The disk usage of the storage directory, null if in-memory:
+  private final StorageMonitor storageMonitor;
+
+  // The pauses and allocations of the garbage collectors:
+  private final GcMonitor gcMonitor = new GcMonitor();
+
+  // The rendered graphs, invalidated with each collect-call:
+  private final GraphCache graphCache = new GraphCache(GRAPH_CACHE_BYTES);
+
+  // The recently rendered sprites by id, the overview page and its image request use the same sprite:
+  private final AtomicLong spriteIds = new AtomicLong();
+  private final Map<Long, GraphSprite> sprites = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, GraphSprite> eldest) {
+      return size() > MAX_SPRITES;
+    }
+  };
+
+  // Renders the graphs of a sprite in parallel, created on first use. Own lock, a running collection must not block the rendering:
+  private final Object renderPoolLock = new Object();
+  private ForkJoinPool renderPool;
+
   // Will be changed with each collect-call:
   private volatile long lastCollectTimestamp;
   private volatile long lastCollectDurationMs;
-  private volatile long diskUsage;
 
-  private StatisticsCollector(String storageDir, int collectionFrequencyMillis) {
+  private StatisticsCollector(String storageDir, int collectionFrequencyMillis, StatisticsConfig config) {
     super();
     this.collectionFrequencyMillis = collectionFrequencyMillis;
 
-    // Create a timer and timer tasks:
-    this.timer = new Timer("VmInspect-Statistics-Collector", true);
+    // Create the scheduler:
+    this.scheduler = new CollectionScheduler("VmInspect-Statistics-Collector", collectionFrequencyMillis, config.getOverrunPolicy(), this::collect);
+
+    // Create the collect pool:
+    var threadCount = new AtomicInteger();
+    this.collectionThreads = config.getCollectionThreads();
+    this.collectPool = new ThreadPoolExecutor(collectionThreads, collectionThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      var thread = new Thread(r, "VmInspect-Statistics-Provider-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.collectionTimeoutMillis = config.getCollectionTimeoutMillis();
+
+    // Create the high resolution scheduler, the values are kept in-memory for the shortest period:
+    if (config.getHighResolutionMillis() > 0) {
+      this.highResolutionScheduler = new CollectionScheduler("VmInspect-Statistics-HighResolution", config.getHighResolutionMillis(),
+          OverrunPolicy.SKIP, this::collectHighResolution);
+      this.highResolutionCapacity = Period.MINUTES.getDurationSeconds() * 1000 / config.getHighResolutionMillis() + 1;
+    }
+    else {
+      this.highResolutionScheduler = null;
+      this.highResolutionCapacity = 0;
+    }
 
     // Create the RRD provider:
-    this.rrdProvider = new RrdProvider(storageDir, this.collectionFrequencyMillis);
+    this.rrdProvider = new RrdProvider(storageDir, this.collectionFrequencyMillis, config);
+    var storage = rrdProvider.getStorageDir();
+    this.storageMonitor = storage != null ? new StorageMonitor(storage, config.getOldFilesRetentionDays()) : null;
 
     // Register default statistics:
     try {
@@ -62,19 +137,19 @@ public final class StatisticsCollector {
         public double getValue(SystemData data) {
           return data.getMemoryHeap().getUsed() / BYTES_PER_MB;
         }
-      });
+      }, true);
       registerStatistics("usedNonHeapMemory", "Used Non Heap Memory", "mb", "Used non-heap memory in megabytes", new ValueProvider() {
         @Override
         public double getValue(SystemData data) {
           return data.getMemoryNonHeap().getUsed() / BYTES_PER_MB;
         }
-      });
+      }, true);
       registerStatistics("usedPhysicalMemory", "Used Physical Memory", "mb", "Used physical memory in megabytes", new ValueProvider() {
         @Override
         public double getValue(SystemData data) {
           return data.getMemoryPhysical().getUsed() / BYTES_PER_MB;
         }
-      });
+      }, true);
 
       // Register the threads/classes/gc statistics:
       registerStatistics("threads", "Live Threads", "", "Number of live threads", new ValueProvider() {
@@ -82,13 +157,13 @@ public final class StatisticsCollector {
         public double getValue(SystemData data) {
           return data.getThreadCurrentCount();
         }
-      });
+      }, true);
       registerStatistics("loadedClasses", "Loaded Classes", "", "Number of loaded classes", new ValueProvider() {
         @Override
         public double getValue(SystemData data) {
           return data.getCLLoadedClassCount();
         }
-      });
+      }, true);
       registerStatistics("gcTime", "Garbage Collector Time", "ms", "Garbage collector time per statistics frequency in milliseconds",
           new ValueProvider() {
             private long _lastGcTimeMillis;
@@ -100,6 +175,27 @@ public final class StatisticsCollector {
               return gcTimeMillis;
             }
           });
+      var gcPrefixes = new HashSet<String>();
+      for (var gc : SystemData.createLazy().getGcCollectors()) {
+        registerGcStatistics(getGcStatisticsPrefix(gc.getName(), gcPrefixes), gc.getName());
+      }
+      if (gcMonitor.isSupported()) {
+        registerStatistics("allocationRate", "Allocation Rate", "mb/s", "Heap allocation rate in megabytes per second", new ValueProvider() {
+          private long _lastAllocatedBytes = -1;
+          private long _lastNanos;
+
+          @Override
+          public double getValue(SystemData data) {
+            var allocatedBytes = gcMonitor.getAllocatedBytes();
+            var nanos = System.nanoTime();
+            var rate = _lastAllocatedBytes != -1 && nanos > _lastNanos
+                ? Math.max(allocatedBytes - _lastAllocatedBytes, 0) / BYTES_PER_MB / ((nanos - _lastNanos) / 1e9) : Double.NaN;
+            _lastAllocatedBytes = allocatedBytes;
+            _lastNanos = nanos;
+            return rate;
+          }
+        });
+      }
 
       // Register the load/files statistics:
       registerStatistics("vmLoad", "VM CPU Load", "%%", "Recent VM CPU load (all CPUs)", new ValueProvider() {
@@ -107,19 +203,19 @@ public final class StatisticsCollector {
         public double getValue(SystemData data) {
           return data.getProcessCpuLoadPct();
         }
-      });
+      }, true);
       registerStatistics("systemLoad", "System CPU Load", "%%", "Recent system CPU load (all CPUs)", new ValueProvider() {
         @Override
         public double getValue(SystemData data) {
           return data.getSystemCpuLoadPct();
         }
-      });
+      }, true);
       registerStatistics("fileDescriptors", "Open File Descriptors", "", "Number of open file descriptors", new ValueProvider() {
         @Override
         public double getValue(SystemData data) {
           return data.getOpenFileDescriptorCount();
         }
-      });
+      }, true);
     } catch (IOException e) {
       throw new RuntimeException("Could not initialize the default statistics!", e);
     }
@@ -141,8 +237,21 @@ public final class StatisticsCollector {
    * @see #destroy(Object)
    */
   public static synchronized StatisticsCollector init(String storageDir, int collectionFrequencyMillis, Object ref) {
+    return init(storageDir, collectionFrequencyMillis, new StatisticsConfig(), ref);
+  }
+
+  /**
+   * Initializes and returns the singleton instance of this collector or returns the already initialized instance.
+   *
+   * @param storageDir where to store the statistics files
+   * @param collectionFrequencyMillis the collection frequency in milliseconds
+   * @param config the tuning configuration, ignored if already initialized
+   * @param ref the instance of the class that references this collector; will be used when calling destroy again
+   * @see #destroy(Object)
+   */
+  public static synchronized StatisticsCollector init(String storageDir, int collectionFrequencyMillis, StatisticsConfig config, Object ref) {
     if (instance == null) {
-      instance = new StatisticsCollector(storageDir, collectionFrequencyMillis);
+      instance = new StatisticsCollector(storageDir, collectionFrequencyMillis, config);
       instance.startTimer();
     }
     instanceRefs.add(ref);
@@ -157,7 +266,15 @@ public final class StatisticsCollector {
   public static synchronized void destroy(Object ref) {
     instanceRefs.remove(ref);
     if (instanceRefs.size() == 0 && instance != null) {
-      instance.timer.cancel();
+      instance.scheduler.stop();
+      if (instance.highResolutionScheduler != null) {
+        instance.highResolutionScheduler.stop();
+      }
+      instance.collectPool.shutdownNow();
+      instance.shutdownRenderPool();
+      instance.syncStorage();
+      instance.closeStorageMonitor();
+      instance.gcMonitor.close();
       instance = null;
     }
   }
@@ -173,20 +290,37 @@ public final class StatisticsCollector {
    * @throws IOException if the {@link Statistics} instance could not be created for example if the JRobin file could not be created
    */
   public void registerStatistics(String name, String label, String unit, String description, ValueProvider valueProvider) throws IOException {
+    registerStatistics(name, label, unit, description, valueProvider, false);
+  }
+
+  /**
+   * Registers a new statistics with the given configuration.
+   *
+   * @param name the name of the statistics, must be a simple name without spaces and special characters
+   * @param label the label to be shown on the generated statistics graphics
+   * @param unit the unit to be shown on the generated statistics graphics
+   * @param description the description to be shown on the UI (mouse over)
+   * @param valueProvider the provider for statistics values
+   * @param highResolution if the values should additionally be sampled in high resolution for {@link Period#MINUTES}; the value
+   *          provider must be fast and must not depend on the time since its last call
+   * @throws IOException if the {@link Statistics} instance could not be created for example if the JRobin file could not be created
+   */
+  public void registerStatistics(String name, String label, String unit, String description, ValueProvider valueProvider,
+      boolean highResolution) throws IOException {
     var rrd = rrdProvider.create(name);
-    var stats = new Statistics(name, label, unit, description, valueProvider, rrd);
+    var highResolutionValues = highResolution && highResolutionScheduler != null ? new RingBuffer(highResolutionCapacity) : null;
+    var stats = new Statistics(name, label, unit, description, valueProvider, rrd, highResolutionValues);
     statistics.add(stats);
+    graphCache.invalidate(); // Cached sprites do not contain the new statistics
   }
 
   private void startTimer() {
     // We used to execute a first collect() call before starting the timer
     // but to reduce startup / init times of applications, we removed it...
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        collect();
-      }
-    }, collectionFrequencyMillis, collectionFrequencyMillis);
+    scheduler.start();
+    if (highResolutionScheduler != null) {
+      highResolutionScheduler.start();
+    }
   }
 
   /**
@@ -217,15 +351,50 @@ public final class StatisticsCollector {
     return lastCollectDurationMs;
   }
 
+  /**
+   * Returns the number of scheduled collections that were skipped because a previous collection took too long.
+   */
+  public long getMissedCollections() {
+    return scheduler.getMissedTicks();
+  }
+
+  /**
+   * Returns the number of scheduled collections that were started late.
+   */
+  public long getLateCollections() {
+    return scheduler.getLateTicks();
+  }
+
+  /**
+   * Returns the delay in milliseconds of the last scheduled collection after its scheduled time.
+   */
+  public long getLastCollectDelayMs() {
+    return scheduler.getLastDelayMillis();
+  }
+
   /**
    * Returns the size of this statistics files on disk.
    */
   public long getDiskUsage() {
-    return diskUsage;
+    return storageMonitor != null ? storageMonitor.getDiskUsage() : 0;
+  }
+
+  /**
+   * Returns the size of the old statistics files on disk, included in the {@link #getDiskUsage() disk usage}.
+   */
+  public long getOldFilesDiskUsage() {
+    return storageMonitor != null ? storageMonitor.getOldFilesDiskUsage() : 0;
+  }
+
+  /**
+   * Returns the number of old statistics files on disk, renamed because they could not be used anymore.
+   */
+  public int getOldFiles() {
+    return storageMonitor != null ? storageMonitor.getOldFiles() : 0;
   }
 
   /**
-   * Collects all statistics. Will be called by the timer on a regular frequency,
+   * Collects all statistics. Will be called by the scheduler on a regular frequency,
    * so there is usually no need to call the collect() method directly.
    */
   public synchronized void collect() {
@@ -233,35 +402,110 @@ public final class StatisticsCollector {
       lastCollectTimestamp = System.currentTimeMillis();
       // Note: Freeing memory with System.gc() before measuring stats might be cool but the performance
       // impact is huge (collect() becomes 10x slower and consumes a lot of CPU). Therefore we don't run it here anymore...
-      collectData(SystemData.create());
+      collectData(SystemData.createLazy());
 
-      // Calculate disk usage or memory size:
-      if (rrdProvider.getStorageDir() != null) {
-        long sum = 0;
-        var files = new File(rrdProvider.getStorageDir()).listFiles(new FilenameFilter() {
-          @Override
-          public boolean accept(File dir, String name) {
-            return name != null && name.endsWith(".rrd");
-          }
-        });
-        if (files != null) {
-          for (var file : files) {
-            sum += file.length();
-          }
-        }
-        diskUsage = sum;
+      // Update disk usage if changed:
+      if (storageMonitor != null) {
+        storageMonitor.update();
       }
 
       // Collect done:
       lastCollectDurationMs = System.currentTimeMillis() - lastCollectTimestamp;
     } catch (Throwable t) {
       LOG.warn("Exception while collecting data", t);
+    } finally {
+      graphCache.invalidate();
     }
   }
 
   private void collectData(SystemData data) throws IOException {
-    for (var statistics : statistics) {
-      statistics.collectValue(data);
+    // Providers still running after their timeout are not called again, each one blocks a single additional thread:
+    hungTasks.values().removeIf(task -> !task.isRunning());
+    resizeCollectPool(collectionThreads + hungTasks.size());
+
+    // Read all values in parallel, a slow or failing provider only affects its own statistics:
+    var stats = new ArrayList<>(statistics);
+    var tasks = new ArrayList<CollectTask>(stats.size());
+    for (var s : stats) {
+      var task = hungTasks.containsKey(s) ? null : new CollectTask(s, data);
+      if (task != null) {
+        collectPool.execute(task);
+      }
+      tasks.add(task);
+    }
+    for (var i = 0; i < stats.size(); i++) {
+      var s = stats.get(i);
+      var task = tasks.get(i);
+      if (task == null) {
+        LOG.debug("Value of statistics '{}' not collected, the previous call is still running", s.getName());
+        s.addFailure();
+        continue;
+      }
+      try {
+        s.addValue(awaitValue(task));
+      }
+      catch (TimeoutException e) {
+        task.cancel(true);
+        if (task.isRunning()) {
+          // Replace the blocked thread for the providers queued behind:
+          hungTasks.put(s, task);
+          resizeCollectPool(collectionThreads + hungTasks.size());
+        }
+        LOG.warn("Value of statistics '{}' not collected within {}ms", s.getName(), collectionTimeoutMillis);
+        s.addFailure();
+      }
+      catch (ExecutionException e) {
+        LOG.warn("Exception while collecting statistics '" + s.getName() + "'", e.getCause());
+        s.addFailure();
+      }
+      catch (CancellationException e) {
+        s.addFailure(); // Collector destroyed
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        task.cancel(true);
+        s.addFailure();
+      }
+    }
+    rrdProvider.commit();
+  }
+
+  private double awaitValue(CollectTask task) throws InterruptedException, ExecutionException, TimeoutException {
+    // The timeout starts when the provider gets called, not when the task is queued behind other providers:
+    var timeoutNanos = TimeUnit.MILLISECONDS.toNanos(collectionTimeoutMillis);
+    while (true) {
+      try {
+        return task.get(task.getRemainingNanos(timeoutNanos), TimeUnit.NANOSECONDS);
+      }
+      catch (TimeoutException e) {
+        if (task.isStarted() && task.getRemainingNanos(timeoutNanos) <= 0) {
+          throw e;
+        }
+        if (!task.isStarted() && collectPool.isShutdown()) {
+          throw new CancellationException("Collector destroyed");
+        }
+      }
+    }
+  }
+
+  private void resizeCollectPool(int threads) {
+    if (threads > collectPool.getMaximumPoolSize()) {
+      collectPool.setMaximumPoolSize(threads);
+      collectPool.setCorePoolSize(threads);
+    }
+    else if (threads < collectPool.getCorePoolSize()) {
+      collectPool.setCorePoolSize(threads);
+      collectPool.setMaximumPoolSize(threads);
+    }
+  }
+
+  private void collectHighResolution() {
+    var data = SystemData.createLazy();
+    var now = System.currentTimeMillis();
+    for (var stats : statistics) {
+      if (stats.isHighResolution()) {
+        stats.sampleValue(data, now);
+      }
     }
   }
 
@@ -277,6 +521,277 @@ public final class StatisticsCollector {
     return null;
   }
 
+  /**
+   * Returns the graphics binary of the {@link Statistics} with the given name in PNG format. The graphs are cached
+   * until the next collection, so multiple clients watching the same statistics do not render the same graph again.
+   *
+   * @param name the name of the statistics
+   * @param range the range to be shown
+   * @param width the width of the created PNG
+   * @param height the height of the created PNG
+   * @return the binary image data or null if there is no statistics with the given name
+   * @throws IOException if image creation failed
+   */
+  public byte[] getGraph(String name, Range range, int width, int height) throws IOException {
+    var stats = getStatistics(name);
+    if (stats == null) {
+      return null;
+    }
+    if (!isCached(range)) {
+      return stats.createGraph(range, width, height);
+    }
+    var key = GraphCache.createKey(name, range, width, height);
+    return graphCache.get(key, () -> stats.createGraph(range, width, height));
+  }
+
+  /**
+   * Returns the graphs of all {@link Statistics} composed into a single {@link GraphSprite} with {@link #SPRITE_COLUMNS}
+   * columns, in the order of {@link #getStatistics()}. The graphs are rendered in parallel on a fork-join pool with one thread
+   * per CPU, the sprite is cached until the next collection. Recently rendered sprites remain available by their id, see
+   * {@link #getGraphSprite(long)}.
+   *
+   * @param range the range to be shown
+   * @param width the width of each graph
+   * @param height the height of each graph
+   * @return the sprite
+   * @throws IOException if image creation failed
+   */
+  public GraphSprite getGraphSprite(Range range, int width, int height) throws IOException {
+    var key = GraphCache.createKey("sprite", range, width, height);
+    var tick = graphCache.getTick();
+    if (isCached(range)) {
+      synchronized (sprites) {
+        for (var sprite : sprites.values()) {
+          if (sprite.getTick() == tick && sprite.getKey().equals(key)) {
+            return sprite;
+          }
+        }
+      }
+    }
+    var stats = new ArrayList<>(statistics);
+    var tasks = new ArrayList<Callable<byte[]>>(stats.size());
+    for (var s : stats) {
+      tasks.add(() -> getGraph(s.getName(), range, width, height));
+    }
+    var graphs = new ArrayList<byte[]>(stats.size());
+    try {
+      for (var future : getRenderPool().invokeAll(tasks)) {
+        graphs.add(future.get());
+      }
+    }
+    catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException("Graph rendering failed!", e.getCause());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Graph rendering interrupted!", e);
+    }
+    var sprite = GraphSprite.compose(spriteIds.incrementAndGet(), key, tick, stats, graphs, SPRITE_COLUMNS);
+    synchronized (sprites) {
+      sprites.put(sprite.getId(), sprite);
+    }
+    return sprite;
+  }
+
+  /**
+   * Returns the recently rendered sprite with the given id.
+   *
+   * @param id the id of the sprite
+   * @return the sprite or null if it is not kept anymore
+   */
+  public GraphSprite getGraphSprite(long id) {
+    synchronized (sprites) {
+      return sprites.get(id);
+    }
+  }
+
+  private ForkJoinPool getRenderPool() {
+    synchronized (renderPoolLock) {
+      if (renderPool == null) {
+        renderPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+          var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("VmInspect-Graph-Renderer-" + thread.getPoolIndex());
+          thread.setDaemon(true);
+          return thread;
+        }, null, false);
+      }
+      return renderPool;
+    }
+  }
+
+  private void shutdownRenderPool() {
+    synchronized (renderPoolLock) {
+      if (renderPool != null) {
+        renderPool.shutdown();
+        renderPool = null;
+      }
+    }
+  }
+
+  private synchronized void syncStorage() {
+    // Synchronized to wait for a running collection, the values written since the last sync must not get lost:
+    try {
+      rrdProvider.sync();
+    } catch (IOException e) {
+      LOG.warn("Exception while syncing the statistics files", e);
+    }
+  }
+
+  private void registerGcStatistics(String prefix, String gcName) throws IOException {
+    registerStatistics(prefix + "Count", "GC Count " + gcName, "", "Number of collections of " + gcName + " per statistics frequency",
+        new ValueProvider() {
+          private long _lastCount = -1;
+
+          @Override
+          public double getValue(SystemData data) {
+            var gc = getGcData(data, gcName);
+            if (gc == null || gc.getCollectionCount() == -1) {
+              return Double.NaN;
+            }
+            var count = _lastCount != -1 ? gc.getCollectionCount() - _lastCount : Double.NaN;
+            _lastCount = gc.getCollectionCount();
+            return count;
+          }
+        });
+    registerStatistics(prefix + "Time", "GC Time " + gcName, "ms", "Collection time of " + gcName + " per statistics frequency in milliseconds",
+        new ValueProvider() {
+          private long _lastTimeMillis = -1;
+
+          @Override
+          public double getValue(SystemData data) {
+            var gc = getGcData(data, gcName);
+            if (gc == null || gc.getCollectionTimeMillis() == -1) {
+              return Double.NaN;
+            }
+            var timeMillis = _lastTimeMillis != -1 ? gc.getCollectionTimeMillis() - _lastTimeMillis : Double.NaN;
+            _lastTimeMillis = gc.getCollectionTimeMillis();
+            return timeMillis;
+          }
+        });
+    if (gcMonitor.isSupported()) {
+      registerStatistics(prefix + "MaxPause", "GC Max Pause " + gcName, "ms", "Longest collection of " + gcName
+          + " per statistics frequency in milliseconds", new ValueProvider() {
+            @Override
+            public double getValue(SystemData data) {
+              return gcMonitor.takeMaxPauseMillis(gcName);
+            }
+          });
+    }
+  }
+
+  /**
+   * Returns the prefix of the statistics names of the garbage collector with the given name, made of its acronyms and the
+   * initials of its other words (eg. gcG1YG for "G1 Young Generation" or gcPSMS for "PS MarkSweep"). The names stay the same
+   * if the collectors of the VM change and fit into the maximum length of a statistics name.
+   */
+  static String getGcStatisticsPrefix(String gcName) {
+    var prefix = new StringBuilder("gc");
+    for (var word : gcName.split("[^A-Za-z0-9]+|(?<=[a-z])(?=[A-Z])")) {
+      if (word.isEmpty()) {
+        continue;
+      }
+      if (word.equals(word.toUpperCase())) {
+        prefix.append(word);
+      } else {
+        prefix.append(Character.toUpperCase(word.charAt(0)));
+      }
+    }
+    return prefix.length() > GC_PREFIX_LENGTH ? prefix.substring(0, GC_PREFIX_LENGTH) : prefix.toString();
+  }
+
+  /**
+   * Returns the prefix of the statistics names of the garbage collector with the given name that is not yet contained in the
+   * given prefixes and adds it. Not expected, but if two collectors get the same prefix, a number replaces its last characters.
+   */
+  static String getGcStatisticsPrefix(String gcName, Set<String> prefixes) {
+    var base = getGcStatisticsPrefix(gcName);
+    var prefix = base;
+    for (var i = 1; !prefixes.add(prefix); i++) {
+      var suffix = String.valueOf(i);
+      prefix = base.substring(0, Math.min(base.length(), GC_PREFIX_LENGTH - suffix.length())) + suffix;
+    }
+    return prefix;
+  }
+
+  private static GcData getGcData(SystemData data, String gcName) {
+    for (var gc : data.getGcCollectors()) {
+      if (gc.getName().equals(gcName)) {
+        return gc;
+      }
+    }
+    return null;
+  }
+
+  private boolean isCached(Range range) {
+    // High resolution graphs change more often than with each collection:
+    return range.getPeriod() != Period.MINUTES || highResolutionScheduler == null;
+  }
+
+  private void closeStorageMonitor() {
+    if (storageMonitor != null) {
+      try {
+        storageMonitor.close();
+      } catch (IOException e) {
+        LOG.debug("Exception while closing the statistics directory watch", e);
+      }
+    }
+  }
+
+  /**
+   * Reads the value of a single statistics on the collect pool and tracks when the provider gets called.
+   */
+  private static final class CollectTask extends FutureTask<Double> {
+    private volatile boolean started;
+    private volatile boolean finished;
+    private volatile long startNanos;
+
+    CollectTask(Statistics statistics, SystemData data) {
+      super(() -> statistics.readValue(data));
+    }
+
+    @Override
+    public void run() {
+      startNanos = System.nanoTime();
+      started = true;
+      try {
+        super.run();
+      } finally {
+        finished = true;
+      }
+    }
+
+    boolean isStarted() {
+      return started;
+    }
+
+    boolean isRunning() {
+      return started && !finished;
+    }
+
+    long getRemainingNanos(long timeoutNanos) {
+      return started ? startNanos + timeoutNanos - System.nanoTime() : timeoutNanos;
+    }
+  }
+
+  /**
+   * Returns the number of seconds the graphs of the given range might be cached by clients, which is until the next
+   * collection is expected or 0 for high resolution graphs.
+   */
+  public int getGraphCacheSeconds(Range range) {
+    return isCached(range) ? getGraphCacheSeconds() : 0;
+  }
+
+  /**
+   * Returns the number of seconds the graphs might be cached by clients, which is until the next collection is expected.
+   */
+  public int getGraphCacheSeconds() {
+    if (lastCollectTimestamp == 0) {
+      return 0;
+    }
+    var remainingMs = lastCollectTimestamp + collectionFrequencyMillis - System.currentTimeMillis();
+    return (int) Math.max(remainingMs / 1000, 0);
+  }
+
   /**
    * Returns the list of all {@link Statistics}.
    */
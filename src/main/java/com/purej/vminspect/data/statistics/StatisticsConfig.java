@@ -0,0 +1,175 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+/**
+ * Holds the optional tuning parameters of the {@link StatisticsCollector} and its storage. A new instance contains
+ * reasonable default values, so only the values that differ have to be set.
+ *
+ * @author Stefan Mueller
+ */
+public final class StatisticsConfig {
+  private boolean batchedStorage;
+  private boolean mappedStorage;
+  private SyncPolicy syncPolicy = SyncPolicy.ALWAYS;
+  private int syncInterval = 1;
+  private OverrunPolicy overrunPolicy = OverrunPolicy.SKIP;
+  private int collectionThreads = 2;
+  private int collectionTimeoutMillis = 5000;
+  private int highResolutionMillis;
+  private int oldFilesRetentionDays = 30;
+
+  /**
+   * Returns if all statistics are stored as datasources of a single RRD file instead of one file per statistics (default: false).
+   * Only supported with RRD4J and a storage directory. Existing per-statistics files are migrated once into the single file.
+   */
+  public boolean isBatchedStorage() {
+    return batchedStorage;
+  }
+
+  /**
+   * Sets if all statistics are stored as datasources of a single RRD file instead of one file per statistics.
+   */
+  public void setBatchedStorage(boolean batchedStorage) {
+    this.batchedStorage = batchedStorage;
+  }
+
+  /**
+   * Returns if the statistics files are memory-mapped instead of accessed with read/write calls (default: false). Only supported
+   * with RRD4J and a storage directory. Memory-mapped files are written to disk by the operating system or according to the
+   * {@link #getSyncPolicy() sync policy}.
+   */
+  public boolean isMappedStorage() {
+    return mappedStorage;
+  }
+
+  /**
+   * Sets if the statistics files are memory-mapped instead of accessed with read/write calls.
+   */
+  public void setMappedStorage(boolean mappedStorage) {
+    this.mappedStorage = mappedStorage;
+  }
+
+  /**
+   * Returns when the written statistics values are forced to the storage device (default: {@link SyncPolicy#ALWAYS}).
+   */
+  public SyncPolicy getSyncPolicy() {
+    return syncPolicy;
+  }
+
+  /**
+   * Sets when the written statistics values are forced to the storage device.
+   */
+  public void setSyncPolicy(SyncPolicy syncPolicy) {
+    if (syncPolicy == null) {
+      throw new IllegalArgumentException("Value of 'syncPolicy' must not be null!");
+    }
+    this.syncPolicy = syncPolicy;
+  }
+
+  /**
+   * Returns the number of collections for {@link SyncPolicy#TICKS} or the number of seconds for {@link SyncPolicy#SECONDS}
+   * between two syncs (default: 1).
+   */
+  public int getSyncInterval() {
+    return syncInterval;
+  }
+
+  /**
+   * Sets the number of collections or seconds between two syncs, depending on the sync policy.
+   */
+  public void setSyncInterval(int syncInterval) {
+    if (syncInterval <= 0) {
+      throw new IllegalArgumentException("Value of 'syncInterval' must be greater than 0!");
+    }
+    this.syncInterval = syncInterval;
+  }
+
+  /**
+   * Returns what happens with scheduled collections missed because a collection took too long (default: {@link OverrunPolicy#SKIP}).
+   */
+  public OverrunPolicy getOverrunPolicy() {
+    return overrunPolicy;
+  }
+
+  /**
+   * Sets what happens with scheduled collections missed because a collection took too long.
+   */
+  public void setOverrunPolicy(OverrunPolicy overrunPolicy) {
+    if (overrunPolicy == null) {
+      throw new IllegalArgumentException("Value of 'overrunPolicy' must not be null!");
+    }
+    this.overrunPolicy = overrunPolicy;
+  }
+
+  /**
+   * Returns the number of threads that collect the statistics values in parallel (default: 2).
+   */
+  public int getCollectionThreads() {
+    return collectionThreads;
+  }
+
+  /**
+   * Sets the number of threads that collect the statistics values in parallel.
+   */
+  public void setCollectionThreads(int collectionThreads) {
+    if (collectionThreads <= 0) {
+      throw new IllegalArgumentException("Value of 'collectionThreads' must be greater than 0!");
+    }
+    this.collectionThreads = collectionThreads;
+  }
+
+  /**
+   * Returns the number of milliseconds to wait for each value of a collection (default: 5'000ms), counted from when its
+   * {@link ValueProvider} gets called. Statistics whose provider did not return within this time store an unknown value,
+   * the provider is not called again until the running call returns.
+   */
+  public int getCollectionTimeoutMillis() {
+    return collectionTimeoutMillis;
+  }
+
+  /**
+   * Sets the number of milliseconds to wait for the values of a collection.
+   */
+  public void setCollectionTimeoutMillis(int collectionTimeoutMillis) {
+    if (collectionTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("Value of 'collectionTimeoutMillis' must be greater than 0!");
+    }
+    this.collectionTimeoutMillis = collectionTimeoutMillis;
+  }
+
+  /**
+   * Returns the number of milliseconds between two in-memory high resolution values shown for {@link Period#MINUTES}
+   * (default: 0), 0 if disabled.
+   */
+  public int getHighResolutionMillis() {
+    return highResolutionMillis;
+  }
+
+  /**
+   * Sets the number of milliseconds between two in-memory high resolution values, 0 to disable.
+   */
+  public void setHighResolutionMillis(int highResolutionMillis) {
+    if (highResolutionMillis != 0 && (highResolutionMillis < 100 || highResolutionMillis > 1000)) {
+      throw new IllegalArgumentException("Value of 'highResolutionMillis' must be 0 or between 100 and 1000!");
+    }
+    this.highResolutionMillis = highResolutionMillis;
+  }
+
+  /**
+   * Returns the number of days old statistics files are kept before they get deleted (default: 30), 0 if kept forever. Statistics
+   * files are renamed to old files if they cannot be used anymore, for example if the collection frequency changed.
+   */
+  public int getOldFilesRetentionDays() {
+    return oldFilesRetentionDays;
+  }
+
+  /**
+   * Sets the number of days old statistics files are kept before they get deleted, 0 to keep them forever.
+   */
+  public void setOldFilesRetentionDays(int oldFilesRetentionDays) {
+    if (oldFilesRetentionDays < 0) {
+      throw new IllegalArgumentException("Value of 'oldFilesRetentionDays' must not be negative!");
+    }
+    this.oldFilesRetentionDays = oldFilesRetentionDays;
+  }
+}
@@ -0,0 +1,158 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the disk usage of the statistics storage directory and deletes old statistics files (renamed with
+ * <code>-old-&lt;timestamp&gt;</code> if incompatible) after the configured retention time.
+ * <p/>
+ * RRD files have a fixed size that is written completely when the file is created (the archives are round-robin), so
+ * the disk usage only changes if files are created, renamed or deleted. The directory is only scanned again if the file system reports such a change or once per hour.
+ *
+ * @author Stefan Mueller
+ */
+final class StorageMonitor implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(StorageMonitor.class);
+  private static final long RESCAN_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final Pattern OLD_FILE = Pattern.compile(".+-old-(\\d+)\\.rrd");
+
+  private final Path dir;
+  private final long retentionMillis;
+  private final WatchService watchService; // Null if not supported
+  private long lastScanMillis;
+
+  // Will be changed with each scan:
+  private volatile long diskUsage;
+  private volatile long oldFilesDiskUsage;
+  private volatile int oldFiles;
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param storageDir the statistics storage directory
+   * @param retentionDays the number of days to keep old statistics files, 0 to keep them forever
+   */
+  StorageMonitor(String storageDir, int retentionDays) {
+    this.dir = Paths.get(storageDir);
+    this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+    this.watchService = createWatchService(dir);
+  }
+
+  private static WatchService createWatchService(Path dir) {
+    WatchService watchService = null;
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+      return watchService;
+    } catch (IOException | UnsupportedOperationException e) {
+      LOG.debug("Watching statistics directory not supported, scanning hourly only", e);
+      if (watchService != null) {
+        try {
+          watchService.close();
+        } catch (IOException e2) {
+          // Ignore...
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Scans the directory if changed or not scanned for a long time. Will be called with each collection.
+   */
+  synchronized void update() {
+    var now = System.currentTimeMillis();
+    if (isScanDue(now)) {
+      scan(now);
+    }
+  }
+
+  private boolean isScanDue(long now) {
+    var due = lastScanMillis == 0 || now - lastScanMillis >= RESCAN_MILLIS;
+    if (watchService != null) {
+      // Drain all pending events, any create/delete/overflow requires a scan:
+      var key = watchService.poll();
+      while (key != null) {
+        due |= !key.pollEvents().isEmpty();
+        key.reset();
+        key = watchService.poll();
+      }
+    }
+    return due;
+  }
+
+  private void scan(long now) {
+    lastScanMillis = now;
+    long sum = 0;
+    long oldSum = 0;
+    var oldCount = 0;
+    try (var files = Files.newDirectoryStream(dir, "*.rrd")) {
+      for (var file : files) {
+        var matcher = OLD_FILE.matcher(file.getFileName().toString());
+        var old = matcher.matches();
+        if (old && retentionMillis > 0 && Long.parseLong(matcher.group(1)) < now - retentionMillis) {
+          LOG.info("Deleting old statistics file {} after retention time", file);
+          try {
+            Files.deleteIfExists(file);
+            continue;
+          } catch (IOException e) {
+            // Keep scanning, retried with the next scan:
+            LOG.warn("Exception while deleting old statistics file " + file, e);
+          }
+        }
+        var size = Files.size(file);
+        sum += size;
+        if (old) {
+          oldSum += size;
+          oldCount++;
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      LOG.warn("Exception while scanning the statistics directory " + dir, e);
+      return;
+    }
+    diskUsage = sum;
+    oldFilesDiskUsage = oldSum;
+    oldFiles = oldCount;
+  }
+
+  /**
+   * Returns the size of all statistics files in bytes as of the last scan.
+   */
+  long getDiskUsage() {
+    return diskUsage;
+  }
+
+  /**
+   * Returns the size of the old statistics files in bytes as of the last scan.
+   */
+  long getOldFilesDiskUsage() {
+    return oldFilesDiskUsage;
+  }
+
+  /**
+   * Returns the number of old statistics files as of the last scan.
+   */
+  int getOldFiles() {
+    return oldFiles;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+}
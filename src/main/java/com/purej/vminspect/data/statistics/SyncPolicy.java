@@ -0,0 +1,27 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+/**
+ * Defines when the written statistics values are forced to the storage device (fsync). The sync is done at most once per
+ * collection for all statistics files together.
+ *
+ * @author Stefan Mueller
+ */
+public enum SyncPolicy {
+  /**
+   * Sync after each collection, no values get lost if the VM or host crashes.
+   */
+  ALWAYS,
+  /**
+   * Sync after every N collections.
+   */
+  TICKS,
+  /**
+   * Sync after the first collection that is at least N seconds after the last sync.
+   */
+  SECONDS,
+  /**
+   * Sync only when the collector gets destroyed, the operating system writes the files in the meantime.
+   */
+  SHUTDOWN;
+}
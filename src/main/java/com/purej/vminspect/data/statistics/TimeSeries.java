@@ -0,0 +1,68 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data.statistics;
+
+/**
+ * The consolidated average and maximum values of a {@link Statistics} for a {@link Range} as stored in the RRD archives.
+ * Values that are unknown (eg. the VM was not running) are {@link Double#NaN}.
+ *
+ * @author Stefan Mueller
+ */
+public final class TimeSeries {
+  private final long stepSeconds;
+  private final long[] timestamps;
+  private final double[] averages;
+  private final double[] maxima;
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param stepSeconds the number of seconds between two values
+   * @param timestamps the timestamps of the values in seconds since epoch
+   * @param averages the average values, same length as the timestamps
+   * @param maxima the maximum values, same length as the timestamps
+   */
+  public TimeSeries(long stepSeconds, long[] timestamps, double[] averages, double[] maxima) {
+    if (averages.length != timestamps.length || maxima.length != timestamps.length) {
+      throw new IllegalArgumentException("Timestamps and values must have the same length!");
+    }
+    this.stepSeconds = stepSeconds;
+    this.timestamps = timestamps;
+    this.averages = averages;
+    this.maxima = maxima;
+  }
+
+  /**
+   * Returns the number of seconds between two values.
+   */
+  public long getStepSeconds() {
+    return stepSeconds;
+  }
+
+  /**
+   * Returns the number of values.
+   */
+  public int size() {
+    return timestamps.length;
+  }
+
+  /**
+   * Returns the timestamp of the value at the given index in milliseconds since epoch.
+   */
+  public long getTimestamp(int index) {
+    return timestamps[index] * 1000;
+  }
+
+  /**
+   * Returns the average value at the given index.
+   */
+  public double getAverage(int index) {
+    return averages[index];
+  }
+
+  /**
+   * Returns the maximum value at the given index.
+   */
+  public double getMax(int index) {
+    return maxima[index];
+  }
+}
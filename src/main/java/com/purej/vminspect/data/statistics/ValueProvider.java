@@ -5,7 +5,7 @@ import com.purej.vminspect.data.SystemData;
 
 /**
  * Implementations of this interface are responsible to provide statistics values.
- * This will be called by the {@link StatisticsCollector} on a regular basis.
+ * This will be called by the {@link StatisticsCollector} on a regular basis, from different threads but never concurrently.
  *
  * @author Stefan Mueller
  */
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.Date;
 import com.purej.vminspect.data.statistics.Period;
 import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.TimeSeries;
 import com.purej.vminspect.util.Utils;
 
 /**
@@ -26,12 +27,59 @@ public abstract class AbstractRrdImpl implements Rrd {
     this.rrdPath = storageDir != null ? new File(storageDir, name + ".rrd").getCanonicalPath() : name + ".rrd";
   }
 
-  protected void renameRrd(File file) {
+  protected static void renameRrd(File file) {
     var to = file.getName().replace(".rrd", "") + "-old-" + System.currentTimeMillis() + ".rrd";
     file.renameTo(new File(file.getParentFile(), to));
   }
 
-  protected String getGraphTitle(String label, Range range, int width) {
+  /**
+   * Returns the end time of the given range in seconds, which is the current time or the custom end-date.
+   */
+  protected static long getEndTime(Range range) {
+    var now = (System.currentTimeMillis() + 500) / 1000;
+    return range.getPeriod().equals(Period.CUSTOM) ? Math.min(range.getEndDate().getTime() / 1000, now) : now;
+  }
+
+  /**
+   * Returns the start time of the given range in seconds, depending on the period and end time.
+   */
+  protected static long getStartTime(Range range, long endTime) {
+    return range.getPeriod().equals(Period.CUSTOM) ? range.getStartDate().getTime() / 1000 : endTime - range.getPeriod().getDurationSeconds();
+  }
+
+  /**
+   * Creates the time-series from the fetched average and maximum values. The maximum values are aligned
+   * to the timestamps of the average values, missing ones are set to NaN.
+   */
+  protected static TimeSeries createTimeSeries(long step, long[] timestamps, double[] averages, long[] maxTimestamps, double[] maxValues) {
+    var maxima = new double[timestamps.length];
+    var maxIdx = 0;
+    for (var i = 0; i < timestamps.length; i++) {
+      while (maxIdx < maxTimestamps.length && maxTimestamps[maxIdx] < timestamps[i]) {
+        maxIdx++;
+      }
+      maxima[i] = maxIdx < maxTimestamps.length && maxTimestamps[maxIdx] == timestamps[i] ? maxValues[maxIdx] : Double.NaN;
+    }
+    return new TimeSeries(step, timestamps, averages, maxima);
+  }
+
+  /**
+   * Returns the average or maximum value of the given time-series at the given timestamp in seconds, eg. the value of
+   * the step that contains the timestamp or NaN if outside.
+   */
+  protected static double getValue(TimeSeries series, long timestamp, boolean max) {
+    if (series.size() == 0) {
+      return Double.NaN;
+    }
+    var first = series.getTimestamp(0) / 1000;
+    var index = (int) Math.ceil((double) (timestamp - first) / series.getStepSeconds());
+    if (index < 0 || index >= series.size()) {
+      return Double.NaN;
+    }
+    return max ? series.getMax(index) : series.getAverage(index);
+  }
+
+  protected static String getGraphTitle(String label, Range range, int width) {
     var titleStart = label + " - " + range.getPeriod().getLabel();
     var titleEnd = "";
     if (width > 400) {
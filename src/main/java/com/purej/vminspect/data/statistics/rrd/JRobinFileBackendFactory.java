@@ -0,0 +1,52 @@
+package com.purej.vminspect.data.statistics.rrd;
+
+import java.io.IOException;
+import org.jrobin.core.RrdBackend;
+import org.jrobin.core.RrdFileBackend;
+import org.jrobin.core.RrdFileBackendFactory;
+
+/**
+ * JRobin file backend factory whose backends can be forced to the storage device explicitly.
+ *
+ * @author Stefan Mueller
+ */
+final class JRobinFileBackendFactory extends RrdFileBackendFactory {
+  /**
+   * The name this factory gets registered with.
+   */
+  static final String NAME = "VMINSPECT_FILE";
+
+  @Override
+  protected RrdBackend open(String path, boolean readOnly) throws IOException {
+    return new SyncableBackend(path, readOnly);
+  }
+
+  @Override
+  public String getFactoryName() {
+    return NAME;
+  }
+
+  /**
+   * Forces the content of the given backend to the storage device if it was opened by this factory.
+   *
+   * @throws IOException if the sync failed
+   */
+  static void sync(RrdBackend backend) throws IOException {
+    if (backend instanceof SyncableBackend) {
+      ((SyncableBackend) backend).sync();
+    }
+  }
+
+  /**
+   * File backend with an explicit sync.
+   */
+  private static final class SyncableBackend extends RrdFileBackend {
+    SyncableBackend(String path, boolean readOnly) throws IOException {
+      super(path, readOnly);
+    }
+
+    void sync() throws IOException {
+      file.getChannel().force(true);
+    }
+  }
+}
@@ -5,22 +5,20 @@ import java.awt.GradientPaint;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.lang.reflect.Field;
 import java.util.Calendar;
 import org.jrobin.core.RrdBackendFactory;
 import org.jrobin.core.RrdDb;
 import org.jrobin.core.RrdDef;
 import org.jrobin.core.RrdException;
-import org.jrobin.core.RrdFileBackend;
 import org.jrobin.core.RrdMemoryBackendFactory;
 import org.jrobin.core.Util;
+import org.jrobin.data.Plottable;
 import org.jrobin.graph.RrdGraph;
 import org.jrobin.graph.RrdGraphDef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.purej.vminspect.data.statistics.Period;
 import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.TimeSeries;
 import com.purej.vminspect.util.Utils;
 
 /**
@@ -35,7 +33,7 @@ public class JRobinImpl extends AbstractRrdImpl {
 
   private final RrdBackendFactory rrdBackendFactory;
   private RrdDb rrdDb; // Note: Might be reopend if broken...
-  private RandomAccessFile raf; // Underlying file or null, depending on RrdDb subclass
+  private volatile boolean dirty; // Values added since the last sync
 
   /**
    * Creates a new instance of this class.
@@ -75,9 +73,7 @@ public class JRobinImpl extends AbstractRrdImpl {
       if (sample.getTime() > rrdDb.getLastUpdateTime()) {
         sample.setValue(0, value);
         sample.update();
-        if (raf != null) {
-          raf.getChannel().force(true);
-        }
+        dirty = true;
       }
     } catch (RrdException e) {
       String msg = "Accessing RRD statistics file '" + rrdPath + "' failed! If the problem persists, delete the file so it will be recreated.";
@@ -86,17 +82,50 @@ public class JRobinImpl extends AbstractRrdImpl {
     }
   }
 
+  @Override
+  public void sync() throws IOException {
+    if (dirty) {
+      dirty = false;
+      JRobinFileBackendFactory.sync(rrdDb.getRrdBackend());
+    }
+  }
+
   @Override
   public byte[] createPng(String label, String unit, Range range, int width, int height) throws IOException {
+    // Create the graph definition:
+    var graphDef = new RrdGraphDef();
+    graphDef.setPoolUsed(true);
+    graphDef.setFilename("-"); // Important for in-memory generation!
+
+    // Set datasources:
+    graphDef.datasource("average", rrdPath, name, FUNCTION_AVG, rrdBackendFactory.getFactoryName());
+    graphDef.datasource("max", rrdPath, name, FUNCTION_MAX, rrdBackendFactory.getFactoryName());
+    return createPng(graphDef, label, unit, range, width, height);
+  }
+
+  /**
+   * Creates a graphics binary of the given in-memory values in PNG format.
+   */
+  static byte[] createPng(TimeSeries series, String label, String unit, Range range, int width, int height) throws IOException {
+    var graphDef = new RrdGraphDef();
+    graphDef.setFilename("-"); // Important for in-memory generation!
+    graphDef.datasource("average", new Plottable() {
+      @Override
+      public double getValue(long timestamp) {
+        return AbstractRrdImpl.getValue(series, timestamp, false);
+      }
+    });
+    graphDef.datasource("max", new Plottable() {
+      @Override
+      public double getValue(long timestamp) {
+        return AbstractRrdImpl.getValue(series, timestamp, true);
+      }
+    });
+    return createPng(graphDef, label, unit, range, width, height);
+  }
+
+  private static byte[] createPng(RrdGraphDef graphDef, String label, String unit, Range range, int width, int height) throws IOException {
     try {
-      // Create the graph definition:
-      var graphDef = new RrdGraphDef();
-      graphDef.setPoolUsed(true);
-      graphDef.setFilename("-"); // Important for in-memory generation!
-
-      // Set datasources:
-      graphDef.datasource("average", rrdPath, name, FUNCTION_AVG, rrdBackendFactory.getFactoryName());
-      graphDef.datasource("max", rrdPath, name, FUNCTION_MAX, rrdBackendFactory.getFactoryName());
       graphDef.setMinValue(0);
 
       // Set graphics stuff:
@@ -117,6 +146,20 @@ public class JRobinImpl extends AbstractRrdImpl {
     }
   }
 
+  @Override
+  public TimeSeries fetch(Range range) throws IOException {
+    try {
+      var endTime = getEndTime(range);
+      var startTime = getStartTime(range, endTime);
+      var avg = rrdDb.createFetchRequest(FUNCTION_AVG, startTime, endTime).fetchData();
+      // Fetch max values with the same resolution as the average ones:
+      var max = rrdDb.createFetchRequest(FUNCTION_MAX, startTime, endTime, avg.getStep()).fetchData();
+      return createTimeSeries(avg.getStep(), avg.getTimestamps(), avg.getValues(name), max.getTimestamps(), max.getValues(name));
+    } catch (final RrdException e) {
+      throw new IOException(e);
+    }
+  }
+
   private RrdDef createRrdDef() throws RrdException {
     RrdDef rrdDef = new RrdDef(rrdPath, resolutionSeconds);
     rrdDef.setStartTime(Util.getTime() - resolutionSeconds); // Matches more or less as collect is called right after init
@@ -141,7 +184,6 @@ public class JRobinImpl extends AbstractRrdImpl {
 
   private void initRrdDb(boolean overwrite) throws IOException {
     try {
-      raf = null; // Reset underlying file...
       var def = createRrdDef();
       if (rrdBackendFactory instanceof RrdMemoryBackendFactory) {
         rrdDb = new RrdDb(def, rrdBackendFactory);
@@ -162,18 +204,6 @@ public class JRobinImpl extends AbstractRrdImpl {
             rrdDb = new RrdDb(def, rrdBackendFactory);
           }
         }
-
-        // Try get the underlying RandomAccessFile:
-        var backend = rrdDb.getRrdBackend();
-        if (backend.getClass() == RrdFileBackend.class) { // No instanceof check as of subclasses to be ignored...
-          try {
-            Field f = RrdFileBackend.class.getDeclaredField("file");
-            f.setAccessible(true);
-            raf = (RandomAccessFile) f.get(backend);
-          } catch (Exception e) {
-            LOG.warn("Cannot get underlying RandomAccessFile of RrdBackend, no explicit file sync/flush will be performed!");
-          }
-        }
       }
     } catch (RrdException e) {
       throw new IOException(e);
@@ -181,17 +211,8 @@ public class JRobinImpl extends AbstractRrdImpl {
   }
 
   private static void setGraphStartEndTime(RrdGraphDef graphDef, Range range) {
-    long endTime; // Current timestamp or custom end-date
-    long startTime; // Depending on the range and end-date
-    if (range.getPeriod().equals(Period.CUSTOM)) {
-      // Custom period:
-      endTime = Math.min(range.getEndDate().getTime() / 1000, Util.getTime());
-      startTime = range.getStartDate().getTime() / 1000;
-    } else {
-      endTime = Util.getTime();
-      startTime = endTime - range.getPeriod().getDurationSeconds();
-    }
-    graphDef.setStartTime(startTime);
+    var endTime = getEndTime(range); // Current timestamp or custom end-date
+    graphDef.setStartTime(getStartTime(range, endTime));
     graphDef.setEndTime(endTime);
     graphDef.setFirstDayOfWeek(Calendar.getInstance().getFirstDayOfWeek());
   }
@@ -2,6 +2,7 @@ package com.purej.vminspect.data.statistics.rrd;
 
 import java.io.IOException;
 import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.TimeSeries;
 
 /**
  * Defines the abstraction for a single round-robin-database. This allows switching
@@ -21,6 +22,12 @@ public interface Rrd {
    */
   void addValue(double value) throws IOException;
 
+  /**
+   * Forces the values added since the last sync to the storage device. Does nothing for in-memory RRDs.
+   * @throws IOException if the sync failed
+   */
+  void sync() throws IOException;
+
   /**
    * Creates a graphics binary of this statistics in PNG format.
    *
@@ -33,4 +40,13 @@ public interface Rrd {
    * @throws IOException if image creation failed
    */
   byte[] createPng(String label, String unit, Range range, int width, int height) throws IOException;
+
+  /**
+   * Fetches the consolidated average and maximum values of the given range from the archives.
+   *
+   * @param range the range to be fetched
+   * @return the fetched values
+   * @throws IOException if reading the archives failed
+   */
+  TimeSeries fetch(Range range) throws IOException;
 }
@@ -0,0 +1,287 @@
+package com.purej.vminspect.data.statistics.rrd;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.rrd4j.core.DsDef;
+import org.rrd4j.core.FetchData;
+import org.rrd4j.core.RrdBackendFactory;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdException;
+import org.rrd4j.core.RrdToolkit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.TimeSeries;
+
+/**
+ * Keeps all statistics as datasources of a single RRD4J file. The values added during a collection tick are
+ * written as one sample with {@link #commit()}, so there is only one update and at most one file sync per tick.
+ * <p/>
+ * Datasources of statistics registered after the file was opened are added to the existing file. The values of
+ * existing per-statistics files (see {@link Rrd4jImpl}) are migrated once when the datasource gets added, the
+ * migrated files are renamed afterwards.
+ *
+ * @author Stefan Mueller
+ */
+final class Rrd4jBatch {
+  private static final Logger LOG = LoggerFactory.getLogger(Rrd4jBatch.class);
+
+  /**
+   * The name of the batched RRD file.
+   */
+  static final String FILE_NAME = "vminspect-statistics.rrd";
+
+  private final String storageDir;
+  private final String rrdPath;
+  private final int resolutionSeconds;
+  private final RrdBackendFactory rrdBackendFactory;
+  private final Set<String> names = new LinkedHashSet<>();
+  private final Map<String, Double> values = new LinkedHashMap<>(); // Values of the current tick
+  private RrdDb rrdDb; // Opened on first use, reopened if datasources are added
+  private boolean dirty; // Samples written since the last sync
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param storageDir where the RRD file should be stored
+   * @param resolutionSeconds the resolution in seconds
+   * @param rrdBackendFactory the file based backend factory to be used
+   * @throws IOException if the storage directory could not be resolved
+   */
+  Rrd4jBatch(String storageDir, int resolutionSeconds, RrdBackendFactory rrdBackendFactory) throws IOException {
+    this.storageDir = storageDir;
+    this.rrdPath = new File(storageDir, FILE_NAME).getCanonicalPath();
+    this.resolutionSeconds = resolutionSeconds;
+    this.rrdBackendFactory = rrdBackendFactory;
+  }
+
+  /**
+   * Creates the RRD of the statistics with the given name backed by a datasource of the batched file.
+   */
+  synchronized Rrd create(String name) throws IOException {
+    if (names.add(name) && rrdDb != null && !rrdDb.containsDs(name)) {
+      close(); // Reopened with the additional datasource on next use
+    }
+    return new BatchedRrd(name);
+  }
+
+  /**
+   * Writes the values added since the last commit as a single sample, unknown values for statistics without value.
+   *
+   * @throws IOException if writing the sample failed
+   */
+  synchronized void commit() throws IOException {
+    if (values.isEmpty()) {
+      return;
+    }
+    try {
+      open();
+      try {
+        doCommit();
+      } catch (FileNotFoundException e) {
+        LOG.warn("RRD file '" + rrdPath + "' does not exist, recreating it...");
+        close();
+        open();
+        doCommit();
+      }
+    } finally {
+      values.clear();
+    }
+  }
+
+  private void doCommit() throws IOException {
+    try {
+      var sample = rrdDb.createSample();
+      if (sample.getTime() > rrdDb.getLastUpdateTime()) {
+        for (var entry : values.entrySet()) {
+          sample.setValue(entry.getKey(), entry.getValue());
+        }
+        sample.update();
+        dirty = true;
+      }
+    } catch (RrdException e) {
+      String msg = "Accessing RRD statistics file '" + rrdPath + "' failed! If the problem persists, delete the file so it will be recreated.";
+      LOG.error(msg, e);
+      throw new IOException(msg, e);
+    }
+  }
+
+  /**
+   * Forces the samples written since the last sync to the storage device.
+   *
+   * @throws IOException if the sync failed
+   */
+  synchronized void sync() throws IOException {
+    if (dirty && rrdDb != null) {
+      dirty = false;
+      Rrd4jFileBackendFactory.sync(rrdDb.getRrdBackend());
+    }
+  }
+
+  private synchronized void addValue(String name, double value) {
+    values.put(name, value);
+  }
+
+  private synchronized TimeSeries fetch(String name, Range range) throws IOException {
+    open();
+    return Rrd4jImpl.fetch(rrdDb, name, range);
+  }
+
+  private void open() throws IOException {
+    if (rrdDb != null) {
+      return;
+    }
+    try {
+      var rrdFile = new File(rrdPath);
+      List<String> added;
+      if (!rrdFile.exists() || rrdFile.length() == 0) {
+        rrdDb = create();
+        added = new ArrayList<>(names);
+      } else {
+        rrdDb = RrdDb.getBuilder().setPath(rrdPath).setBackendFactory(rrdBackendFactory).build();
+        // Sanity check - compare only step (eg. frequency) for now:
+        if (resolutionSeconds != rrdDb.getRrdDef().getStep()) {
+          LOG.warn("Step size changed for {}, creating new one...", rrdPath);
+          rrdDb.close();
+          AbstractRrdImpl.renameRrd(rrdFile);
+          rrdDb = create();
+          added = new ArrayList<>(names);
+        } else {
+          added = new ArrayList<>();
+          for (var name : names) {
+            if (!rrdDb.containsDs(name)) {
+              added.add(name);
+            }
+          }
+          if (!added.isEmpty()) {
+            rrdDb.close();
+            RrdToolkit.addDatasources(rrdPath, createDsDefs(added), false);
+            rrdDb = RrdDb.getBuilder().setPath(rrdPath).setBackendFactory(rrdBackendFactory).build();
+          }
+        }
+      }
+      migrate(added);
+    } catch (RrdException e) {
+      rrdDb = null;
+      throw new IOException(e);
+    }
+  }
+
+  private RrdDb create() throws IOException {
+    var def = Rrd4jImpl.createRrdDef(rrdPath, resolutionSeconds, names);
+    return RrdDb.getBuilder().setRrdDef(def).setBackendFactory(rrdBackendFactory).build();
+  }
+
+  private List<DsDef> createDsDefs(Collection<String> dsNames) {
+    var defs = new ArrayList<DsDef>(dsNames.size());
+    for (var name : dsNames) {
+      defs.add(Rrd4jImpl.createDsDef(name, resolutionSeconds));
+    }
+    return defs;
+  }
+
+  private void close() throws IOException {
+    if (rrdDb != null) {
+      try {
+        sync();
+        rrdDb.close();
+      } finally {
+        rrdDb = null;
+      }
+    }
+  }
+
+  /**
+   * Copies the archived values of existing per-statistics files into the newly added datasources.
+   */
+  private void migrate(Collection<String> dsNames) {
+    for (var name : dsNames) {
+      var file = new File(storageDir, name + ".rrd");
+      if (!file.exists() || file.length() == 0 || file.getName().equals(FILE_NAME)) {
+        continue;
+      }
+      try (var old = RrdDb.getBuilder().setPath(file.getCanonicalPath()).setBackendFactory(rrdBackendFactory).readOnly().build()) {
+        if (old.getRrdDef().getStep() == resolutionSeconds && old.containsDs(name)) {
+          copyArchives(old, name);
+          LOG.info("Migrated statistics file {} into {}", file, rrdPath);
+        }
+      } catch (IOException e) {
+        LOG.warn("Migrating statistics file " + file + " failed, the values are lost!", e);
+      }
+      AbstractRrdImpl.renameRrd(file); // Renamed in any case so the migration happens only once
+    }
+  }
+
+  private void copyArchives(RrdDb old, String name) throws IOException {
+    var srcDsIdx = old.getDsIndex(name);
+    var dstDsIdx = rrdDb.getDsIndex(name);
+    for (var i = 0; i < old.getArcCount(); i++) {
+      var src = old.getArchive(i);
+      var dst = rrdDb.getArchive(src.getConsolFun(), src.getSteps());
+      if (dst == null) {
+        continue;
+      }
+      // Align the rows by time, the last row of each archive is its end time:
+      var srcValues = src.getRobin(srcDsIdx).getValues();
+      var dstRobin = dst.getRobin(dstDsIdx);
+      var rows = dstRobin.getSize();
+      var offset = (dst.getEndTime() - src.getEndTime()) / dst.getArcStep() + srcValues.length - rows;
+      for (var row = 0; row < rows; row++) {
+        var srcRow = row + offset;
+        if (srcRow >= 0 && srcRow < srcValues.length) {
+          dstRobin.setValue(row, srcValues[(int) srcRow]);
+        }
+      }
+    }
+  }
+
+  /**
+   * The RRD of a single statistics, a datasource of the batched file.
+   */
+  private final class BatchedRrd implements Rrd {
+    private final String name;
+
+    BatchedRrd(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void addValue(double value) {
+      Rrd4jBatch.this.addValue(name, value);
+    }
+
+    @Override
+    public void sync() throws IOException {
+      Rrd4jBatch.this.sync();
+    }
+
+    @Override
+    public byte[] createPng(String label, String unit, Range range, int width, int height) throws IOException {
+      // Fetch while holding the lock, datasources might be added and the file rewritten concurrently:
+      FetchData[] data;
+      synchronized (Rrd4jBatch.this) {
+        open();
+        data = Rrd4jImpl.fetchGraphData(rrdDb, range, width);
+      }
+      return Rrd4jImpl.createPng(data, name, label, unit, range, width, height);
+    }
+
+    @Override
+    public TimeSeries fetch(Range range) throws IOException {
+      return Rrd4jBatch.this.fetch(name, range);
+    }
+  }
+}
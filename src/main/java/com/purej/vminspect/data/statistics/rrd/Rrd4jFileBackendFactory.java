@@ -0,0 +1,50 @@
+package com.purej.vminspect.data.statistics.rrd;
+
+import java.io.IOException;
+import org.rrd4j.core.RrdBackend;
+import org.rrd4j.core.RrdBackendAnnotation;
+import org.rrd4j.core.RrdRandomAccessFileBackend;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
+
+/**
+ * RRD4J file backend factory whose backends can be forced to the storage device explicitly.
+ * <p/>
+ * The files are accessed with a RandomAccessFile, see {@link Rrd4jMappedBackendFactory} for memory-mapped files.
+ *
+ * @author Stefan Mueller
+ */
+@RrdBackendAnnotation(name = "VMINSPECT_FILE", shouldValidateHeader = true)
+final class Rrd4jFileBackendFactory extends RrdRandomAccessFileBackendFactory {
+
+  @Override
+  protected RrdBackend open(String path, boolean readOnly) throws IOException {
+    return new SyncableBackend(path, readOnly);
+  }
+
+  /**
+   * Forces the content of the given backend to the storage device if it was opened by this factory or by a
+   * {@link Rrd4jMappedBackendFactory}.
+   *
+   * @throws IOException if the sync failed
+   */
+  static void sync(RrdBackend backend) throws IOException {
+    if (backend instanceof SyncableBackend) {
+      ((SyncableBackend) backend).sync();
+    } else {
+      Rrd4jMappedBackendFactory.sync(backend);
+    }
+  }
+
+  /**
+   * File backend with an explicit sync.
+   */
+  private static final class SyncableBackend extends RrdRandomAccessFileBackend {
+    SyncableBackend(String path, boolean readOnly) throws IOException {
+      super(path, readOnly);
+    }
+
+    void sync() throws IOException {
+      rafile.getChannel().force(true);
+    }
+  }
+}
@@ -5,24 +5,27 @@ import java.awt.GradientPaint;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
+import org.rrd4j.core.DsDef;
+import org.rrd4j.core.FetchData;
 import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
 import org.rrd4j.core.RrdException;
 import org.rrd4j.core.RrdMemoryBackendFactory;
-import org.rrd4j.core.RrdRandomAccessFileBackend;
 import org.rrd4j.core.Sample;
 import org.rrd4j.core.Util;
+import org.rrd4j.data.IPlottable;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphDef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.purej.vminspect.data.statistics.Period;
 import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.TimeSeries;
 import com.purej.vminspect.util.Utils;
 
 /**
@@ -38,7 +41,7 @@ public class Rrd4jImpl extends AbstractRrdImpl {
 
   private final RrdBackendFactory rrdBackendFactory;
   private volatile RrdDb rrdDb; // Note: Might be reopend if broken...
-  private volatile RandomAccessFile raf; // Underlying file or null, depending on RrdDb subclass
+  private volatile boolean dirty; // Values added since the last sync
 
   /**
    * Creates a new instance of this class.
@@ -60,7 +63,7 @@ public class Rrd4jImpl extends AbstractRrdImpl {
   }
 
   @Override
-  public void addValue(double value) throws IOException {
+  public synchronized void addValue(double value) throws IOException {
     if (rrdDb == null) {
       initRrdDb(false);
     }
@@ -80,9 +83,7 @@ public class Rrd4jImpl extends AbstractRrdImpl {
       if (sample.getTime() > rrdDb.getLastUpdateTime()) {
         sample.setValue(0, value);
         sample.update();
-        if (raf != null) {
-          raf.getChannel().force(true);
-        }
+        dirty = true;
       }
     } catch (RrdException e) {
       String msg = "Accessing RRD statistics file '" + rrdPath + "' failed! If the problem persists, delete the file so it will be recreated.";
@@ -91,32 +92,75 @@ public class Rrd4jImpl extends AbstractRrdImpl {
     }
   }
 
+  @Override
+  public void sync() throws IOException {
+    var db = rrdDb;
+    if (dirty && db != null) {
+      dirty = false;
+      Rrd4jFileBackendFactory.sync(db.getRrdBackend());
+    }
+  }
+
   @Override
   public byte[] createPng(String label, String unit, Range range, int width, int height) throws IOException {
-    if (rrdDb == null) {
-      initRrdDb(false);
+    // Fetch while holding the lock, values might be added and the RRD recreated concurrently:
+    FetchData[] data;
+    synchronized (this) {
+      if (rrdDb == null) {
+        initRrdDb(false);
+      }
+      data = fetchGraphData(rrdDb, range, width);
     }
+    return createPng(data, name, label, unit, range, width, height);
+  }
+
+  /**
+   * Fetches a snapshot of the average and maximum values of the given datasource with the resolution of a graph of the
+   * given width. The caller guards the RRD against concurrent changes while fetching, the snapshot is rendered afterwards
+   * without accessing the RRD, see {@link #createPng(FetchData[], String, String, String, Range, int, int)}.
+   *
+   * @return the average and the maximum values
+   */
+  static FetchData[] fetchGraphData(RrdDb rrdDb, Range range, int width) throws IOException {
     try {
-      // Calc start/end time:
-      long endTime; // Current timestamp or custom end-date
-      long startTime; // Depending on the range and end-date
-      if (range.getPeriod().equals(Period.CUSTOM)) {
-        // Custom period:
-        endTime = Math.min(range.getEndDate().getTime() / 1000, Util.getTime());
-        startTime = range.getStartDate().getTime() / 1000;
-      } else {
-        endTime = Util.getTime();
-        startTime = endTime - range.getPeriod().getDurationSeconds();
-      }
+      var endTime = getEndTime(range);
+      var startTime = getStartTime(range, endTime);
+      var resolution = Math.max((endTime - startTime) / width, 1);
+      var average = rrdDb.createFetchRequest(FUNCTION_AVG, startTime, endTime, resolution).fetchData();
+      var max = rrdDb.createFetchRequest(FUNCTION_MAX, startTime, endTime, resolution).fetchData();
+      return new FetchData[] {average, max};
+    } catch (RrdException e) {
+      throw new IOException(e);
+    }
+  }
 
-      // Create the graph definition:
-      var graphDef = new RrdGraphDef(startTime, endTime);
-      graphDef.setPoolUsed(true);
-      graphDef.setFilename("-"); // Important for in-memory generation!
+  /**
+   * Creates a graphics binary of the given datasource in PNG format from a snapshot of its values, see
+   * {@link #fetchGraphData(RrdDb, Range, int)}.
+   */
+  static byte[] createPng(FetchData[] data, String dsName, String label, String unit, Range range, int width, int height) throws IOException {
+    var request = data[0].getRequest();
+    var graphDef = new RrdGraphDef(request.getFetchStart(), request.getFetchEnd());
+    graphDef.setFilename("-"); // Important for in-memory generation!
+    graphDef.datasource("average", dsName, data[0]);
+    graphDef.datasource("max", dsName, data[1]);
+    return createPng(graphDef, label, unit, range, width, height);
+  }
+
+  /**
+   * Creates a graphics binary of the given in-memory values in PNG format.
+   */
+  static byte[] createPng(TimeSeries series, String label, String unit, Range range, int width, int height) throws IOException {
+    var endTime = getEndTime(range);
+    var graphDef = new RrdGraphDef(getStartTime(range, endTime), endTime);
+    graphDef.setFilename("-"); // Important for in-memory generation!
+    graphDef.datasource("average", (IPlottable) timestamp -> getValue(series, timestamp, false));
+    graphDef.datasource("max", (IPlottable) timestamp -> getValue(series, timestamp, true));
+    return createPng(graphDef, label, unit, range, width, height);
+  }
 
-      // Set datasources:
-      graphDef.datasource("average", rrdPath, name, FUNCTION_AVG, rrdBackendFactory);
-      graphDef.datasource("max", rrdPath, name, FUNCTION_MAX, rrdBackendFactory);
+  private static byte[] createPng(RrdGraphDef graphDef, String label, String unit, Range range, int width, int height) throws IOException {
+    try {
       graphDef.setMinValue(0);
 
       // Set graphics stuff:
@@ -132,7 +176,6 @@ public class Rrd4jImpl extends AbstractRrdImpl {
       graphDef.gprint("vavg", "Avg: %9.0f " + unit + "\\r");
       graphDef.gprint("vmax", "Max: %9.0f " + unit + "\\r");
 
-      setGraphStartEndTime(graphDef, range);
       graphDef.setFirstDayOfWeek(Calendar.getInstance().getFirstDayOfWeek());
       graphDef.setTitle(getGraphTitle(label, range, width));
 
@@ -142,10 +185,39 @@ public class Rrd4jImpl extends AbstractRrdImpl {
     }
   }
 
-  private RrdDef createRrdDef() throws RrdException {
+  @Override
+  public synchronized TimeSeries fetch(Range range) throws IOException {
+    if (rrdDb == null) {
+      initRrdDb(false);
+    }
+    return fetch(rrdDb, name, range);
+  }
+
+  /**
+   * Fetches the consolidated average and maximum values of the given datasource.
+   */
+  static TimeSeries fetch(RrdDb rrdDb, String dsName, Range range) throws IOException {
+    try {
+      var endTime = getEndTime(range);
+      var startTime = getStartTime(range, endTime);
+      var avg = rrdDb.createFetchRequest(FUNCTION_AVG, startTime, endTime).fetchData();
+      // Fetch max values with the same resolution as the average ones:
+      var max = rrdDb.createFetchRequest(FUNCTION_MAX, startTime, endTime, avg.getStep()).fetchData();
+      return createTimeSeries(avg.getStep(), avg.getTimestamps(), avg.getValues(dsName), max.getTimestamps(), max.getValues(dsName));
+    } catch (final RrdException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Creates the definition of a RRD with a gauge datasource for each of the given names.
+   */
+  static RrdDef createRrdDef(String rrdPath, int resolutionSeconds, Collection<String> dsNames) throws RrdException {
     RrdDef rrdDef = new RrdDef(rrdPath, resolutionSeconds);
     rrdDef.setStartTime(Util.getTime() - resolutionSeconds); // Matches more or less as collect is called right after init
-    rrdDef.addDatasource(name, DsType.GAUGE, resolutionSeconds * 2, 0, Double.NaN); // Single gauge
+    for (var dsName : dsNames) {
+      rrdDef.addDatasource(createDsDef(dsName, resolutionSeconds));
+    }
 
     // Archives for average/max for each supported period:
     // 1 second for 1 hour periods:
@@ -164,10 +236,16 @@ public class Rrd4jImpl extends AbstractRrdImpl {
     return rrdDef;
   }
 
+  /**
+   * Creates the definition of a single gauge datasource.
+   */
+  static DsDef createDsDef(String dsName, int resolutionSeconds) {
+    return new DsDef(dsName, DsType.GAUGE, resolutionSeconds * 2, 0, Double.NaN);
+  }
+
   private synchronized void initRrdDb(boolean overwrite) throws IOException {
     try {
-      raf = null; // Reset underlying file
-      var def = createRrdDef();
+      var def = createRrdDef(rrdPath, resolutionSeconds, List.of(name));
       if (rrdBackendFactory instanceof RrdMemoryBackendFactory) {
         rrdDb = RrdDb.getBuilder().setRrdDef(def).setBackendFactory(rrdBackendFactory).build();
       } else {
@@ -187,37 +265,9 @@ public class Rrd4jImpl extends AbstractRrdImpl {
             rrdDb = RrdDb.getBuilder().setRrdDef(def).setBackendFactory(rrdBackendFactory).build();
           }
         }
-
-        // Try get the underlying RandomAccessFile:
-        var backend = rrdDb.getRrdBackend();
-        if (backend instanceof RrdRandomAccessFileBackend) {
-          try {
-            var f = RrdRandomAccessFileBackend.class.getDeclaredField("rafile");
-            f.setAccessible(true);
-            raf = (RandomAccessFile) f.get(backend);
-          } catch (Exception e) {
-            LOG.warn("Cannot get underlying RandomAccessFile of RrdBackend, no explicit file sync/flush will be performed!");
-          }
-        }
       }
     } catch (RrdException e) {
       throw new IOException(e);
     }
   }
-
-  private static void setGraphStartEndTime(RrdGraphDef graphDef, Range range) {
-    long endTime; // Current timestamp or custom end-date
-    long startTime; // Depending on the range and end-date
-    if (range.getPeriod().equals(Period.CUSTOM)) {
-      // Custom period:
-      endTime = Math.min(range.getEndDate().getTime() / 1000, Util.getTime());
-      startTime = range.getStartDate().getTime() / 1000;
-    } else {
-      endTime = Util.getTime();
-      startTime = endTime - range.getPeriod().getDurationSeconds();
-    }
-    graphDef.setStartTime(startTime);
-    graphDef.setEndTime(endTime);
-    graphDef.setFirstDayOfWeek(Calendar.getInstance().getFirstDayOfWeek());
-  }
 }
@@ -0,0 +1,54 @@
+package com.purej.vminspect.data.statistics.rrd;
+
+import java.io.IOException;
+import org.rrd4j.core.RrdBackend;
+import org.rrd4j.core.RrdBackendAnnotation;
+import org.rrd4j.core.RrdNioBackend;
+import org.rrd4j.core.RrdNioBackendFactory;
+
+/**
+ * RRD4J backend factory for memory-mapped files that are forced to the storage device explicitly.
+ * <p/>
+ * Memory-mapped files are read and written without system calls. Other than with the {@link RrdNioBackendFactory}
+ * they are never synced in the background, only with an explicit {@link #sync(RrdBackend)}.
+ *
+ * @author Stefan Mueller
+ */
+@RrdBackendAnnotation(name = "VMINSPECT_MAPPED", shouldValidateHeader = true)
+final class Rrd4jMappedBackendFactory extends RrdNioBackendFactory {
+
+  /**
+   * Creates a new instance of this class.
+   */
+  Rrd4jMappedBackendFactory() {
+    super(0); // No sync thread pool
+  }
+
+  @Override
+  protected RrdBackend open(String path, boolean readOnly) throws IOException {
+    return new MappedBackend(path, readOnly);
+  }
+
+  /**
+   * Forces the content of the given backend to the storage device if it was opened by this factory.
+   */
+  static void sync(RrdBackend backend) {
+    if (backend instanceof MappedBackend) {
+      ((MappedBackend) backend).sync();
+    }
+  }
+
+  /**
+   * Memory-mapped file backend without background sync thread.
+   */
+  private static final class MappedBackend extends RrdNioBackend {
+    MappedBackend(String path, boolean readOnly) throws IOException {
+      super(path, readOnly, null, 0);
+    }
+
+    @Override
+    protected synchronized void sync() {
+      super.sync();
+    }
+  }
+}
@@ -2,10 +2,17 @@ package com.purej.vminspect.data.statistics.rrd;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.jrobin.core.RrdBackendFactory;
-import org.jrobin.core.RrdFileBackendFactory;
+import org.jrobin.core.RrdException;
 import org.rrd4j.core.RrdMemoryBackendFactory;
-import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.StatisticsConfig;
+import com.purej.vminspect.data.statistics.SyncPolicy;
+import com.purej.vminspect.data.statistics.TimeSeries;
 
 /**
  * Abstracts the RRD implementation provider like RRD4J, JRobin, etc.
@@ -18,10 +25,19 @@ import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
  * @author Stefan Mueller
  */
 public class RrdProvider {
+  private static final Logger LOG = LoggerFactory.getLogger(RrdProvider.class);
+  // Currently only 2 providers (rrd4j, jrobin):
+  private static final boolean RRD4J_AVAILABLE = isAvailable("org.rrd4j.core.RrdBackendFactory");
   private final String storageDir;
   private final int collectionFrequencySecs;
   private final boolean isRrd4j;
   private final Object backendFactory;
+  private final Rrd4jBatch batch; // Single file for all statistics or null
+  private final List<Rrd> rrds = new CopyOnWriteArrayList<>(); // All created RRDs, synced together
+  private final SyncPolicy syncPolicy;
+  private final int syncInterval;
+  private int ticksSinceSync;
+  private long lastSyncMillis = System.currentTimeMillis();
 
   /**
    * Creates a new instance.
@@ -30,7 +46,23 @@ public class RrdProvider {
    * @param collectionFrequencyMillis the collection frequency in milliseconds
    */
   public RrdProvider(String storageDir, int collectionFrequencyMillis) {
+    this(storageDir, collectionFrequencyMillis, new StatisticsConfig());
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param storageDir where to store the statistics files
+   * @param collectionFrequencyMillis the collection frequency in milliseconds, at least one second
+   * @param config the storage configuration
+   */
+  public RrdProvider(String storageDir, int collectionFrequencyMillis, StatisticsConfig config) {
+    if (collectionFrequencyMillis < 1000) {
+      throw new IllegalArgumentException("Value of 'collectionFrequencyMillis' must be at least 1000, sub-second values are only kept in-memory!");
+    }
     this.collectionFrequencySecs = collectionFrequencyMillis / 1000;
+    this.syncPolicy = config.getSyncPolicy();
+    this.syncInterval = config.getSyncInterval();
 
     // Ensure storage-dir:
     if (storageDir == null || storageDir.isEmpty()) {
@@ -44,13 +76,31 @@ public class RrdProvider {
       this.storageDir = rrdFilesDir.getAbsolutePath();
     }
 
-    // Currently only 2 providers (rrd4j, jrobin):
-    this.isRrd4j = isAvailable("org.rrd4j.core.RrdBackendFactory");
+    this.isRrd4j = RRD4J_AVAILABLE;
     if (this.isRrd4j) {
-      this.backendFactory = createRrd4JBackendFactory(this.storageDir);
+      this.backendFactory = createRrd4JBackendFactory(this.storageDir, config.isMappedStorage());
     } else {
+      if (config.isMappedStorage()) {
+        LOG.warn("Memory-mapped statistics storage is only supported with RRD4J, using regular file access!");
+      }
       this.backendFactory = createJRobinBackendFactory(this.storageDir);
     }
+
+    // Batched storage only makes sense for persistent storage:
+    if (config.isBatchedStorage() && this.storageDir != null) {
+      if (this.isRrd4j) {
+        try {
+          this.batch = new Rrd4jBatch(this.storageDir, collectionFrequencySecs, (org.rrd4j.core.RrdBackendFactory) backendFactory);
+        } catch (IOException e) {
+          throw new RuntimeException("Could not create batched statistics storage!", e);
+        }
+      } else {
+        LOG.warn("Batched statistics storage is only supported with RRD4J, using one file per statistics!");
+        this.batch = null;
+      }
+    } else {
+      this.batch = null;
+    }
   }
 
   private static boolean isAvailable(String clz) {
@@ -62,26 +112,52 @@ public class RrdProvider {
     }
   }
 
-  private static Object createRrd4JBackendFactory(String storageDir) {
+  private static Object createRrd4JBackendFactory(String storageDir, boolean mapped) {
     if (storageDir == null) {
       return new RrdMemoryBackendFactory();
     } else {
-      return new RrdRandomAccessFileBackendFactory();
+      return mapped ? new Rrd4jMappedBackendFactory() : new Rrd4jFileBackendFactory();
     }
   }
 
-  private static Object createJRobinBackendFactory(String storageDir) {
+  private static synchronized Object createJRobinBackendFactory(String storageDir) {
     try {
       if (storageDir == null) {
         return RrdBackendFactory.getFactory(org.jrobin.core.RrdMemoryBackendFactory.NAME);
       } else {
-        return RrdBackendFactory.getFactory(RrdFileBackendFactory.NAME);
+        // JRobin factories are global and get referenced by name:
+        try {
+          return RrdBackendFactory.getFactory(JRobinFileBackendFactory.NAME);
+        } catch (RrdException e) {
+          RrdBackendFactory.registerFactory(new JRobinFileBackendFactory());
+          return RrdBackendFactory.getFactory(JRobinFileBackendFactory.NAME);
+        }
       }
     } catch (Exception e) {
       throw new RuntimeException("Could not create JRobin backend factory!", e);
     }
   }
 
+  /**
+   * Creates a graphics binary of the given in-memory values in PNG format, with the same layout as the graphs of the RRDs.
+   *
+   * @param series the values to be shown
+   * @param label the label to be shown on the graph
+   * @param unit the unit to be shown on the graph
+   * @param range the range to be shown
+   * @param width the width of the created PNG
+   * @param height the height of the created PNG
+   * @return the created binary image data
+   * @throws IOException if image creation failed
+   */
+  public static byte[] createPng(TimeSeries series, String label, String unit, Range range, int width, int height) throws IOException {
+    if (RRD4J_AVAILABLE) {
+      return Rrd4jImpl.createPng(series, label, unit, range, width, height);
+    } else {
+      return JRobinImpl.createPng(series, label, unit, range, width, height);
+    }
+  }
+
   /**
    * Returns the configured, optional storage directory.
    *
@@ -98,10 +174,71 @@ public class RrdProvider {
    * @throws IOException if an I/O error occurred
    */
   public Rrd create(String name) throws IOException {
-    if (isRrd4j) {
-      return new Rrd4jImpl(name, storageDir, collectionFrequencySecs, backendFactory);
+    Rrd rrd;
+    if (batch != null) {
+      rrd = batch.create(name);
+    } else if (isRrd4j) {
+      rrd = new Rrd4jImpl(name, storageDir, collectionFrequencySecs, backendFactory);
     } else {
-      return new JRobinImpl(name, storageDir, collectionFrequencySecs, backendFactory);
+      rrd = new JRobinImpl(name, storageDir, collectionFrequencySecs, backendFactory);
+    }
+    rrds.add(rrd);
+    return rrd;
+  }
+
+  /**
+   * Completes a collection tick, must be called after the values of all statistics were added. With batched storage,
+   * the values of all statistics get written as a single sample, otherwise the values are already written.
+   * Afterwards, all files are synced together if due according to the configured {@link SyncPolicy}.
+   *
+   * @throws IOException if writing or syncing the values failed
+   */
+  public synchronized void commit() throws IOException {
+    if (batch != null) {
+      batch.commit();
+    }
+    ticksSinceSync++;
+    if (isSyncDue()) {
+      sync();
+    }
+  }
+
+  private boolean isSyncDue() {
+    switch (syncPolicy) {
+    case ALWAYS:
+      return true;
+    case TICKS:
+      return ticksSinceSync >= syncInterval;
+    case SECONDS:
+      return System.currentTimeMillis() - lastSyncMillis >= syncInterval * 1000L;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Forces the values written since the last sync of all RRDs to the storage device, independent of the {@link SyncPolicy}.
+   * Should be called on shutdown.
+   *
+   * @throws IOException if syncing one of the RRDs failed, the other RRDs are synced anyway
+   */
+  public synchronized void sync() throws IOException {
+    ticksSinceSync = 0;
+    lastSyncMillis = System.currentTimeMillis();
+    IOException exception = null;
+    for (var rrd : rrds) {
+      try {
+        rrd.sync();
+      } catch (IOException e) {
+        if (exception == null) {
+          exception = e;
+        } else {
+          exception.addSuppressed(e);
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
     }
   }
 }
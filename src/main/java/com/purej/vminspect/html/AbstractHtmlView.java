@@ -4,6 +4,7 @@ package com.purej.vminspect.html;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import com.purej.vminspect.http.ResponseWriter;
 import com.purej.vminspect.util.Utils;
 
 /**
@@ -123,9 +124,9 @@ public abstract class AbstractHtmlView {
     }
   }
 
-  private final StringBuilder output;
+  private final ResponseWriter output;
 
-  protected AbstractHtmlView(StringBuilder output) {
+  protected AbstractHtmlView(ResponseWriter output) {
     this.output = output;
   }
 
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 import javax.management.ObjectName;
 import com.purej.vminspect.data.MBeanUtils;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Abstract class for the MBeans views.
@@ -16,7 +17,7 @@ abstract class AbstractMBeansView extends AbstractHtmlView {
   /**
    * Creates a new instance of this view.
    */
-  public AbstractMBeansView(StringBuilder output) {
+  public AbstractMBeansView(ResponseWriter output) {
     super(output);
   }
 
@@ -66,6 +67,12 @@ abstract class AbstractMBeansView extends AbstractHtmlView {
     }
   }
 
+  protected void writePendingValue(int serverIdx, String objectName, String attributeName) {
+    // Not read yet, loaded by the browser:
+    var params = mBeanParams("mbSrvIdx=" + serverIdx, "mbName=" + urlEncode(objectName), "mbAtrRead=" + urlEncode(attributeName));
+    write("<span class='pending-value' data-value='?").write(params).write("'>Loading...</span>");
+  }
+
   protected static String mBeanParams(String... additionalParams) {
     var builder = new StringBuilder();
     builder.append("page").append("=mbeans");
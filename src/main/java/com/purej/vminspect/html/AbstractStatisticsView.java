@@ -3,6 +3,7 @@ package com.purej.vminspect.html;
 
 import com.purej.vminspect.data.statistics.Period;
 import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Abstract class for statistics views.
@@ -15,7 +16,7 @@ abstract class AbstractStatisticsView extends AbstractHtmlView {
   /**
    * Creates a new instance of this view.
    */
-  public AbstractStatisticsView(StringBuilder output, Range range) {
+  public AbstractStatisticsView(ResponseWriter output, Range range) {
     super(output);
     this.range = range;
   }
@@ -24,6 +25,10 @@ abstract class AbstractStatisticsView extends AbstractHtmlView {
     return addRangeParams(params("statsGraph=" + graphName, "statsWidth=" + width, "statsHeight=" + height), range);
   }
 
+  protected String statisticsSpriteParams(long spriteId, int width, int height) {
+    return addRangeParams(params("statsSprite=overview", "statsSpriteId=" + spriteId, "statsWidth=" + width, "statsHeight=" + height), range);
+  }
+
   protected static String statisticsPageParams(String... additionalParams) {
     var builder = new StringBuilder();
     builder.append("page=statistics");
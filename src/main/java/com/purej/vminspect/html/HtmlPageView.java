@@ -2,6 +2,7 @@
 package com.purej.vminspect.html;
 
 import java.util.Date;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Html page that renders a common header and footer and a custom part in between.
@@ -16,7 +17,7 @@ public class HtmlPageView extends AbstractHtmlView {
   /**
    * Creates a new instance of this view.
    */
-  public HtmlPageView(StringBuilder output, String reloadParameters, long startTimestamp, AbstractHtmlView bodyView) {
+  public HtmlPageView(ResponseWriter output, String reloadParameters, long startTimestamp, AbstractHtmlView bodyView) {
     super(output);
     this.reloadParameters = reloadParameters;
     this.startTimestamp = startTimestamp;
@@ -0,0 +1,39 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.html;
+
+import com.purej.vminspect.data.MBeanUtils;
+import com.purej.vminspect.http.ResponseWriter;
+
+/**
+ * Displays a single MBean attribute value as HTML fragment, loaded asynchronously by the MBean page for values that were not
+ * read within the timeout. A value still not read is displayed as placeholder again, polled by the browser.
+ *
+ * @author Stefan Mueller
+ */
+public class MBeansAttributeValueView extends AbstractMBeansView {
+  private final int serverIdx;
+  private final String objectName;
+  private final String attributeName;
+  private final Object value;
+
+  /**
+   * Creates a new instance of this view.
+   */
+  public MBeansAttributeValueView(ResponseWriter output, int serverIdx, String objectName, String attributeName, Object value) {
+    super(output);
+    this.serverIdx = serverIdx;
+    this.objectName = objectName;
+    this.attributeName = attributeName;
+    this.value = value;
+  }
+
+  @Override
+  public void render() {
+    if (MBeanUtils.isPending(value)) {
+      writePendingValue(serverIdx, objectName, attributeName);
+    }
+    else {
+      writeMBeanValue(value, true);
+    }
+  }
+}
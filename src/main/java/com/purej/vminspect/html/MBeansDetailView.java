@@ -4,6 +4,7 @@ package com.purej.vminspect.html;
 import com.purej.vminspect.data.MBeanData;
 import com.purej.vminspect.data.MBeanUtils;
 import com.purej.vminspect.http.MBeanAccessControl;
+import com.purej.vminspect.http.ResponseWriter;
 import com.purej.vminspect.util.Message;
 
 /**
@@ -19,7 +20,7 @@ public class MBeansDetailView extends AbstractMBeansView {
   /**
    * Creates a new instance of this view.
    */
-  public MBeansDetailView(StringBuilder output, MBeanData mbean, Message message, MBeanAccessControl mbeanAccessControl) {
+  public MBeansDetailView(ResponseWriter output, MBeanData mbean, Message message, MBeanAccessControl mbeanAccessControl) {
     super(output);
     this.mbean = mbean;
     this.message = message;
@@ -43,7 +44,12 @@ public class MBeansDetailView extends AbstractMBeansView {
       table.nextRow();
       table.addValue(htmlEncode(attribute.getName()));
       write("<td>");
-      writeMBeanValue(attribute.getValue(), true);
+      if (attribute.isPending()) {
+        writePendingValue(mbean.getName().getServerIdx(), mbean.getName().getObjectNameString(), attribute.getName());
+      }
+      else {
+        writeMBeanValue(attribute.getValue(), true);
+      }
       write("</td>");
       table.addValue(htmlEncode(MBeanUtils.toDisplayType(attribute.getType())));
       table.addValue(htmlEncode(attribute.getDescription()));
@@ -5,6 +5,7 @@ import com.purej.vminspect.data.MBeanAttribute;
 import com.purej.vminspect.data.MBeanData;
 import com.purej.vminspect.data.MBeanUtils;
 import com.purej.vminspect.http.RequestParams;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays the view to edit an attribute of an MBean.
@@ -20,7 +21,7 @@ public class MBeansInvokeAttributeView extends AbstractMBeansView {
   /**
    * Creates a new instance of this view.
    */
-  public MBeansInvokeAttributeView(StringBuilder output, MBeanData mbean, MBeanAttribute attribute, ConfirmState confirmState, String newValue) {
+  public MBeansInvokeAttributeView(ResponseWriter output, MBeanData mbean, MBeanAttribute attribute, ConfirmState confirmState, String newValue) {
     super(output);
     this.mbean = mbean;
     this.attribute = attribute;
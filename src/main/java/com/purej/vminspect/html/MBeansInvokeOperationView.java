@@ -4,6 +4,7 @@ package com.purej.vminspect.html;
 import com.purej.vminspect.data.MBeanData;
 import com.purej.vminspect.data.MBeanOperation;
 import com.purej.vminspect.data.MBeanUtils;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays the view to invoke an operation of an MBean.
@@ -20,7 +21,7 @@ public class MBeansInvokeOperationView extends AbstractMBeansView {
   /**
    * Creates a new instance of this view.
    */
-  public MBeansInvokeOperationView(StringBuilder output, MBeanData mbean, int mbOpIdx, MBeanOperation operation, ConfirmState confirmState,
+  public MBeansInvokeOperationView(ResponseWriter output, MBeanData mbean, int mbOpIdx, MBeanOperation operation, ConfirmState confirmState,
       String[] parameters) {
     super(output);
     this.mbean = mbean;
@@ -1,28 +1,44 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.html;
 
+import java.util.ArrayList;
 import java.util.List;
 import com.purej.vminspect.data.MBeanName;
-import com.purej.vminspect.util.Utils;
+import com.purej.vminspect.http.ResponseWriter;
+import com.purej.vminspect.util.WildCardMatcher;
 
 /**
- * Displays the MBeans main view.
+ * Displays the MBeans main view. Only a single page of the MBeans that match the filters is rendered, links allow to navigate
+ * to the other pages.
  *
  * @author Stefan Mueller
  */
 public class MBeansMainView extends AbstractMBeansView {
+  private static final int[] PAGE_SIZES = {100, 500, 1000, 5000, 10000};
+
   private final String domainFilter;
   private final String typeFilter;
   private final List<MBeanName> mbeans;
+  private final int offset;
+  private final int pageSize;
 
   /**
    * Creates a new instance of this view.
+   *
+   * @param output the output to write to
+   * @param domainFilter the domain wildcard filter, might be null
+   * @param typeFilter the type wildcard filter, might be null
+   * @param mbeans the sorted MBeans
+   * @param offset the index of the first matching MBean to be shown
+   * @param pageSize the number of matching MBeans to be shown
    */
-  public MBeansMainView(StringBuilder output, String domainFilter, String typeFilter, List<MBeanName> mbeans) {
+  public MBeansMainView(ResponseWriter output, String domainFilter, String typeFilter, List<MBeanName> mbeans, int offset, int pageSize) {
     super(output);
     this.domainFilter = domainFilter != null ? domainFilter : "";
     this.typeFilter = typeFilter != null ? typeFilter : "";
     this.mbeans = mbeans;
+    this.offset = Math.max(offset, 0);
+    this.pageSize = Math.max(pageSize, 1);
   }
 
   @Override
@@ -35,30 +51,77 @@ public class MBeansMainView extends AbstractMBeansView {
     write("<input type='text' size='30' name='mbDomainFilter' value='").write(htmlEncode(domainFilter)).write("'/>");
     writeln("&nbsp;&nbsp;<b>Type Filter</b>&nbsp;&nbsp;");
     write("<input type='text' size='30' name='mbTypeFilter' value='").write(htmlEncode(typeFilter)).write("'/>");
+    writeln("&nbsp;&nbsp;<b>Page Size</b>&nbsp;&nbsp;");
+    writePageSizeSelect();
     writeln("&nbsp;&nbsp;(Use wild cards = *)&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;");
     writeln("<input type='submit' value='Ok'/><br/><br/>");
     writeln("<input type='hidden' name='page' value='mbeans'/>");
     writeln("</form><br/>");
 
-    // Write the table:
-    var table = new CandyHtmlTable("MBeans", "Domain", "Type", "Properties");
-    int matched = 0;
+    // Filter all, but write the table for the current page only:
+    var domainMatcher = WildCardMatcher.compile(domainFilter);
+    var typeMatcher = WildCardMatcher.compile(typeFilter);
+    var matched = new ArrayList<MBeanName>();
     for (var mbean : mbeans) {
-      if (Utils.wildCardMatch(mbean.getDomain(), domainFilter) && Utils.wildCardMatch(mbean.getType(), typeFilter)) {
-        matched++;
-        // Note: We want to full row to be clickable, not so easy with HTML without javascript!
-        var mbSrvIdx = "mbSrvIdx=" + mbean.getServerIdx();
-        var mbName = "mbName=" + urlEncode(mbean.getObjectName().toString());
-        var prefix = "<a href='?" + mBeanParams(mbSrvIdx, mbName) + "'>";
-
-        table.nextRowWithClz("clickable-row");
-        table.addValue(prefix + htmlEncode(mbean.getDomain()) + "</a>");
-        table.addValue(prefix + htmlEncode(mbean.getType()) + "</a>");
-        var props = htmlEncode(mbean.getOtherKeyValues()); // Might be empty
-        table.addValue(prefix + (props == null || props.length() == 0 ? "&nbsp;" : props) + "</a>");
+      if (domainMatcher.matches(mbean.getDomain()) && typeMatcher.matches(mbean.getType())) {
+        matched.add(mbean);
       }
     }
+    var from = offset < matched.size() ? offset : Math.max(matched.size() - 1, 0) / pageSize * pageSize;
+    var to = Math.min(from + pageSize, matched.size());
+    var table = new CandyHtmlTable("MBeans", "Domain", "Type", "Properties");
+    for (var mbean : matched.subList(from, to)) {
+      // Note: We want to full row to be clickable, not so easy with HTML without javascript!
+      var mbSrvIdx = "mbSrvIdx=" + mbean.getServerIdx();
+      var mbName = "mbName=" + urlEncode(mbean.getObjectName().toString());
+      var prefix = "<a href='?" + mBeanParams(mbSrvIdx, mbName) + "'>";
+
+      table.nextRowWithClz("clickable-row");
+      table.addValue(prefix + htmlEncode(mbean.getDomain()) + "</a>");
+      table.addValue(prefix + htmlEncode(mbean.getType()) + "</a>");
+      var props = htmlEncode(mbean.getOtherKeyValues()); // Might be empty
+      table.addValue(prefix + (props == null || props.length() == 0 ? "&nbsp;" : props) + "</a>");
+    }
     table.endTable();
-    write("Filter matched ").write(matched).write("/").write(mbeans.size()).writeln(" MBeans<br/>");
+    write("Filter matched ").write(matched.size()).write("/").write(mbeans.size()).write(" MBeans");
+    if (matched.size() > pageSize) {
+      write(", showing ").write(from + 1).write("-").write(to).write("&nbsp;&nbsp;&nbsp;&nbsp;");
+      writePageLnk(from > 0, 0, "First");
+      writePageLnk(from > 0, Math.max(from - pageSize, 0), "Previous");
+      writePageLnk(to < matched.size(), to, "Next");
+      writePageLnk(to < matched.size(), (matched.size() - 1) / pageSize * pageSize, "Last");
+    }
+    writeln("<br/>");
+  }
+
+  private void writePageSizeSelect() {
+    write("<select name='mbPageSize'>");
+    var written = false;
+    for (var size : PAGE_SIZES) {
+      if (!written && pageSize < size) {
+        writePageSizeOption(pageSize); // Set manually with the request parameter
+        written = true;
+      }
+      writePageSizeOption(size);
+      written |= size == pageSize;
+    }
+    if (!written) {
+      writePageSizeOption(pageSize);
+    }
+    writeln("</select>");
+  }
+
+  private void writePageSizeOption(int size) {
+    write("<option value='").write(size).write(size == pageSize ? "' selected='selected'>" : "'>").write(size).write("</option>");
+  }
+
+  private void writePageLnk(boolean enabled, int pageOffset, String label) {
+    if (enabled) {
+      writeLnk(mBeanParams("mbOffset=" + pageOffset), label);
+    }
+    else {
+      write(label);
+    }
+    write("&nbsp;&nbsp;");
   }
 }
@@ -0,0 +1,65 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.html;
+
+import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.data.statistics.Statistics;
+import com.purej.vminspect.data.statistics.TimeSeries;
+import com.purej.vminspect.http.ResponseWriter;
+import com.purej.vminspect.util.Utils;
+
+/**
+ * Exports the average and maximum values of a statistics as JSON or CSV for external tools. The timestamps
+ * are milliseconds since epoch, unknown values are written as null (JSON) or empty (CSV).
+ * <p/>
+ * Note: Not a HTML view, the values are written to the output without any HTML encoding.
+ *
+ * @author Stefan Mueller
+ */
+public final class StatisticsDataView {
+  private final ResponseWriter output;
+  private final Statistics statistics;
+  private final Range range;
+  private final TimeSeries series;
+  private final boolean csv;
+
+  /**
+   * Creates a new instance of this view.
+   */
+  public StatisticsDataView(ResponseWriter output, Statistics statistics, Range range, TimeSeries series, boolean csv) {
+    this.output = output;
+    this.statistics = statistics;
+    this.range = range;
+    this.series = series;
+    this.csv = csv;
+  }
+
+  /**
+   * Writes the values to the output.
+   */
+  public void render() {
+    if (csv) {
+      output.append("timestamp,average,max\n");
+      for (var i = 0; i < series.size(); i++) {
+        output.append(series.getTimestamp(i)).append(',').append(formatValue(series.getAverage(i), "")).append(',');
+        output.append(formatValue(series.getMax(i), "")).append('\n');
+      }
+    }
+    else {
+      output.append("{\"name\":").append(Utils.jsonEncode(statistics.getName()));
+      output.append(",\"label\":").append(Utils.jsonEncode(statistics.getLabel()));
+      output.append(",\"unit\":").append(Utils.jsonEncode(statistics.getUnit().replace("%%", "%")));
+      output.append(",\"range\":").append(Utils.jsonEncode(range.asString()));
+      output.append(",\"stepSeconds\":").append(series.getStepSeconds());
+      output.append(",\"values\":[\n");
+      for (var i = 0; i < series.size(); i++) {
+        output.append(i > 0 ? ",\n[" : "[").append(series.getTimestamp(i)).append(',');
+        output.append(formatValue(series.getAverage(i), "null")).append(',').append(formatValue(series.getMax(i), "null")).append(']');
+      }
+      output.append("\n]}\n");
+    }
+  }
+
+  private static String formatValue(double value, String unknown) {
+    return Double.isNaN(value) || Double.isInfinite(value) ? unknown : Double.toString(value);
+  }
+}
@@ -2,6 +2,7 @@
 package com.purej.vminspect.html;
 
 import com.purej.vminspect.data.statistics.Range;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays the statistics detail page with one statistics.
@@ -12,15 +13,19 @@ public final class StatisticsDetailView extends AbstractStatisticsView {
   private final String statsName;
   private final int statsWidth;
   private final int statsHeight;
+  private final boolean clientChart;
 
   /**
    * Creates a new instance of this view.
+   *
+   * @param clientChart if the graph is drawn in the browser from the exported values instead of a server-side rendered image
    */
-  public StatisticsDetailView(StringBuilder output, Range range, String statsName, int statsWidth, int statsHeight) {
+  public StatisticsDetailView(ResponseWriter output, Range range, String statsName, int statsWidth, int statsHeight, boolean clientChart) {
     super(output, range);
     this.statsName = htmlEncode(statsName); // Important: Sanitize to prevent XSS attacks over manual URL manipulation
     this.statsWidth = statsWidth;
     this.statsHeight = statsHeight;
+    this.clientChart = clientChart;
   }
 
   @Override
@@ -31,13 +36,39 @@ public final class StatisticsDetailView extends AbstractStatisticsView {
     writeln("</div><br/>");
     var params = statisticsGraphParams(statsName, statsWidth, statsHeight);
     writeln("<div align='center'>");
-    writeln("<img class='synthese' id='img' src='?" + params + "' alt='zoom'/><br/><br/>");
+    var pageParams = addRangeParams(statisticsPageParams("statsDetail=" + statsName, "statsWidth=" + statsWidth, "statsHeight=" + statsHeight));
+    if (clientChart) {
+      writeClientChart(params, pageParams);
+    }
+    else {
+      writeImageChart(params, pageParams);
+    }
+    write("<br/><br/>Export values:&nbsp;").writeLnk(addRangeParams(params("statsData=" + statsName)), "JSON").write("&nbsp;|&nbsp;");
+    writeLnk(addRangeParams(params("statsData=" + statsName, "statsFormat=csv")), "CSV").writeln();
+    writeln("</div>");
+  }
+
+  private void writeClientChart(String graphParams, String pageParams) {
+    // The values are loaded once, zooming and panning is done by vminspect.js, the image is the fallback if loading fails:
+    write("<canvas class='synthese' id='statsChart' width='").write(statsWidth).write("' height='").write(statsHeight);
+    write("' data-values='?").write(addRangeParams(params("statsData=" + statsName))).write("' data-fallback='?").write(graphParams);
+    writeln("'></canvas><br/>");
+    writeln("<noscript><img class='synthese' src='?" + graphParams + "' alt='zoom'/><br/></noscript>");
+    writeln("<span class='footer'>Mouse wheel to zoom, drag to pan, double-click to reset</span><br/><br/>");
+    writeln("<button type='button' chartZoom='0.5'>Zoom In</button>");
+    writeln("<button type='button' chartZoom='2'>Zoom Out</button>");
+    writeln("<button type='button' chartZoom='0'>Reset</button><br/><br/>");
+    writeLnk(params(pageParams, "statsChart=image"), "Show server-side image").writeln();
+  }
+
+  private void writeImageChart(String graphParams, String pageParams) {
+    writeln("<img class='synthese' id='img' src='?" + graphParams + "' alt='zoom'/><br/><br/>");
     var paramsOut = addRangeParams(statisticsPageParams("statsDetail=" + statsName, "statsWidth=" + (int) (statsWidth / 1.5d), "statsHeight="
         + (int) (statsHeight / 1.2)));
     var paramsIn = addRangeParams(statisticsPageParams("statsDetail=" + statsName, "statsWidth=" + (int) (statsWidth * 1.5d), "statsHeight="
         + (int) (statsHeight * 1.2)));
     writeImgLnk(paramsOut, "icons/zoom-out-24.png", "Zoom Out", null).writeln();
     writeImgLnk(paramsIn, "icons/zoom-in-24.png", "Zoom In", null).writeln();
-    writeln("</div>");
+    write("<br/><br/>").writeLnk(params(pageParams, "statsChart=client"), "Draw in browser").writeln();
   }
 }
@@ -3,9 +3,11 @@ package com.purej.vminspect.html;
 
 import java.util.Date;
 import java.util.List;
+import com.purej.vminspect.data.statistics.GraphSprite;
 import com.purej.vminspect.data.statistics.Range;
 import com.purej.vminspect.data.statistics.Statistics;
 import com.purej.vminspect.data.statistics.StatisticsCollector;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays the statistics overview page with all statistics available.
@@ -14,13 +16,17 @@ import com.purej.vminspect.data.statistics.StatisticsCollector;
  */
 public final class StatisticsMainView extends AbstractStatisticsView {
   private final StatisticsCollector statistics;
+  private final GraphSprite sprite;
 
   /**
    * Creates a new instance of this view.
+   *
+   * @param sprite the sprite with the graphs of all statistics or null to show separate images
    */
-  public StatisticsMainView(StringBuilder output, StatisticsCollector statistics, Range range) {
+  public StatisticsMainView(ResponseWriter output, StatisticsCollector statistics, Range range, GraphSprite sprite) {
     super(output, range);
     this.statistics = statistics;
+    this.sprite = sprite;
   }
 
   @Override
@@ -28,8 +34,14 @@ public final class StatisticsMainView extends AbstractStatisticsView {
     write("<h3>").writeImg("icons/charts-24.png", "Statistics").write("&nbsp;Statistics Overview</h3>");
     writeln("<div align='center'>");
     writeChoosePeriodLinks(null, -1, -1);
-    writeln("<br/>");
-    writeGraphs(statistics.getStatistics());
+    if (sprite != null) {
+      writeLnk(statisticsPageParams("statsMode=images"), "Show separate images").writeln("<br/><br/>");
+      writeSprite();
+    }
+    else {
+      writeLnk(statisticsPageParams("statsMode=sprite"), "Show as single image").writeln("<br/><br/>");
+      writeGraphs(statistics.getStatistics());
+    }
     writeln("</div>");
     writeDurationAndOverhead();
   }
@@ -48,6 +60,24 @@ public final class StatisticsMainView extends AbstractStatisticsView {
     }
   }
 
+  private void writeSprite() {
+    // One image for all graphs, the links to the details are image-map areas of exactly that image:
+    var statistics = sprite.getStatistics();
+    write("<img class='synthese' src='?").write(statisticsSpriteParams(sprite.getId(), 200, 50));
+    writeln("' alt='Statistics' usemap='#statsSprite'/>");
+    writeln("<map name='statsSprite'>");
+    for (var i = 0; i < statistics.size(); i++) {
+      var stats = statistics.get(i);
+      var x = sprite.getX(i);
+      var y = sprite.getY(i);
+      var statsParams = addRangeParams(statisticsPageParams("statsDetail=" + stats.getName(), "statsWidth=1000", "statsHeight=400"));
+      write("<area shape='rect' coords='").write(x).write(",").write(y).write(",").write(x + sprite.getCellWidth()).write(",");
+      write(y + sprite.getCellHeight()).write("' href='?").write(statsParams).write("' alt='").write(stats.getLabel());
+      write("' title='").write(stats.getDescription()).writeln("'/>");
+    }
+    writeln("</map><br/>");
+  }
+
   private void writeDurationAndOverhead() {
     writeln("<a name='bottom'></a>");
     writeln("<br/><div class='footer'>");
@@ -55,11 +85,29 @@ public final class StatisticsMainView extends AbstractStatisticsView {
     var time = statistics.getLastCollectTimestamp() > 0 ? formatDateTime(new Date(statistics.getLastCollectTimestamp())) : "-";
     write("<br/>Last statistics collection time: ").writeln(time);
     write("<br/>Last statistics collection duration: ").write(formatNumber(statistics.getLastCollectDurationMs())).writeln("ms");
+    write("<br/>Last statistics collection delay: ").write(formatNumber(statistics.getLastCollectDelayMs())).writeln("ms");
+    write("<br/>Late / missed statistics collections: ").write(formatNumber(statistics.getLateCollections())).write(" / ");
+    writeln(formatNumber(statistics.getMissedCollections()));
+    Statistics slowest = null;
+    for (var stats : statistics.getStatistics()) {
+      if (slowest == null || stats.getLastCollectDurationMicros() > slowest.getLastCollectDurationMicros()) {
+        slowest = stats;
+      }
+    }
+    if (slowest != null) {
+      write("<br/>Slowest statistics value: ").write(slowest.getLabel()).write(" (");
+      write(formatDecimal(slowest.getLastCollectDurationMicros() / 1000d)).writeln("ms)");
+    }
     if (statistics.getStatisticsStorageDir() == null) {
       writeln("<br/><b><font color='red'>Note: No statistics directory configured, measuring statistics in-memory without persistence!</font></b>");
     } else {
       write("<br/>Statistics directory: ").writeln(statistics.getStatisticsStorageDir());
-      write("<br/>Statistics disk usage: ").write(formatDecimal(statistics.getDiskUsage() / 1024d / 1024d)).writeln(" Mb");
+      write("<br/>Statistics disk usage: ").write(formatDecimal(statistics.getDiskUsage() / 1024d / 1024d)).write(" Mb");
+      if (statistics.getOldFiles() > 0) {
+        write(" (").write(formatDecimal(statistics.getOldFilesDiskUsage() / 1024d / 1024d)).write(" Mb in ");
+        write(formatNumber(statistics.getOldFiles())).write(" old files)");
+      }
+      writeln();
     }
     writeln("</div>");
   }
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import com.purej.vminspect.data.MemoryData;
 import com.purej.vminspect.data.SystemData;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays a system main page.
@@ -33,7 +34,7 @@ public final class SystemMainView extends AbstractHtmlView {
   /**
    * Creates a new instance of this view.
    */
-  public SystemMainView(StringBuilder output, SystemData sysData) {
+  public SystemMainView(ResponseWriter output, SystemData sysData) {
     super(output);
     this.sysData = sysData;
   }
@@ -4,6 +4,7 @@ package com.purej.vminspect.html;
 import java.util.Date;
 import java.util.List;
 import com.purej.vminspect.data.ThreadData;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays dumps of all threads.
@@ -16,7 +17,7 @@ public final class ThreadsDumpView extends AbstractHtmlView {
   /**
    * Creates a new instance of this view.
    */
-  public ThreadsDumpView(StringBuilder output, List<ThreadData> threads) {
+  public ThreadsDumpView(ResponseWriter output, List<ThreadData> threads) {
     super(output);
     this.threads = threads;
   }
@@ -4,6 +4,7 @@ package com.purej.vminspect.html;
 import java.lang.management.ManagementFactory;
 import java.util.List;
 import com.purej.vminspect.data.ThreadData;
+import com.purej.vminspect.http.ResponseWriter;
 
 /**
  * Displays a list of threads as a HTML table.
@@ -16,7 +17,7 @@ public final class ThreadsMainView extends AbstractHtmlView {
   /**
    * Creates a new instance of this view.
    */
-  public ThreadsMainView(StringBuilder output, List<ThreadData> threads) {
+  public ThreadsMainView(ResponseWriter output, List<ThreadData> threads) {
     super(output);
     this.threads = threads;
   }
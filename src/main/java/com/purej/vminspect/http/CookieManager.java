@@ -15,8 +15,13 @@ public final class CookieManager {
   private static final String PERIOD_COOKIE_NAME = "purej.vminspect.period";
   private static final String DOMAIN_FILTER_COOKIE_NAME = "purej.vminspect.domainFilter";
   private static final String TYPE_FILTER_COOKIE_NAME = "purej.vminspect.typeFilter";
+  private static final String PAGE_SIZE_COOKIE_NAME = "purej.vminspect.pageSize";
+  private static final String STATS_MODE_COOKIE_NAME = "purej.vminspect.statsMode";
+  private static final String STATS_CHART_COOKIE_NAME = "purej.vminspect.statsChart";
 
   private static final Range DEFAULT_RANGE = Range.createPeriodRange(Period.DAY);
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final int MAX_PAGE_SIZE = 10000;
 
   private CookieManager() {
   }
@@ -53,6 +58,36 @@ public final class CookieManager {
     }
   }
 
+  /**
+   * Returns if the statistics overview shows all graphs as single sprite image (mode 'sprite') instead of separate images (mode 'images')
+   * from the request parameters or from the cookie. Stores a cookie if the request parameter is set.
+   */
+  public static boolean isStatsSpriteMode(HttpRequest request, HttpResponse response) {
+    var param = request.getParameter(RequestParams.STATS_MODE);
+    if (param == null) {
+      return "sprite".equals(getCookie(request, STATS_MODE_COOKIE_NAME));
+    }
+    else {
+      response.getCookies().put(STATS_MODE_COOKIE_NAME, param);
+      return "sprite".equals(param);
+    }
+  }
+
+  /**
+   * Returns if the statistics detail page draws the graph in the browser (mode 'client') instead of showing a server-side rendered
+   * image (mode 'image') from the request parameters or from the cookie. Stores a cookie if the request parameter is set.
+   */
+  public static boolean isStatsClientChart(HttpRequest request, HttpResponse response) {
+    var param = request.getParameter(RequestParams.STATS_CHART);
+    if (param == null) {
+      return "client".equals(getCookie(request, STATS_CHART_COOKIE_NAME));
+    }
+    else {
+      response.getCookies().put(STATS_CHART_COOKIE_NAME, param);
+      return "client".equals(param);
+    }
+  }
+
   /**
    * Returns the MBean domain filter from the request parameters or from the cookie. Stores a cookie if the request parameter could be parsed.
    */
@@ -81,6 +116,32 @@ public final class CookieManager {
     }
   }
 
+  /**
+   * Returns the number of MBeans shown per page from the request parameters or from the cookie, between 1 and 10'000. Stores a cookie
+   * if the request parameter could be parsed.
+   */
+  public static int getMBeanPageSize(HttpRequest request, HttpResponse response) {
+    try {
+      var param = request.getParameter(RequestParams.MBEAN_PAGE_SIZE);
+      if (param == null) {
+        var pageSize = getCookie(request, PAGE_SIZE_COOKIE_NAME);
+        return pageSize == null ? DEFAULT_PAGE_SIZE : toPageSize(pageSize);
+      }
+      else {
+        var pageSize = toPageSize(param);
+        response.getCookies().put(PAGE_SIZE_COOKIE_NAME, String.valueOf(pageSize));
+        return pageSize;
+      }
+    }
+    catch (NumberFormatException e) {
+      return DEFAULT_PAGE_SIZE;
+    }
+  }
+
+  private static int toPageSize(String value) {
+    return Math.min(Math.max(Integer.parseInt(value.trim()), 1), MAX_PAGE_SIZE);
+  }
+
   private static String getCookie(HttpRequest request, String cookieName) {
     return request.getCookie(cookieName);
   }
@@ -0,0 +1,99 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiates and applies the gzip content-encoding of responses. Used by the standalone server and the servlet.
+ * <p/>
+ * Small responses are never compressed as the gzip overhead outweighs the savings, neither are images (PNG/GIF)
+ * which are compressed already. Streaming responses are always compressed if accepted, their size is unknown
+ * in advance but they are larger than the threshold anyway (HTML pages, thread dumps).
+ *
+ * @author Stefan Mueller
+ */
+public final class HttpCompression {
+  /**
+   * The minimum number of content bytes for a response to be compressed.
+   */
+  public static final int MIN_SIZE = 1024;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private HttpCompression() {
+  }
+
+  /**
+   * Returns if the given response should be sent gzip compressed to the client of the given request.
+   *
+   * @param request the request with the optional Accept-Encoding header
+   * @param response the response
+   * @param data the content bytes or null for streaming responses
+   */
+  public static boolean isGzip(HttpRequest request, HttpResponse response, byte[] data) {
+    if (!response.isCompressible() || (data != null && data.length < MIN_SIZE)) {
+      return false;
+    }
+    return isGzipAccepted(request.getHeader("Accept-Encoding"));
+  }
+
+  /**
+   * Returns if the given Accept-Encoding header value allows gzip, eg. "gzip, deflate, br" or "*;q=0.5".
+   */
+  static boolean isGzipAccepted(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    var wildcard = false;
+    for (var coding : acceptEncoding.split(",")) {
+      var idx = coding.indexOf(';');
+      var name = (idx == -1 ? coding : coding.substring(0, idx)).trim().toLowerCase();
+      var accepted = idx == -1 || !isZeroQuality(coding.substring(idx + 1));
+      if (name.equals("gzip") || name.equals("x-gzip")) {
+        return accepted;
+      }
+      else if (name.equals("*")) {
+        wildcard = accepted;
+      }
+    }
+    return wildcard;
+  }
+
+  private static boolean isZeroQuality(String params) {
+    // Format is: q=0.5
+    var idx = params.indexOf("q=");
+    if (idx == -1) {
+      return false;
+    }
+    try {
+      return Double.parseDouble(params.substring(idx + 2).trim()) <= 0;
+    }
+    catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the gzip compressed copy of the given bytes.
+   */
+  public static byte[] gzip(byte[] data) throws IOException {
+    var out = new ByteArrayOutputStream(data.length / 4 + 64);
+    try (var gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Writes the content of the given streaming response gzip compressed to the given output-stream.
+   * The output-stream is not closed.
+   */
+  public static void writeGzipContent(HttpResponse response, OutputStream out) throws IOException {
+    var gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+    response.writeContent(gzip);
+    gzip.finish();
+  }
+}
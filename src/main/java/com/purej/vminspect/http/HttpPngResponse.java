@@ -16,7 +16,14 @@ public final class HttpPngResponse extends HttpResponse {
    * Creates a new instance of this class.
    */
   public HttpPngResponse(String name) {
-    super("image/png", 0); // No cache for dynamic picture...
+    this(name, 0); // No cache for dynamic picture...
+  }
+
+  /**
+   * Creates a new instance of this class for a picture that does not change for the given number of seconds.
+   */
+  public HttpPngResponse(String name, int cacheSeconds) {
+    super("image/png", cacheSeconds);
     this.name = name;
   }
 
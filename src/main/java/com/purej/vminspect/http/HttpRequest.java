@@ -18,6 +18,7 @@ public class HttpRequest {
   private final HttpServletRequest request;
   private final Map<String, String> parameters = new HashMap<>();
   private final Map<String, String> cookies = new HashMap<>();
+  private final Map<String, String> headers = new HashMap<>();
 
   public HttpRequest() {
     this.request = null;
@@ -98,4 +99,21 @@ public class HttpRequest {
   public Map<String, String> getCookies() {
     return cookies;
   }
+
+  /**
+   * Returns the named header value (case-insensitive) or null if not present.
+   */
+  public String getHeader(String name) {
+    if (request != null) {
+      return request.getHeader(name);
+    }
+    return headers.get(name.toLowerCase());
+  }
+
+  /**
+   * Returns the map of lower-case header names and values. Only used for none-http-servlet based implementations.
+   */
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
 }
@@ -4,13 +4,24 @@ package com.purej.vminspect.http;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Http response that reads directly from file (eg. .png, .js, .css etc.).
+ * <p/>
+ * Resources never change at runtime, so each resource is loaded once only and kept in an immutable cache entry
+ * together with its strong ETag and its compressed bytes. Resources that do not exist are not cached.
  *
  * @author Stefan Mueller
  */
 public final class HttpResourceResponse extends HttpResponse {
+  private static final Map<String, CachedResource> CACHE = new ConcurrentHashMap<>();
+
   private final String resource;
 
   /**
@@ -41,8 +52,49 @@ public final class HttpResourceResponse extends HttpResponse {
     }
   }
 
+  /**
+   * Returns the cached bytes of the resource. The returned array is shared and must not be modified.
+   */
   @Override
   public byte[] getContentBytes() throws IOException {
+    var cached = getCachedResource();
+    return cached != null ? cached.bytes : null;
+  }
+
+  @Override
+  public byte[] getGzipContentBytes(byte[] data) throws IOException {
+    var cached = getCachedResource();
+    return cached != null && cached.gzipBytes != null ? cached.gzipBytes : super.getGzipContentBytes(data);
+  }
+
+  @Override
+  public String getETag(boolean gzip) throws IOException {
+    var cached = getCachedResource();
+    if (cached == null) {
+      return null;
+    }
+    // Strong ETags must differ for each content-encoding of the same resource:
+    return gzip ? cached.etag.substring(0, cached.etag.length() - 1) + "-gz\"" : cached.etag;
+  }
+
+  private CachedResource getCachedResource() throws IOException {
+    try {
+      return CACHE.computeIfAbsent(resource, r -> {
+        try {
+          var bytes = loadResource(r);
+          return bytes != null ? new CachedResource(bytes, !getContentType(r).startsWith("image/")) : null;
+        }
+        catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+    catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static byte[] loadResource(String resource) throws IOException {
     var input = HttpResourceResponse.class.getResourceAsStream("/res/" + resource);
     if (input == null) {
       return null;
@@ -62,4 +114,29 @@ public final class HttpResourceResponse extends HttpResponse {
       input.close();
     }
   }
+
+  /**
+   * Immutable cache entry of a loaded resource, the compressed bytes are null for resources never sent compressed.
+   */
+  private static final class CachedResource {
+    private final byte[] bytes;
+    private final String etag;
+    private final byte[] gzipBytes;
+
+    CachedResource(byte[] bytes, boolean compressible) throws IOException {
+      this.bytes = bytes;
+      this.etag = "\"" + createHash(bytes) + "\"";
+      this.gzipBytes = compressible ? HttpCompression.gzip(bytes) : null;
+    }
+
+    private static String createHash(byte[] bytes) {
+      try {
+        var digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        return HexFormat.of().formatHex(digest, 0, 16);
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("SHA-256 not supported!", e);
+      }
+    }
+  }
 }
@@ -2,6 +2,7 @@
 package com.purej.vminspect.http;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,13 +15,16 @@ import java.util.Map;
  * <br/>
  * - Http clients sometimes require the content-length to be specified in the HTML header - This is only possible if the number of bytes to
  * be written as content is known BEFORE the actual writing.
+ * <p/>
+ * Exception: Large pages might use a streaming response (see {@link #isStreaming()}) that renders while writing. For those, the
+ * content-length is unknown and the content is sent chunked.
  *
  * @author Stefan Mueller
  */
 public abstract class HttpResponse {
   private final Map<String, String> cookies = new HashMap<>(7);
   private final String contentType;
-  private final int cacheSeconds;
+  private int cacheSeconds;
 
   protected HttpResponse(String contentType, int cacheSeconds) {
     this.contentType = contentType;
@@ -42,6 +46,20 @@ public abstract class HttpResponse {
     return cacheSeconds;
   }
 
+  /**
+   * Returns if the content might be sent gzip compressed, true for all content types except images.
+   */
+  public boolean isCompressible() {
+    return !contentType.startsWith("image/");
+  }
+
+  /**
+   * Sets the number of seconds for this response to be cached in the client-side.
+   */
+  public void setCacheSeconds(int cacheSeconds) {
+    this.cacheSeconds = cacheSeconds;
+  }
+
   /**
    * Returns the cookies to be set.
    */
@@ -54,4 +72,63 @@ public abstract class HttpResponse {
    * @throws IOException if an I/O error occurred
    */
   public abstract byte[] getContentBytes() throws IOException;
+
+  /**
+   * Returns the gzip compressed content bytes to be written to the response. Compresses the given
+   * content bytes by default, sub-classes might return a cached copy.
+   * @throws IOException if an I/O error occurred
+   */
+  public byte[] getGzipContentBytes(byte[] data) throws IOException {
+    return HttpCompression.gzip(data);
+  }
+
+  /**
+   * Returns the strong entity-tag of the content in the given encoding including the quotes
+   * or null if the content has no entity-tag (default).
+   * @throws IOException if an I/O error occurred
+   */
+  public String getETag(boolean gzip) throws IOException {
+    return null;
+  }
+
+  /**
+   * Returns if the client of the given request already has the current content, eg. the If-None-Match
+   * header of the request contains the entity-tag of the content in any encoding.
+   * @throws IOException if an I/O error occurred
+   */
+  public boolean isNotModified(HttpRequest request) throws IOException {
+    var ifNoneMatch = request.getHeader("If-None-Match");
+    var etag = ifNoneMatch != null ? getETag(false) : null;
+    if (etag == null) {
+      return false;
+    }
+    var gzipEtag = getETag(true);
+    for (var tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      tag = tag.startsWith("W/") ? tag.substring(2) : tag; // Weak comparison for If-None-Match
+      if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns if the content is rendered while writing and thus the content length is unknown in advance.
+   * If true, {@link #writeContent(OutputStream)} must be used instead of {@link #getContentBytes()}.
+   */
+  public boolean isStreaming() {
+    return false;
+  }
+
+  /**
+   * Writes the content of a streaming response to the given output-stream.
+   * @throws IOException if an I/O error occurred
+   */
+  public void writeContent(OutputStream out) throws IOException {
+    var data = getContentBytes();
+    if (data != null) {
+      out.write(data);
+    }
+  }
 }
@@ -0,0 +1,68 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Http response with text content that is rendered while being written to the client. The rendered text is
+ * encoded into a reusable buffer and sent in chunks, so the first bytes are sent before the page is complete.
+ * <p/>
+ * Note: As the rendering happens while writing, an exception during rendering can only be reported as error page as long
+ * as the response buffer was not sent to the client yet. Otherwise the content stays incomplete.
+ *
+ * @author Stefan Mueller
+ */
+public final class HttpStreamResponse extends HttpTextResponse {
+  private Runnable renderer;
+
+  /**
+   * Creates a new instance of this class.
+   *
+   * @param contentType the content type
+   */
+  public HttpStreamResponse(String contentType) {
+    super(contentType);
+  }
+
+  /**
+   * Sets the renderer that writes the content to the output of this response.
+   */
+  public void setRenderer(Runnable renderer) {
+    this.renderer = renderer;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  @Override
+  public byte[] getContentBytes() throws IOException {
+    // Fallback: Render completely in-memory:
+    render();
+    return super.getContentBytes();
+  }
+
+  @Override
+  public void writeContent(OutputStream out) throws IOException {
+    getOutput().setTarget(out);
+    try {
+      render(); // Already rendered content is written with finish
+    }
+    catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    getOutput().finish();
+  }
+
+  private void render() {
+    // Renders once only, the renderer appends to the output:
+    if (renderer != null) {
+      var current = renderer;
+      renderer = null;
+      current.run();
+    }
+  }
+}
@@ -9,7 +9,7 @@ import java.io.IOException;
  * @author Stefan Mueller
  */
 public class HttpTextResponse extends HttpResponse {
-  private final StringBuilder output = new StringBuilder(4096);
+  private final ResponseWriter output = new ResponseWriter();
 
   /**
    * Creates a new instance of this class.
@@ -23,7 +23,7 @@ public class HttpTextResponse extends HttpResponse {
   /**
    * Returns the output to append data to.
    */
-  public StringBuilder getOutput() {
+  public ResponseWriter getOutput() {
     return output;
   }
 
@@ -12,10 +12,12 @@ import com.purej.vminspect.data.statistics.StatisticsCollector;
 import com.purej.vminspect.html.AbstractHtmlView;
 import com.purej.vminspect.html.ConfirmState;
 import com.purej.vminspect.html.HtmlPageView;
+import com.purej.vminspect.html.MBeansAttributeValueView;
 import com.purej.vminspect.html.MBeansDetailView;
 import com.purej.vminspect.html.MBeansInvokeAttributeView;
 import com.purej.vminspect.html.MBeansInvokeOperationView;
 import com.purej.vminspect.html.MBeansMainView;
+import com.purej.vminspect.html.StatisticsDataView;
 import com.purej.vminspect.html.StatisticsDetailView;
 import com.purej.vminspect.html.StatisticsMainView;
 import com.purej.vminspect.html.SystemMainView;
@@ -36,6 +38,7 @@ public class RequestController {
   static {
     NO_REFRESH_PARAMS.add(RequestParams.MBEAN_DOMAIN_FILTER);
     NO_REFRESH_PARAMS.add(RequestParams.MBEAN_TYPE_FILTER);
+    NO_REFRESH_PARAMS.add(RequestParams.MBEAN_PAGE_SIZE);
 
     NO_REFRESH_PARAMS.add(RequestParams.MBEAN_ATTRIBUTE_INVOKE);
     NO_REFRESH_PARAMS.add(RequestParams.MBEAN_ATTRIBUTE_CANCEL);
@@ -47,8 +50,13 @@ public class RequestController {
     NO_REFRESH_PARAMS.add(RequestParams.MBEAN_OPERATION_IDX);
   }
 
+  // Values loaded by the browser are polled with short waits until read or timed out:
+  private static final int ASYNC_ATTRIBUTE_WAIT_MILLIS = 1000;
+  private static final int ASYNC_ATTRIBUTE_TIMEOUT_MILLIS = 30000;
+
   private final MBeanAccessControlFactory accessControlFactory;
   private final StatisticsCollector collector;
+  private int mbeanAttributeTimeoutMillis = 2000;
 
   /**
    * Creates a new instance of this class.
@@ -60,10 +68,29 @@ public class RequestController {
   }
 
   /**
-   * Processes the given request and returns the in-memory response.
+   * Returns the number of milliseconds to wait for each attribute value of the MBean page (default: 2'000ms), 0 if the values are
+   * read sequentially without timeout. Values not read in time are loaded asynchronously by the browser.
+   */
+  public int getMBeanAttributeTimeoutMillis() {
+    return mbeanAttributeTimeoutMillis;
+  }
+
+  /**
+   * Sets the number of milliseconds to wait for each attribute value of the MBean page, 0 to read sequentially without timeout.
+   */
+  public void setMBeanAttributeTimeoutMillis(int mbeanAttributeTimeoutMillis) {
+    if (mbeanAttributeTimeoutMillis < 0) {
+      throw new IllegalArgumentException("Value of 'mbeanAttributeTimeoutMillis' must not be negative!");
+    }
+    this.mbeanAttributeTimeoutMillis = mbeanAttributeTimeoutMillis;
+  }
+
+  /**
+   * Processes the given request and returns the response. HTML pages and thread dumps are returned as
+   * {@link HttpStreamResponse} that render while being written, all other responses are in-memory.
    *
    * @param httpRequest the request to be processed
-   * @return the in-memory response
+   * @return the response
    * @throws IOException if an exception occurred
    */
   public HttpResponse process(HttpRequest httpRequest) throws IOException {
@@ -78,6 +105,17 @@ public class RequestController {
       if (statsGraphName != null) {
         return doStatsGraph(httpRequest, statsGraphName);
       }
+      if (httpRequest.getParameter(RequestParams.STATS_SPRITE) != null) {
+        return doStatsSprite(httpRequest);
+      }
+      var statsDataName = httpRequest.getParameter(RequestParams.STATS_DATA);
+      if (statsDataName != null) {
+        return doStatsData(httpRequest, statsDataName);
+      }
+      var mbAtrRead = httpRequest.getParameter(RequestParams.MBEAN_ATTRIBUTE_READ);
+      if (mbAtrRead != null) {
+        return doMBeanAttributeValue(httpRequest, mbAtrRead);
+      }
       // 3.) Check if thread dump:
       var page = httpRequest.getParameter(RequestParams.PAGE);
       if ("threadsDump".equals(page)) {
@@ -91,24 +129,73 @@ public class RequestController {
   }
 
   private HttpResponse doStatsGraph(HttpRequest request, String graphName) throws IOException {
+    // The graph does not change until the next collection:
     var response = new HttpPngResponse(graphName);
     var range = CookieManager.getRange(request, response);
+    response.setCacheSeconds(this.collector.getGraphCacheSeconds(range));
     var width = Math.min(Integer.parseInt(request.getParameter(RequestParams.STATS_WIDTH)), 1600);
     var height = Math.min(Integer.parseInt(request.getParameter(RequestParams.STATS_HEIGHT)), 1600);
-    var stats = this.collector.getStatistics(graphName);
-    response.setImg(stats.createGraph(range, width, height));
+    response.setImg(this.collector.getGraph(graphName, range, width, height));
+    return response;
+  }
+
+  private HttpResponse doStatsSprite(HttpRequest request) throws IOException {
+    // All graphs of the overview at once, does not change until the next collection:
+    var response = new HttpPngResponse("sprite");
+    var range = CookieManager.getRange(request, response);
+    response.setCacheSeconds(this.collector.getGraphCacheSeconds(range));
+    var width = Math.min(Integer.parseInt(request.getParameter(RequestParams.STATS_WIDTH)), 1600);
+    var height = Math.min(Integer.parseInt(request.getParameter(RequestParams.STATS_HEIGHT)), 1600);
+    // The sprite whose layout the page shows, rendered again only if not kept anymore:
+    var spriteId = request.getParameter(RequestParams.STATS_SPRITE_ID);
+    var sprite = spriteId != null ? this.collector.getGraphSprite(Long.parseLong(spriteId)) : null;
+    if (sprite == null) {
+      sprite = this.collector.getGraphSprite(range, width, height);
+    }
+    response.setImg(sprite.getPng());
+    return response;
+  }
+
+  private HttpResponse doStatsData(HttpRequest request, String statsName) throws IOException {
+    var stats = this.collector.getStatistics(statsName);
+    if (stats == null) {
+      return new HttpTextResponse("text/plain"); // No content results in not found
+    }
+    // The values are fetched in advance, the JSON/CSV is streamed:
+    var csv = "csv".equalsIgnoreCase(request.getParameter(RequestParams.STATS_FORMAT));
+    var response = new HttpStreamResponse(csv ? "text/csv; charset=utf-8" : "application/json; charset=utf-8");
+    var range = CookieManager.getRange(request, response);
+    response.setRenderer(new StatisticsDataView(response.getOutput(), stats, range, stats.fetchSeries(range), csv)::render);
+    return response;
+  }
+
+  private HttpResponse doMBeanAttributeValue(HttpRequest request, String attributeName) throws IOException {
+    // Same access as the MBean page, the value is rendered as HTML fragment:
+    accessControlFactory.create(request.getHttpServletRequest());
+    var mbName = request.getParameter(RequestParams.MBEAN_NAME);
+    var mbServerIdx = -1;
+    Object value;
+    try {
+      mbServerIdx = Integer.parseInt(request.getParameter(RequestParams.MBEAN_SRV_IDX));
+      value = MBeanUtils.getAttributeValue(mbServerIdx, mbName, attributeName, ASYNC_ATTRIBUTE_WAIT_MILLIS, ASYNC_ATTRIBUTE_TIMEOUT_MILLIS);
+    }
+    catch (NumberFormatException e) {
+      value = "Invalid MBean server index: " + request.getParameter(RequestParams.MBEAN_SRV_IDX);
+    }
+    var response = new HttpStreamResponse("text/html; charset=utf-8");
+    response.setRenderer(new MBeansAttributeValueView(response.getOutput(), mbServerIdx, mbName, attributeName, value)::render);
     return response;
   }
 
   private static HttpResponse doThreadDump() throws IOException {
-    var response = new HttpTextResponse("text/plain; charset=utf-8");
-    new ThreadsDumpView(response.getOutput(), ThreadData.getAllThreads()).render();
+    var response = new HttpStreamResponse("text/plain; charset=utf-8");
+    response.setRenderer(new ThreadsDumpView(response.getOutput(), ThreadData.getAllThreads())::render);
     return response;
   }
 
   private HttpResponse doHtml(HttpRequest request, String page) throws IOException {
     var start = System.currentTimeMillis();
-    HttpTextResponse response = new HttpTextResponse("text/html; charset=utf-8");
+    var response = new HttpStreamResponse("text/html; charset=utf-8");
 
     // Create the content view:
     AbstractHtmlView view;
@@ -125,10 +212,14 @@ public class RequestController {
       if (statsName != null) {
         var statsWidth = request.getParameter(RequestParams.STATS_WIDTH);
         var statsHeight = request.getParameter(RequestParams.STATS_HEIGHT);
-        view = new StatisticsDetailView(response.getOutput(), range, statsName, Integer.parseInt(statsWidth), Integer.parseInt(statsHeight));
+        var clientChart = CookieManager.isStatsClientChart(request, response);
+        view = new StatisticsDetailView(response.getOutput(), range, statsName, Integer.parseInt(statsWidth), Integer.parseInt(statsHeight),
+            clientChart);
       }
       else {
-        view = new StatisticsMainView(response.getOutput(), this.collector, range);
+        // In sprite mode, render the sprite in advance to know its layout, the image request gets the same sprite by its id:
+        var sprite = CookieManager.isStatsSpriteMode(request, response) ? this.collector.getGraphSprite(range, 200, 50) : null;
+        view = new StatisticsMainView(response.getOutput(), this.collector, range, sprite);
       }
     }
     else {
@@ -136,21 +227,23 @@ public class RequestController {
       view = new SystemMainView(response.getOutput(), SystemData.create());
     }
 
-    // Create the page template and render:
+    // Create the page template, rendered while writing the response:
     var html = new HtmlPageView(response.getOutput(), getRefreshParameters(request), start, view);
-    html.render();
+    response.setRenderer(html::render);
     return response;
   }
 
-  private static AbstractHtmlView handleMBeansView(HttpRequest request, HttpTextResponse response, MBeanAccessControl mbeanAccessControl)
+  private AbstractHtmlView handleMBeansView(HttpRequest request, HttpTextResponse response, MBeanAccessControl mbeanAccessControl)
       throws IOException {
     var mbServerIdx = request.getParameter(RequestParams.MBEAN_SRV_IDX);
     var mbName = request.getParameter(RequestParams.MBEAN_NAME);
     if (mbServerIdx != null && mbName != null) {
       // MBean specified:
-      var mbean = MBeanUtils.getMBean(Integer.parseInt(mbServerIdx), mbName);
       var mbAtrName = request.getParameter(RequestParams.MBEAN_ATTRIBUTE_NAME);
       var mbOpIdx = request.getParameter(RequestParams.MBEAN_OPERATION_IDX);
+      // Only the MBean page reads the attribute values with timeout, editing and invoking require all values:
+      var attributeTimeoutMillis = mbAtrName == null && mbOpIdx == null ? mbeanAttributeTimeoutMillis : 0;
+      var mbean = MBeanUtils.getMBean(Integer.parseInt(mbServerIdx), mbName, attributeTimeoutMillis);
       if (mbAtrName != null) {
         return handleMBeansAttributeView(request, response, mbean, mbAtrName, mbeanAccessControl);
       }
@@ -169,7 +262,9 @@ public class RequestController {
         domainFilter = mbeanAccessControl.getDefaultDomainFilter();
       }
       var typeFilter = CookieManager.getTypeFilter(request, response);
-      return new MBeansMainView(response.getOutput(), domainFilter, typeFilter, MBeanUtils.getMBeanNames());
+      var pageSize = CookieManager.getMBeanPageSize(request, response);
+      var offset = getMBeanOffset(request);
+      return new MBeansMainView(response.getOutput(), domainFilter, typeFilter, MBeanUtils.getMBeanNames(), offset, pageSize);
     }
   }
 
@@ -284,6 +379,16 @@ public class RequestController {
     }
   }
 
+  private static int getMBeanOffset(HttpRequest request) {
+    var offset = request.getParameter(RequestParams.MBEAN_OFFSET);
+    try {
+      return offset != null ? Math.max(Integer.parseInt(offset), 0) : 0;
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
   private static String getRefreshParameters(HttpRequest request) {
     var params = new StringBuilder();
     for (var entry : request.getParameters().entrySet()) {
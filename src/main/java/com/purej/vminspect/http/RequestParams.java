@@ -19,6 +19,7 @@ public final class RequestParams {
   public static final String MBEAN_ATTRIBUTE_INVOKE = "mbAtrInvoke";
   public static final String MBEAN_ATTRIBUTE_INVOKE_CONFIRM = "mbAtrInvokeConfirm";
   public static final String MBEAN_ATTRIBUTE_CANCEL = "mbAtrCancel";
+  public static final String MBEAN_ATTRIBUTE_READ = "mbAtrRead";
   public static final String MBEAN_OPERATION_IDX = "mbOpIdx";
   public static final String MBEAN_OPERATION_INVOKE = "mbOpInvoke";
   public static final String MBEAN_OPERATION_INVOKE_CONFIRM = "mbOpInvokeConfirm";
@@ -26,8 +27,16 @@ public final class RequestParams {
   public static final String MBEAN_OPERATION_VALUE = "mbOpValue";
   public static final String MBEAN_DOMAIN_FILTER = "mbDomainFilter";
   public static final String MBEAN_TYPE_FILTER = "mbTypeFilter";
+  public static final String MBEAN_PAGE_SIZE = "mbPageSize";
+  public static final String MBEAN_OFFSET = "mbOffset";
 
   public static final String STATS_GRAPH = "statsGraph";
+  public static final String STATS_SPRITE = "statsSprite";
+  public static final String STATS_SPRITE_ID = "statsSpriteId";
+  public static final String STATS_MODE = "statsMode";
+  public static final String STATS_DATA = "statsData";
+  public static final String STATS_FORMAT = "statsFormat";
+  public static final String STATS_CHART = "statsChart";
   public static final String STATS_DETAIL = "statsDetail";
   public static final String STATS_PERIOD = "statsPeriod";
   public static final String STATS_FROM_DATE = "statsFromDate";
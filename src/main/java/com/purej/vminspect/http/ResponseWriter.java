@@ -0,0 +1,143 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The text output the views write to. By default the whole text is kept in memory. If a target stream is set,
+ * the text gets encoded to UTF-8 and written to the target stream whenever the internal buffer is full, so
+ * large pages never exist as a whole in memory.
+ * <p/>
+ * Note: The append methods do not declare {@link IOException}s to keep the views simple, I/O errors of the target
+ * stream are thrown as {@link UncheckedIOException}.
+ *
+ * @author Stefan Mueller
+ */
+public final class ResponseWriter {
+  private static final int FLUSH_SIZE = 8192;
+
+  private final StringBuilder buffer;
+  private OutputStream target;
+  private CharsetEncoder encoder;
+  private ByteBuffer bytes;
+
+  /**
+   * Creates a new instance with an initial buffer size of 4096 characters.
+   */
+  public ResponseWriter() {
+    this.buffer = new StringBuilder(4096);
+  }
+
+  /**
+   * Starts streaming the written text to the given target stream. The already buffered text will be written with the next flush.
+   */
+  void setTarget(OutputStream target) {
+    this.target = target;
+    this.encoder = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.bytes = ByteBuffer.allocate(FLUSH_SIZE + FLUSH_SIZE / 2);
+  }
+
+  /**
+   * Appends the given text.
+   */
+  public ResponseWriter append(String text) {
+    buffer.append(text);
+    return flushIfFull();
+  }
+
+  /**
+   * Appends the given character.
+   */
+  public ResponseWriter append(char c) {
+    buffer.append(c);
+    return flushIfFull();
+  }
+
+  /**
+   * Appends the given number.
+   */
+  public ResponseWriter append(int nr) {
+    buffer.append(nr);
+    return flushIfFull();
+  }
+
+  /**
+   * Appends the given number.
+   */
+  public ResponseWriter append(long nr) {
+    buffer.append(nr);
+    return flushIfFull();
+  }
+
+  /**
+   * Returns the number of characters currently buffered.
+   */
+  public int length() {
+    return buffer.length();
+  }
+
+  private ResponseWriter flushIfFull() {
+    if (target != null && buffer.length() >= FLUSH_SIZE) {
+      try {
+        encode(false);
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Encodes and writes the remaining buffered text to the target stream.
+   *
+   * @throws IOException if writing to the target failed
+   */
+  void finish() throws IOException {
+    encode(true);
+    encoder.flush(bytes);
+    writeBytes();
+  }
+
+  private void encode(boolean endOfInput) throws IOException {
+    var chars = CharBuffer.wrap(buffer);
+    while (true) {
+      CoderResult result = encoder.encode(chars, bytes, endOfInput);
+      if (result.isOverflow()) {
+        writeBytes();
+      }
+      else if (result.isUnderflow()) {
+        break;
+      }
+      else {
+        result.throwException();
+      }
+    }
+    writeBytes();
+    // Keep a possible unmapped trailing high-surrogate for the next round:
+    buffer.delete(0, chars.position());
+  }
+
+  private void writeBytes() throws IOException {
+    if (bytes.position() > 0) {
+      target.write(bytes.array(), 0, bytes.position());
+      bytes.clear();
+    }
+  }
+
+  /**
+   * Returns the buffered text.
+   */
+  @Override
+  public String toString() {
+    return buffer.toString();
+  }
+}
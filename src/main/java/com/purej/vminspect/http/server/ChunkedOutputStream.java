@@ -0,0 +1,49 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output-stream that writes each write call as a single chunk of the HTTP/1.1 chunked transfer encoding.
+ * The last (empty) chunk is written by {@link #finish()}, closing the stream does not close the target stream.
+ *
+ * @author Stefan Mueller
+ */
+final class ChunkedOutputStream extends OutputStream {
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+  private final OutputStream target;
+
+  ChunkedOutputStream(OutputStream target) {
+    this.target = target;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len > 0) {
+      target.write((Integer.toHexString(len) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+      target.write(b, off, len);
+      target.write(CRLF);
+    }
+  }
+
+  /**
+   * Writes the last chunk that terminates the content.
+   */
+  void finish() throws IOException {
+    target.write(LAST_CHUNK);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    target.flush();
+  }
+}
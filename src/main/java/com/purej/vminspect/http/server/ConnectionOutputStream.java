@@ -0,0 +1,91 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Buffered output-stream that writes to a non-blocking {@link HttpConnection}. The buffer is
+ * reused for the whole lifetime of the stream, closing the stream does not close the connection.
+ * <p/>
+ * Like the response buffer of a servlet container, the buffered bytes can be discarded as long as
+ * nothing was written to the connection (see {@link #isCommitted()}).
+ *
+ * @author Stefan Mueller
+ */
+final class ConnectionOutputStream extends OutputStream {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final HttpConnection connection;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private boolean committed;
+
+  ConnectionOutputStream(HttpConnection connection) {
+    this.connection = connection;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      flushBuffer();
+    }
+    buffer.put((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len >= BUFFER_SIZE) {
+      // Large chunk, write directly without copying:
+      flushBuffer();
+      committed = true;
+      connection.write(ByteBuffer.wrap(b, off, len));
+      return;
+    }
+    while (len > 0) {
+      if (!buffer.hasRemaining()) {
+        flushBuffer();
+      }
+      var count = Math.min(len, buffer.remaining());
+      buffer.put(b, off, count);
+      off += count;
+      len -= count;
+    }
+  }
+
+  /**
+   * Returns if bytes were written to the connection already.
+   */
+  boolean isCommitted() {
+    return committed;
+  }
+
+  /**
+   * Discards the buffered bytes, only possible as long as nothing was written to the connection.
+   */
+  void reset() {
+    if (committed) {
+      throw new IllegalStateException("Response already committed!");
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flushBuffer();
+  }
+
+  private void flushBuffer() throws IOException {
+    if (buffer.position() > 0) {
+      committed = true;
+      buffer.flip();
+      connection.write(buffer);
+      buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,239 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents a single non-blocking client connection of the {@link VmInspectionServer}.
+ * <p/>
+ * Request bytes are read by the {@link HttpListener} thread only. Response bytes are written directly
+ * by the worker thread executing the request. If the socket send-buffer is full, the worker thread
+ * waits until the listener reports the channel to be writable again.
+ *
+ * @author Stefan Mueller
+ */
+final class HttpConnection {
+  private static final int MAX_REQUEST_BYTES = 64 * 1024;
+  private static final long WRITE_TIMEOUT_MS = 30000;
+
+  private final HttpListener listener;
+  private final SocketChannel channel;
+  private final SelectionKey key;
+  private final SocketAddress remoteAddress;
+
+  // Only accessed by the listener thread:
+  private byte[] input = new byte[1024];
+  private int inputLength;
+  private long lastActivity = System.currentTimeMillis();
+  private ByteBuffer pendingOutput; // Written by the listener without blocking, see writeNonBlocking
+
+  // Number of requests dispatched over this connection:
+  private volatile int requestCount;
+
+  // Signaled by the listener thread if the channel gets writable again. A lock instead of a monitor,
+  // as waiting within a synchronized block would pin the carrier thread of a virtual thread:
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private final Condition writableCondition = writeLock.newCondition();
+  private boolean writable;
+
+  HttpConnection(HttpListener listener, SocketChannel channel, SelectionKey key) throws IOException {
+    this.listener = listener;
+    this.channel = channel;
+    this.key = key;
+    this.remoteAddress = channel.getRemoteAddress();
+  }
+
+  /**
+   * Returns the listener this connection belongs to.
+   */
+  HttpListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Returns the selection key of this connection.
+   */
+  SelectionKey getKey() {
+    return key;
+  }
+
+  /**
+   * Returns the address of the remote client.
+   */
+  SocketAddress getRemoteAddress() {
+    return remoteAddress;
+  }
+
+  /**
+   * Returns the number of requests dispatched over this connection so far.
+   */
+  int getRequestCount() {
+    return requestCount;
+  }
+
+  /**
+   * Returns the timestamp of the last read or completed response.
+   */
+  long getLastActivity() {
+    return lastActivity;
+  }
+
+  /**
+   * Reads the available bytes from the channel into the input buffer. Must be called by the listener thread only.
+   *
+   * @throws IOException if the connection was closed by the client or the request is too large
+   */
+  void read() throws IOException {
+    if (inputLength == input.length) {
+      if (input.length >= MAX_REQUEST_BYTES) {
+        throw new IOException("Request from " + remoteAddress + " exceeds " + MAX_REQUEST_BYTES + " bytes!");
+      }
+      var tmp = new byte[Math.min(input.length * 2, MAX_REQUEST_BYTES)];
+      System.arraycopy(input, 0, tmp, 0, inputLength);
+      input = tmp;
+    }
+    var read = channel.read(ByteBuffer.wrap(input, inputLength, input.length - inputLength));
+    if (read == -1) {
+      throw new IOException("Connection closed by remote host " + remoteAddress);
+    }
+    inputLength += read;
+    lastActivity = System.currentTimeMillis();
+  }
+
+  /**
+   * Removes the first complete request from the input buffer. Pipelined requests that follow
+   * remain in the buffer. Must be called by the listener thread only.
+   *
+   * @return the bytes of the first complete request, null if no complete request is buffered
+   */
+  byte[] nextRequest() {
+    var requestLength = RequestParser.getRequestLength(input, inputLength);
+    if (requestLength == -1) {
+      return null;
+    }
+    var request = new byte[requestLength];
+    System.arraycopy(input, 0, request, 0, requestLength);
+    System.arraycopy(input, requestLength, input, 0, inputLength - requestLength);
+    inputLength -= requestLength;
+    requestCount++;
+    return request;
+  }
+
+  /**
+   * Marks the current response as completed. Must be called by the listener thread only.
+   */
+  void responseDone() {
+    lastActivity = System.currentTimeMillis();
+  }
+
+  /**
+   * Writes as many bytes of the given buffer as possible without blocking, the remaining bytes are kept
+   * and written with {@link #writePending()} once the channel is writable. Must be called by the listener thread only.
+   *
+   * @return true if all bytes are written
+   * @throws IOException if writing failed
+   */
+  boolean writeNonBlocking(ByteBuffer buffer) throws IOException {
+    pendingOutput = buffer;
+    return writePending();
+  }
+
+  /**
+   * Writes the pending bytes kept by {@link #writeNonBlocking(ByteBuffer)} without blocking. Must be called by the listener thread only.
+   *
+   * @return true if all bytes are written
+   * @throws IOException if writing failed
+   */
+  boolean writePending() throws IOException {
+    channel.write(pendingOutput);
+    if (pendingOutput.hasRemaining()) {
+      return false;
+    }
+    pendingOutput = null;
+    return true;
+  }
+
+  /**
+   * Returns if there are bytes pending to be written by the listener thread. Must be called by the listener thread only.
+   */
+  boolean hasPendingOutput() {
+    return pendingOutput != null;
+  }
+
+  /**
+   * Writes the remaining bytes of the given buffer to the channel. Blocks the calling
+   * thread if the socket send-buffer is full until it gets writable again.
+   *
+   * @throws IOException if writing failed or timed out
+   */
+  void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.write(buffer) == 0) {
+        awaitWritable();
+      }
+    }
+  }
+
+  private void awaitWritable() throws IOException {
+    writeLock.lock();
+    try {
+      writable = false;
+      listener.registerWrite(this);
+      var deadline = System.currentTimeMillis() + WRITE_TIMEOUT_MS;
+      while (!writable) {
+        if (!channel.isOpen()) {
+          throw new IOException("Connection to " + remoteAddress + " closed");
+        }
+        var remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          throw new SocketTimeoutException("Timeout writing response to " + remoteAddress);
+        }
+        try {
+          writableCondition.await(remaining, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted writing response to " + remoteAddress, e);
+        }
+      }
+    }
+    finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Signals a waiting writer thread that the channel is writable again. Called by the listener thread.
+   */
+  void signalWritable() {
+    writeLock.lock();
+    try {
+      writable = true;
+      writableCondition.signalAll();
+    }
+    finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Closes the underlying channel and wakes up a waiting writer thread.
+   */
+  void close() {
+    try {
+      channel.close();
+    }
+    catch (IOException e) {
+      // Ignored...
+    }
+    signalWritable();
+  }
+}
@@ -0,0 +1,325 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.purej.vminspect.http.RequestController;
+
+/**
+ * The selector based listener of the {@link VmInspectionServer}. A single thread accepts new connections
+ * and reads the request bytes without blocking. Complete requests are dispatched to the worker executor.
+ * <p/>
+ * Connections are persistent (keep-alive) if requested by the client. While a request of a connection is
+ * executed, no further bytes are read from that connection. Pipelined requests are dispatched one after the
+ * other once the previous response is written, so the responses are sent in request order.
+ *
+ * @author Stefan Mueller
+ */
+final class HttpListener implements Runnable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VmInspectionServer.class);
+  private static final long IDLE_CHECK_INTERVAL_MS = 1000;
+  private static final byte[] SERVICE_UNAVAILABLE = ("HTTP/1.0 503 Service Unavailable\r\nServer: VmInspectionServer (simple Java HTTP server)"
+      + "\r\nConnection: close\r\nRetry-After: 1\r\nContent-Length: 0\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+  private final ServerSocketChannel serverChannel;
+  private final Selector selector;
+  private final SelectionKey serverKey;
+  private final WorkerPool executor;
+  private final RequestController controller;
+  private final int maxConnections;
+  private final int keepAliveTimeoutMs;
+  private final int maxKeepAliveRequests;
+  private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+  // Only accessed by the listener thread:
+  private int openConnections;
+  private long lastIdleCheck;
+
+  /**
+   * Creates a new instance of this class and binds the server socket to the given port.
+   *
+   * @throws IOException if the server socket could not be bound to the given port
+   */
+  HttpListener(int port, VmInspectionServerConfig config, WorkerPool executor, RequestController controller) throws IOException {
+    this.executor = executor;
+    this.controller = controller;
+    this.maxConnections = config.getMaxConnections();
+    this.keepAliveTimeoutMs = config.getKeepAliveTimeoutMs();
+    this.maxKeepAliveRequests = config.getMaxKeepAliveRequests();
+    this.selector = Selector.open();
+    this.serverChannel = ServerSocketChannel.open();
+    try {
+      serverChannel.bind(new InetSocketAddress(port), config.getBacklog());
+      serverChannel.configureBlocking(false);
+      serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+    catch (IOException e) {
+      serverChannel.close();
+      selector.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the local port the server socket is bound to.
+   */
+  int getPort() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  /**
+   * Returns the number of milliseconds an idle connection is kept open.
+   */
+  int getKeepAliveTimeoutMs() {
+    return keepAliveTimeoutMs;
+  }
+
+  /**
+   * Returns the maximum number of requests served over a single connection.
+   */
+  int getMaxKeepAliveRequests() {
+    return maxKeepAliveRequests;
+  }
+
+  /**
+   * Returns if the server socket is still open.
+   */
+  boolean isOpen() {
+    return serverChannel.isOpen();
+  }
+
+  @Override
+  public void run() {
+    // Once closed, keep running until the requests in progress are completed:
+    while (serverChannel.isOpen() || openConnections > 0) {
+      try {
+        selector.select(IDLE_CHECK_INTERVAL_MS);
+        runPendingTasks();
+        if (!serverChannel.isOpen()) {
+          closeIdleConnections();
+        }
+        closeExpiredConnections();
+        var keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          var key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+          }
+          else {
+            var connection = (HttpConnection) key.attachment();
+            if (key.isWritable() && connection.hasPendingOutput()) {
+              writePending(connection);
+            }
+            else if (key.isWritable()) {
+              key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+              connection.signalWritable();
+            }
+            if (key.isValid() && key.isReadable()) {
+              read(connection);
+            }
+          }
+        }
+      }
+      catch (Exception e) {
+        LOGGER.error("An error occurred handling HTTP connections!", e);
+      }
+    }
+    try {
+      selector.close();
+    }
+    catch (IOException e) {
+      // Ignored...
+    }
+  }
+
+  private void runPendingTasks() {
+    Runnable task;
+    while ((task = pendingTasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while (openConnections < maxConnections && (channel = serverChannel.accept()) != null) {
+      try {
+        channel.configureBlocking(false);
+        var key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new HttpConnection(this, channel, key));
+        openConnections++;
+      }
+      catch (IOException e) {
+        LOGGER.debug("Could not register accepted connection: {}", e.getMessage());
+        channel.close();
+      }
+    }
+    if (openConnections >= maxConnections) {
+      // Stop accepting, further connections will wait in the backlog:
+      LOGGER.debug("Maximum of {} open connections reached", maxConnections);
+      serverKey.interestOps(0);
+    }
+  }
+
+  private void read(HttpConnection connection) {
+    try {
+      connection.read();
+    }
+    catch (IOException e) {
+      LOGGER.debug("Closing connection: {}", e.getMessage());
+      closeConnection(connection);
+      return;
+    }
+    dispatchNext(connection);
+  }
+
+  private void dispatchNext(HttpConnection connection) {
+    var request = connection.nextRequest();
+    if (request != null) {
+      // Complete request, stop reading and hand over to a worker:
+      connection.getKey().interestOps(0);
+      dispatch(connection, request);
+    }
+    else {
+      connection.getKey().interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  private void dispatch(HttpConnection connection, byte[] request) {
+    try {
+      executor.execute(new RequestExecutor(connection, request, controller));
+    }
+    catch (RejectedExecutionException e) {
+      LOGGER.debug("Request queue full, rejecting request from {}", connection.getRemoteAddress());
+      try {
+        if (!connection.writeNonBlocking(ByteBuffer.wrap(SERVICE_UNAVAILABLE))) {
+          // Send-buffer full, never block the listener - continue once writable:
+          connection.getKey().interestOps(SelectionKey.OP_WRITE);
+          return;
+        }
+      }
+      catch (IOException ioe) {
+        // Ignored...
+      }
+      closeConnection(connection);
+    }
+  }
+
+  private void writePending(HttpConnection connection) {
+    try {
+      if (!connection.writePending()) {
+        return; // Still interested in write-ready
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Closing connection: {}", e.getMessage());
+    }
+    closeConnection(connection);
+  }
+
+  /**
+   * Registers the given connection for a write-ready notification. Might be called by any thread.
+   */
+  void registerWrite(HttpConnection connection) {
+    execute(() -> {
+      var key = connection.getKey();
+      if (key.isValid()) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+      }
+      else {
+        connection.signalWritable();
+      }
+    });
+  }
+
+  /**
+   * Signals the response of the current request is written. Closes the connection or continues
+   * with the next pipelined request or reading. Might be called by any thread.
+   */
+  void requestDone(HttpConnection connection, boolean keepAlive) {
+    execute(() -> {
+      if (keepAlive && serverChannel.isOpen() && connection.getKey().isValid()) {
+        connection.responseDone();
+        dispatchNext(connection);
+      }
+      else {
+        closeConnection(connection);
+      }
+    });
+  }
+
+  private void execute(Runnable task) {
+    pendingTasks.add(task);
+    selector.wakeup();
+  }
+
+  private void closeConnection(HttpConnection connection) {
+    if (connection.getKey().isValid() || connection.getKey().channel().isOpen()) {
+      connection.close();
+      openConnections--;
+      if (serverKey.isValid() && serverKey.interestOps() == 0) {
+        serverKey.interestOps(SelectionKey.OP_ACCEPT);
+      }
+    }
+  }
+
+  /**
+   * Closes the server socket. Idle connections are closed immediately, connections with a
+   * request in progress are closed once the response is written.
+   */
+  void close() {
+    try {
+      serverChannel.close();
+    }
+    catch (IOException e) {
+      // Ignored...
+    }
+    selector.wakeup();
+  }
+
+  private void closeExpiredConnections() {
+    var now = System.currentTimeMillis();
+    if (now - lastIdleCheck < IDLE_CHECK_INTERVAL_MS) {
+      return;
+    }
+    lastIdleCheck = now;
+    for (var key : selector.keys()) {
+      if (key.isValid() && key.attachment() instanceof HttpConnection && isIdle(key)) {
+        var connection = (HttpConnection) key.attachment();
+        if (now - connection.getLastActivity() > keepAliveTimeoutMs) {
+          LOGGER.debug("Closing idle connection from {}", connection.getRemoteAddress());
+          closeConnection(connection);
+        }
+      }
+    }
+  }
+
+  private void closeIdleConnections() {
+    for (var key : selector.keys()) {
+      if (key.isValid() && key.attachment() instanceof HttpConnection && isIdle(key)) {
+        closeConnection((HttpConnection) key.attachment());
+      }
+    }
+  }
+
+  /**
+   * Returns if the connection of the given key has no request in progress - it either waits
+   * for request bytes or the listener writes a rejection to it.
+   */
+  private static boolean isIdle(SelectionKey key) {
+    return (key.interestOps() & SelectionKey.OP_READ) != 0 || ((HttpConnection) key.attachment()).hasPendingOutput();
+  }
+}
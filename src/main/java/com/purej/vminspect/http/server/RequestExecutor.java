@@ -1,18 +1,12 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.http.server;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.net.Socket;
 import java.net.SocketException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.purej.vminspect.http.HttpCompression;
 import com.purej.vminspect.http.HttpRequest;
 import com.purej.vminspect.http.HttpResponse;
 import com.purej.vminspect.http.RequestController;
@@ -20,9 +14,13 @@ import com.purej.vminspect.util.Utils;
 
 /**
  * Each instance of this class executes a single HTTP request and writes
- * the response to the socket's output-stream. The given socket will be closed
+ * the response to the connection. Depending on the HTTP version and the request
+ * headers, the connection will be kept open for further requests or closed
  * after processing the request.
  * <p/>
+ * Streaming responses are rendered while writing, they are sent using the chunked transfer encoding
+ * for HTTP/1.1 clients and by closing the connection at the end for HTTP/1.0 clients.
+ * <p/>
  * This class implements the {@link Runnable} interface and allows to be executed
  * asynchronously using an ExecutorService.
  *
@@ -30,162 +28,95 @@ import com.purej.vminspect.util.Utils;
  */
 final class RequestExecutor implements Runnable {
   private static final Logger LOGGER = LoggerFactory.getLogger(VmInspectionServer.class);
-  private final Socket socket;
+  private final HttpConnection connection;
+  private final byte[] requestData;
   private final RequestController controller;
+  private boolean http11;
+  private boolean keepAlive;
 
   /**
-   * Creates a new instance of this class that executes the sockets request.
+   * Creates a new instance of this class that executes the given request read from the connection.
    */
-  RequestExecutor(Socket socket, RequestController controller) {
+  RequestExecutor(HttpConnection connection, byte[] requestData, RequestController controller) {
     super();
-    this.socket = socket;
+    this.connection = connection;
+    this.requestData = requestData;
     this.controller = controller;
   }
 
   /**
-   * Executes the request from the specified client-socket and closes streams and the socket.
+   * Executes the request and writes the response to the connection. Hands the connection
+   * back to the listener afterwards which closes it or continues with the next request.
    */
   @Override
   public void run() {
-    try {
+    try (var out = new ConnectionOutputStream(connection)) {
+      // Create the request, process it and write the response:
+      HttpRequest request = RequestParser.parse(requestData, requestData.length);
+      if (request == null) {
+        LOGGER.debug("Non valid HTTP request from {}, will be ignored", connection.getRemoteAddress());
+        return;
+      }
+      LOGGER.debug("HTTP request from {} with parameters {}", connection.getRemoteAddress(), request.getParameters());
+      http11 = RequestParser.isHttp11(requestData, requestData.length);
+      var listener = connection.getListener();
+      keepAlive = RequestParser.isKeepAliveRequested(request, http11) && connection.getRequestCount() < listener.getMaxKeepAliveRequests()
+          && listener.isOpen();
+
+      HttpResponse httpResponse;
+      byte[] data;
       try {
-        var in = socket.getInputStream();
-        var out = socket.getOutputStream();
-        try {
-          // Create the request, process it and write the response:
-          HttpRequest request = parseRequest(in);
-          if (request == null) {
-            LOGGER.debug("Non valid HTTP request from {}, will be ignored", socket.getRemoteSocketAddress());
-          }
-          else {
-            LOGGER.debug("HTTP request from {} with parameters {}", socket.getRemoteSocketAddress(), request.getParameters());
-            try {
-              var httpResponse = controller.process(request);
-              writeResponse(httpResponse, out);
-            }
-            catch (SocketException e) {
-              // This might occur if the browser terminates open requests, just log...
-              LOGGER.debug("Socket closed by remote host: {}", e.getMessage());
-            }
-            catch (Exception e) {
-              LOGGER.debug("An error occurred processing request!", e);
-              writeErrorResponse(e, "500 Server Error", out);
-            }
-          }
-        }
-        finally {
-          out.close();
-          in.close();
-        }
+        httpResponse = controller.process(request);
+        data = httpResponse.isStreaming() ? null : httpResponse.getContentBytes();
       }
-      finally {
-        socket.close();
+      catch (Exception e) {
+        LOGGER.debug("An error occurred processing request!", e);
+        writeErrorResponse(e, "500 Server Error", out);
+        return;
       }
+      writeResponse(request, httpResponse, data, out);
+    }
+    catch (SocketException e) {
+      // This might occur if the browser terminates open requests, just log...
+      LOGGER.debug("Socket closed by remote host: {}", e.getMessage());
+      keepAlive = false;
     }
     catch (Exception e) {
       LOGGER.error("An error occurred handling HTTP request!", e);
+      keepAlive = false;
     }
-  }
-
-  private static HttpRequest parseRequest(InputStream input) throws Exception {
-    var in = new BufferedReader(new InputStreamReader(input, "UTF-8"));
-    var header = readHttpHeader(in);
-    if (header.size() > 0) {
-      var firstLine = header.get(0);
-      if (firstLine.startsWith("GET ")) {
-        // HTTP GET request, parse it and search for optional cookies:
-        var request = new HttpRequest();
-        parseGet(firstLine, request);
-        var cookies = getLine(header, "Cookie: ");
-        if (cookies != null) {
-          parseCookies(cookies, request);
-        }
-        return request;
-      }
-      else if (firstLine.startsWith("POST ")) {
-        var length = getLine(header, "Content-Length: ");
-        if (length != null) {
-          int contentLength = Integer.parseInt(length.substring("Content-Length: ".length()));
-          char[] data = new char[contentLength];
-          int read = in.read(data);
-          if (read == contentLength) {
-            HttpRequest request = new HttpRequest();
-            parsePost(new String(data), request);
-            return request;
-          }
-        }
-      }
-    }
-    // Invalid / incomplete request:
-    return null;
-  }
-
-  private static List<String> readHttpHeader(BufferedReader in) throws IOException {
-    var result = new ArrayList<String>();
-    while (true) {
-      var line = in.readLine();
-      line = line != null ? line.trim() : line;
-      if (line == null || line.length() == 0) {
-        break; // End of header or no more data...
-      }
-      result.add(line);
-    }
-    return result;
-  }
-
-  private static String getLine(List<String> lines, String prefix) {
-    for (var line : lines) {
-      if (line.startsWith(prefix)) {
-        return line;
-      }
+    finally {
+      connection.getListener().requestDone(connection, keepAlive);
     }
-    return null;
   }
 
-  private static void parseGet(String line, HttpRequest request) throws Exception {
-    // Format is: GET[space]Request-URI[space]HTTP-Version
-    int idx = line.indexOf('?');
-    if (idx > 0) {
-      var params = line.substring(idx + 1, line.lastIndexOf(' ')).split("&");
-      splitKeyValues(params, request.getParameters());
-    }
-  }
-
-  private static void parsePost(String body, HttpRequest request) throws Exception {
-    // Format is: list of parameters=values (all encoded)
-    var params = body.split("&");
-    splitKeyValues(params, request.getParameters());
-  }
-
-  private static void parseCookies(String line, HttpRequest request) throws Exception {
-    // Format is: Cookies:[space]name=value;[space]name=value;[space]...
-    var cookies = line.substring("Cookie: ".length()).split("; ");
-    splitKeyValues(cookies, request.getCookies());
-  }
-
-  private static void splitKeyValues(String[] keyValues, Map<String, String> map) {
-    for (var keyValue : keyValues) {
-      int idx = keyValue.indexOf('=');
-      if (idx > 0) {
-        var key = keyValue.substring(0, idx);
-        var value = keyValue.substring(idx + 1);
-        int length = value.length();
-        value = length > 2 && value.charAt(0) == '"' && value.charAt(length - 1) == '"' ? value.substring(1, length - 1) : value;
-        map.put(key, Utils.urlDecode(value));
-      }
-    }
-  }
-
-  private static void writeResponse(HttpResponse response, OutputStream out) throws IOException {
+  private void writeResponse(HttpRequest request, HttpResponse response, byte[] data, ConnectionOutputStream out) throws IOException {
     // Sanity check first:
-    var data = response.getContentBytes();
-    if (data == null || data.length == 0) {
+    var streaming = response.isStreaming();
+    if (!streaming && (data == null || data.length == 0)) {
       var builder = new StringBuilder(512);
       appendResponseStatus("404 Not Found", builder);
+      builder.append("\r\nContent-Length: 0\r\n\r\n");
       out.write(builder.toString().getBytes("UTF-8"));
       return;
     }
 
+    // Client has the current content already, send the headers only:
+    var gzip = HttpCompression.isGzip(request, response, data);
+    if (response.isNotModified(request)) {
+      var builder = new StringBuilder(512);
+      appendResponseStatus("304 Not Modified", builder);
+      appendCacheHeaders(response, gzip, builder);
+      builder.append("\r\n\r\n");
+      out.write(builder.toString().getBytes("UTF-8"));
+      return;
+    }
+
+    // Without chunked encoding, the end of a streamed content is signaled by closing the connection:
+    if (streaming && !http11) {
+      keepAlive = false;
+    }
+
     // Write in correct order: a) Status
     var builder = new StringBuilder(512);
     appendResponseStatus("200 OK", builder);
@@ -197,37 +128,103 @@ final class RequestExecutor implements Runnable {
     }
 
     // c) Caching:
-    if (response.getCacheSeconds() > 0) {
-      builder.append("\r\nCache-Control: max-age=" + response.getCacheSeconds());
-    }
-    else {
-      builder.append("\r\nCache-Control: no-cache");
-    }
+    appendCacheHeaders(response, gzip, builder);
 
-    // d) Content type and length:
+    // d) Content type, encoding and length:
     builder.append("\r\nContent-Type: " + response.getContentType());
-    builder.append("\r\nContent-Length: " + data.length);
+    if (gzip) {
+      builder.append("\r\nContent-Encoding: gzip");
+      if (data != null) {
+        data = response.getGzipContentBytes(data);
+      }
+    }
+    if (!streaming) {
+      builder.append("\r\nContent-Length: " + data.length);
+    }
+    else if (http11) {
+      builder.append("\r\nTransfer-Encoding: chunked");
+    }
 
     // e) Finalize to output-stream - header and binary content:
     builder.append("\r\n\r\n");
     out.write(builder.toString().getBytes("UTF-8"));
-    out.write(data);
+    if (!streaming) {
+      out.write(data);
+    }
+    else {
+      try {
+        writeStreamingContent(response, gzip, out);
+      }
+      catch (RuntimeException e) {
+        if (out.isCommitted()) {
+          throw e; // Too late for an error page, the connection gets closed without completing the content
+        }
+        LOGGER.debug("An error occurred rendering response!", e);
+        out.reset();
+        writeErrorResponse(e, "500 Server Error", out);
+      }
+    }
+  }
+
+  private void writeStreamingContent(HttpResponse response, boolean gzip, OutputStream out) throws IOException {
+    var chunked = http11 ? new ChunkedOutputStream(out) : null;
+    var target = chunked != null ? chunked : out;
+    if (gzip) {
+      HttpCompression.writeGzipContent(response, target);
+    }
+    else {
+      response.writeContent(target);
+    }
+    if (chunked != null) {
+      chunked.finish();
+    }
   }
 
-  private static void writeErrorResponse(Exception e, String errorPart, OutputStream out) throws IOException {
+  private static void appendCacheHeaders(HttpResponse response, boolean gzip, StringBuilder builder) throws IOException {
+    if (response.getCacheSeconds() > 0) {
+      builder.append("\r\nCache-Control: max-age=" + response.getCacheSeconds());
+    }
+    else {
+      builder.append("\r\nCache-Control: no-cache");
+    }
+    var etag = response.getETag(gzip);
+    if (etag != null) {
+      builder.append("\r\nETag: ").append(etag);
+    }
+    if (response.isCompressible()) {
+      builder.append("\r\nVary: Accept-Encoding");
+    }
+  }
+
+  private void writeErrorResponse(Exception e, String errorPart, OutputStream out) throws IOException {
+    var body = new StringBuilder(100);
+    var details = Utils.getHtmlExceptionInfo(e);
+    body.append("<html><head><title>Error ").append(errorPart).append("</title>");
+    body.append("<body><h2>").append(errorPart).append("</h2>");
+    body.append("<p><pre>").append(details).append("</pre></p><hr/></body>");
+    var content = body.toString().getBytes("UTF-8");
+
     var builder = new StringBuilder(100);
     appendResponseStatus(errorPart, builder);
-    var details = Utils.getHtmlExceptionInfo(e);
     builder.append("\r\nCache-Control: no-cache");
     builder.append("\r\nContent-Type: text/html; charset=utf-8");
-    builder.append("\r\n\r\n<html><head><title>Error ").append(errorPart).append("</title>");
-    builder.append("<body><h2>").append(errorPart).append("</h2>");
-    builder.append("<p><pre>").append(details).append("</pre></p><hr/></body>");
+    builder.append("\r\nContent-Length: ").append(content.length);
+    builder.append("\r\n\r\n");
     out.write(builder.toString().getBytes("UTF-8"));
+    out.write(content);
   }
 
-  private static void appendResponseStatus(String statusPart, StringBuilder builder) {
-    builder.append("HTTP/1.0 ").append(statusPart);
-    builder.append("\r\nServer: VmInspectionServer (simple Java HTTP server)\r\nAllow: GET\r\nConnection: close");
+  private void appendResponseStatus(String statusPart, StringBuilder builder) {
+    builder.append(http11 ? "HTTP/1.1 " : "HTTP/1.0 ").append(statusPart);
+    builder.append("\r\nServer: VmInspectionServer (simple Java HTTP server)\r\nAllow: GET");
+    if (keepAlive) {
+      var listener = connection.getListener();
+      // Rounded up to whole seconds, as a timeout of 0 would tell the client to not reuse the connection:
+      builder.append("\r\nConnection: keep-alive\r\nKeep-Alive: timeout=").append((listener.getKeepAliveTimeoutMs() + 999) / 1000);
+      builder.append(", max=").append(listener.getMaxKeepAliveRequests() - connection.getRequestCount());
+    }
+    else {
+      builder.append("\r\nConnection: close");
+    }
   }
 }
@@ -0,0 +1,186 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import com.purej.vminspect.http.HttpRequest;
+import com.purej.vminspect.util.Utils;
+
+/**
+ * Parses the raw bytes of HTTP GET/POST requests as read by the {@link HttpConnection}.
+ *
+ * @author Stefan Mueller
+ */
+final class RequestParser {
+  private static final String CONTENT_LENGTH = "content-length:";
+
+  private RequestParser() {
+  }
+
+  /**
+   * Returns the number of bytes of the first complete request in the given data or -1 if the
+   * data does not yet contain a complete request (header and optional body).
+   */
+  static int getRequestLength(byte[] data, int length) {
+    var headerLength = getHeaderLength(data, length);
+    if (headerLength == -1) {
+      return -1;
+    }
+    var contentLength = 0;
+    var contentLengthLine = getLine(readHttpHeader(data, headerLength), CONTENT_LENGTH);
+    if (contentLengthLine != null) {
+      try {
+        contentLength = Integer.parseInt(contentLengthLine.substring(CONTENT_LENGTH.length()).trim());
+      }
+      catch (NumberFormatException e) {
+        contentLength = 0; // Invalid content-length, treat as no body...
+      }
+    }
+    var requestLength = headerLength + Math.max(contentLength, 0);
+    return requestLength <= length ? requestLength : -1;
+  }
+
+  /**
+   * Parses the given request bytes and returns the request or null if not a valid GET/POST request.
+   */
+  static HttpRequest parse(byte[] data, int length) {
+    var headerLength = getHeaderLength(data, length);
+    if (headerLength == -1) {
+      return null;
+    }
+    var header = readHttpHeader(data, headerLength);
+    if (header.size() > 0) {
+      var firstLine = header.get(0);
+      if (firstLine.startsWith("GET ")) {
+        // HTTP GET request, parse it and search for optional cookies:
+        var request = new HttpRequest();
+        parseGet(firstLine, request);
+        parseHeaders(header, request);
+        parseCookies(header, request);
+        return request;
+      }
+      else if (firstLine.startsWith("POST ")) {
+        var request = new HttpRequest();
+        parsePost(new String(data, headerLength, length - headerLength, StandardCharsets.UTF_8), request);
+        parseHeaders(header, request);
+        parseCookies(header, request);
+        return request;
+      }
+    }
+    // Invalid / unsupported request:
+    return null;
+  }
+
+  /**
+   * Returns if the given request is a HTTP/1.1 request, otherwise HTTP/1.0 is assumed.
+   */
+  static boolean isHttp11(byte[] data, int length) {
+    for (var i = 0; i < length; i++) {
+      if (data[i] == '\n') {
+        var line = new String(data, 0, i, StandardCharsets.ISO_8859_1).trim();
+        return line.endsWith(" HTTP/1.1");
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns if the client wants to keep the connection open after the response. HTTP/1.1
+   * connections are persistent by default, HTTP/1.0 connections only if explicitly requested.
+   */
+  static boolean isKeepAliveRequested(HttpRequest request, boolean http11) {
+    var connection = request.getHeader("connection");
+    if (http11) {
+      return connection == null || !connection.toLowerCase().contains("close");
+    }
+    return connection != null && connection.toLowerCase().contains("keep-alive");
+  }
+
+  private static int getHeaderLength(byte[] data, int length) {
+    // The header ends with an empty line, accept CRLF and LF line endings:
+    for (var i = 0; i < length; i++) {
+      if (data[i] == '\n') {
+        if (i + 1 < length && data[i + 1] == '\n') {
+          return i + 2;
+        }
+        if (i + 2 < length && data[i + 1] == '\r' && data[i + 2] == '\n') {
+          return i + 3;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static List<String> readHttpHeader(byte[] data, int headerLength) {
+    var result = new ArrayList<String>();
+    var lines = new String(data, 0, headerLength, StandardCharsets.ISO_8859_1).split("\n");
+    for (var line : lines) {
+      line = line.trim();
+      if (line.length() == 0) {
+        break; // End of header...
+      }
+      result.add(line);
+    }
+    return result;
+  }
+
+  private static String getLine(List<String> lines, String lowerCasePrefix) {
+    for (var line : lines) {
+      if (line.regionMatches(true, 0, lowerCasePrefix, 0, lowerCasePrefix.length())) {
+        return line;
+      }
+    }
+    return null;
+  }
+
+  private static void parseHeaders(List<String> header, HttpRequest request) {
+    // Format is: Name:[space]value, skip the request line:
+    for (var i = 1; i < header.size(); i++) {
+      var line = header.get(i);
+      int idx = line.indexOf(':');
+      if (idx > 0) {
+        request.getHeaders().put(line.substring(0, idx).trim().toLowerCase(), line.substring(idx + 1).trim());
+      }
+    }
+  }
+
+  private static void parseGet(String line, HttpRequest request) {
+    // Format is: GET[space]Request-URI[space]HTTP-Version
+    int idx = line.indexOf('?');
+    int end = line.lastIndexOf(' ');
+    if (idx > 0 && end > idx) {
+      var params = line.substring(idx + 1, end).split("&");
+      splitKeyValues(params, request.getParameters());
+    }
+  }
+
+  private static void parsePost(String body, HttpRequest request) {
+    // Format is: list of parameters=values (all encoded)
+    var params = body.split("&");
+    splitKeyValues(params, request.getParameters());
+  }
+
+  private static void parseCookies(List<String> header, HttpRequest request) {
+    // Format is: Cookies:[space]name=value;[space]name=value;[space]...
+    var line = getLine(header, "cookie:");
+    if (line != null) {
+      var cookies = line.substring("cookie:".length()).trim().split("; ");
+      splitKeyValues(cookies, request.getCookies());
+    }
+  }
+
+  private static void splitKeyValues(String[] keyValues, Map<String, String> map) {
+    for (var keyValue : keyValues) {
+      int idx = keyValue.indexOf('=');
+      if (idx > 0) {
+        var key = keyValue.substring(0, idx);
+        var value = keyValue.substring(idx + 1);
+        int length = value.length();
+        value = length > 2 && value.charAt(0) == '"' && value.charAt(length - 1) == '"' ? value.substring(1, length - 1) : value;
+        map.put(key, Utils.urlDecode(value));
+      }
+    }
+  }
+}
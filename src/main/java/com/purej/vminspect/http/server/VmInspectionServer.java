@@ -2,13 +2,7 @@
 package com.purej.vminspect.http.server;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.purej.vminspect.data.MBeanNameIndex;
 import com.purej.vminspect.data.statistics.StatisticsCollector;
 import com.purej.vminspect.http.RequestController;
 import com.purej.vminspect.http.servlet.DefaultMBeanAccessControlFactory;
@@ -26,15 +20,17 @@ import com.purej.vminspect.http.servlet.MBeanAccessControlFactory;
  * the VmInspectionServlet with one of the professional servlet-containers (Jetty, Tomcat, etc.)
  * <p/>
  * Beside the HTTP server socket, some more attributes can be configured when creating an instance of this class.
- * See the javadoc of the different constructors for details.
+ * See the javadoc of the different constructors for details. Connection limits, backlog and the worker pool
+ * can be tuned using a {@link VmInspectionServerConfig}, which also allows executing requests on virtual threads.
+ * <p/>
+ * A single listener thread accepts connections and reads requests using non-blocking NIO. Only complete
+ * requests are dispatched to the worker threads, so slow clients do not block the workers.
  *
  * @author Stefan Mueller
  */
 public final class VmInspectionServer {
-  private static final Logger LOGGER = LoggerFactory.getLogger(VmInspectionServer.class);
-  private final ExecutorService executor;
-  private final ServerSocket serverSocket;
-  private final Thread listener;
+  private final WorkerPool executor;
+  private final HttpListener listener;
   private final StatisticsCollector collector;
   private final RequestController controller;
 
@@ -74,41 +70,72 @@ public final class VmInspectionServer {
    */
   public VmInspectionServer(MBeanAccessControlFactory mBeanAccessControlFactory, int statisticsCollectionFrequencyMs, String statisticsStorageDir, int port)
       throws IOException {
-    // Create the executor to handle request:
-    executor = Executors.newFixedThreadPool(3, new ThreadFactory() {
-      @Override
-      public Thread newThread(Runnable target) {
-        return new Thread(target, "VmInspect-Request-Executor");
-      }
-    });
-
-    // Open the server-socket:
-    serverSocket = new ServerSocket(port, 10);
+    this(mBeanAccessControlFactory, statisticsCollectionFrequencyMs, statisticsStorageDir, port, new VmInspectionServerConfig());
+  }
 
-    // Create the listener thread:
-    listener = new Thread("VmInspect-Http-Listener") {
-      @Override
-      public void run() {
-        while (!serverSocket.isClosed()) {
-          try {
-            Socket socket = serverSocket.accept();
-            executor.execute(new RequestExecutor(socket, controller));
-          }
-          catch (Exception e) {
-            if (serverSocket.isClosed()) {
-              break;
-            }
-            LOGGER.error("An error occurred accepting incomming HTTP connection!", e);
-          }
-        }
-      }
-    };
-    listener.setDaemon(true);
+  /**
+   * Creates a new instance of this very basic HTTP server. See the class javadoc for further argument details.
+   *
+   * @param mBeanAccessControlFactory defines fine-grained access control to MBeans
+   * @param statisticsCollectionFrequencyMs the statistics collection frequency in milliseconds (60'000 recommended)
+   * @param statisticsStorageDir the optional statistics storage directory
+   * @param port the port where the server-socket listens for incoming HTTP requests, 0 for any free port
+   * @param config the server tuning configuration
+   * @throws IOException if the server socket could not be bound to the given port
+   */
+  public VmInspectionServer(MBeanAccessControlFactory mBeanAccessControlFactory, int statisticsCollectionFrequencyMs, String statisticsStorageDir, int port,
+      VmInspectionServerConfig config) throws IOException {
+    // Create the executor to handle complete requests:
+    executor = new WorkerPool(config);
 
-    // Get or create collector, create controller and startup:
-    collector = StatisticsCollector.init(statisticsStorageDir, statisticsCollectionFrequencyMs, this);
+    // Get or create collector, create controller and open the server-socket:
+    collector = StatisticsCollector.init(statisticsStorageDir, statisticsCollectionFrequencyMs, config.getStatisticsConfig(), this);
+    MBeanNameIndex.init(this);
     controller = new RequestController(mBeanAccessControlFactory, collector);
-    listener.start();
+    controller.setMBeanAttributeTimeoutMillis(config.getMBeanAttributeTimeoutMs());
+    try {
+      listener = new HttpListener(port, config, executor, controller);
+    }
+    catch (IOException e) {
+      StatisticsCollector.destroy(this);
+      MBeanNameIndex.destroy(this);
+      executor.shutdown();
+      throw e;
+    }
+
+    // Create and start the listener thread:
+    var listenerThread = new Thread(listener, "VmInspect-Http-Listener");
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+  }
+
+  /**
+   * Returns the local port the server socket is bound to.
+   */
+  public int getPort() {
+    return listener.getPort();
+  }
+
+  /**
+   * Returns if the requests are executed on virtual threads. This is only the case if configured
+   * and supported by the runtime.
+   */
+  public boolean isVirtualThreads() {
+    return executor.isVirtualThreads();
+  }
+
+  /**
+   * Returns the number of requests currently executed.
+   */
+  public int getActiveRequests() {
+    return executor.getActiveRequests();
+  }
+
+  /**
+   * Returns the number of complete requests waiting to be executed.
+   */
+  public int getQueuedRequests() {
+    return executor.getQueuedRequests();
   }
 
   /**
@@ -118,12 +145,8 @@ public final class VmInspectionServer {
    */
   public void shutdown() {
     StatisticsCollector.destroy(this);
-    try {
-      serverSocket.close();
-    }
-    catch (Exception e) {
-      // Ignored...
-    }
+    MBeanNameIndex.destroy(this);
+    listener.close();
     executor.shutdown();
   }
 }
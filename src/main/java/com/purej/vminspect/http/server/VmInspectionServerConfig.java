@@ -0,0 +1,168 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import com.purej.vminspect.data.statistics.StatisticsConfig;
+
+/**
+ * Holds the tuning parameters of the standalone {@link VmInspectionServer}. A new instance contains
+ * reasonable default values, so only the values that differ have to be set.
+ *
+ * @author Stefan Mueller
+ */
+public final class VmInspectionServerConfig {
+  private int backlog = 50;
+  private int maxConnections = 100;
+  private int workerThreads = 3;
+  private int workerQueueSize = 100;
+  private int keepAliveTimeoutMs = 15000;
+  private int maxKeepAliveRequests = 100;
+  private boolean virtualThreads;
+  private int mbeanAttributeTimeoutMs = 2000;
+  private StatisticsConfig statisticsConfig = new StatisticsConfig();
+
+  /**
+   * Returns the maximum number of pending connections in the server-socket backlog (default: 50).
+   */
+  public int getBacklog() {
+    return backlog;
+  }
+
+  /**
+   * Sets the maximum number of pending connections in the server-socket backlog.
+   */
+  public void setBacklog(int backlog) {
+    this.backlog = checkPositive(backlog, "backlog");
+  }
+
+  /**
+   * Returns the maximum number of concurrently open client connections (default: 100).
+   * If reached, no more connections are accepted until an open connection gets closed.
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Sets the maximum number of concurrently open client connections.
+   */
+  public void setMaxConnections(int maxConnections) {
+    this.maxConnections = checkPositive(maxConnections, "maxConnections");
+  }
+
+  /**
+   * Returns the number of worker threads that execute the requests (default: 3).
+   * Not used if the requests are executed on virtual threads.
+   */
+  public int getWorkerThreads() {
+    return workerThreads;
+  }
+
+  /**
+   * Sets the number of worker threads that execute the requests.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    this.workerThreads = checkPositive(workerThreads, "workerThreads");
+  }
+
+  /**
+   * Returns the maximum number of complete requests waiting for a worker thread (default: 100).
+   * If exceeded, requests are answered with 503 Service Unavailable.
+   */
+  public int getWorkerQueueSize() {
+    return workerQueueSize;
+  }
+
+  /**
+   * Sets the maximum number of complete requests waiting for a worker thread.
+   */
+  public void setWorkerQueueSize(int workerQueueSize) {
+    this.workerQueueSize = checkPositive(workerQueueSize, "workerQueueSize");
+  }
+
+  /**
+   * Returns the number of milliseconds an idle connection is kept open waiting for the next request (default: 15'000ms).
+   * The same timeout applies to clients sending incomplete requests.
+   */
+  public int getKeepAliveTimeoutMs() {
+    return keepAliveTimeoutMs;
+  }
+
+  /**
+   * Sets the number of milliseconds an idle connection is kept open waiting for the next request.
+   */
+  public void setKeepAliveTimeoutMs(int keepAliveTimeoutMs) {
+    this.keepAliveTimeoutMs = checkPositive(keepAliveTimeoutMs, "keepAliveTimeoutMs");
+  }
+
+  /**
+   * Returns the maximum number of requests served over a single persistent connection (default: 100).
+   * A value of 1 disables persistent connections.
+   */
+  public int getMaxKeepAliveRequests() {
+    return maxKeepAliveRequests;
+  }
+
+  /**
+   * Sets the maximum number of requests served over a single persistent connection.
+   */
+  public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+    this.maxKeepAliveRequests = checkPositive(maxKeepAliveRequests, "maxKeepAliveRequests");
+  }
+
+  /**
+   * Returns if each request should be executed on its own virtual thread (default: false). Requires Java 21
+   * or higher at runtime, otherwise the bounded pool of worker threads is used.
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Sets if each request should be executed on its own virtual thread if supported by the runtime.
+   */
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Returns the number of milliseconds to wait for each attribute value of the MBean page (default: 2'000ms), 0 if the values
+   * are read sequentially without timeout. Values not read in time are loaded asynchronously by the browser.
+   */
+  public int getMBeanAttributeTimeoutMs() {
+    return mbeanAttributeTimeoutMs;
+  }
+
+  /**
+   * Sets the number of milliseconds to wait for each attribute value of the MBean page, 0 to read sequentially without timeout.
+   */
+  public void setMBeanAttributeTimeoutMs(int mbeanAttributeTimeoutMs) {
+    if (mbeanAttributeTimeoutMs < 0) {
+      throw new IllegalArgumentException("Value of 'mbeanAttributeTimeoutMs' must not be negative!");
+    }
+    this.mbeanAttributeTimeoutMs = mbeanAttributeTimeoutMs;
+  }
+
+  /**
+   * Returns the tuning configuration of the statistics collector.
+   */
+  public StatisticsConfig getStatisticsConfig() {
+    return statisticsConfig;
+  }
+
+  /**
+   * Sets the tuning configuration of the statistics collector.
+   */
+  public void setStatisticsConfig(StatisticsConfig statisticsConfig) {
+    if (statisticsConfig == null) {
+      throw new IllegalArgumentException("Value of 'statisticsConfig' must not be null!");
+    }
+    this.statisticsConfig = statisticsConfig;
+  }
+
+  private static int checkPositive(int value, String name) {
+    if (value <= 0) {
+      throw new IllegalArgumentException("Value of '" + name + "' must be greater than 0!");
+    }
+    return value;
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the {@link RequestExecutor} instances of the {@link VmInspectionServer}, either on a bounded
+ * pool of platform threads or on one virtual thread per request if configured and supported by the runtime.
+ * <p/>
+ * Note: Virtual threads require Java 21 or higher, they are created using reflection as this library is compiled
+ * for Java 17. The number of requests in flight is bounded by the maximum number of connections in both modes,
+ * as each connection executes at most one request at a time.
+ *
+ * @author Stefan Mueller
+ */
+final class WorkerPool implements Executor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VmInspectionServer.class);
+  private static final String THREAD_NAME = "VmInspect-Request-Executor-";
+
+  private final ExecutorService executor;
+  private final boolean virtualThreads;
+  private final AtomicInteger queuedRequests = new AtomicInteger();
+  private final AtomicInteger activeRequests = new AtomicInteger();
+
+  /**
+   * Creates a new instance of this class.
+   */
+  WorkerPool(VmInspectionServerConfig config) {
+    var virtualExecutor = config.isVirtualThreads() ? createVirtualThreadExecutor() : null;
+    if (virtualExecutor != null) {
+      executor = virtualExecutor;
+      virtualThreads = true;
+    }
+    else {
+      var threadCount = new AtomicInteger();
+      executor = new ThreadPoolExecutor(config.getWorkerThreads(), config.getWorkerThreads(), 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<Runnable>(config.getWorkerQueueSize()), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable target) {
+              return new Thread(target, THREAD_NAME + threadCount.incrementAndGet());
+            }
+          });
+      virtualThreads = false;
+    }
+  }
+
+  private static ExecutorService createVirtualThreadExecutor() {
+    try {
+      // Same as Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(THREAD_NAME, 1).factory()):
+      var builderClz = Class.forName("java.lang.Thread$Builder");
+      var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClz.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME, 1L);
+      var factory = (ThreadFactory) builderClz.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+    }
+    catch (Exception e) {
+      LOGGER.info("Virtual threads not supported by this runtime, using platform threads to execute requests");
+      return null;
+    }
+  }
+
+  /**
+   * Returns if the requests are executed on virtual threads.
+   */
+  boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Returns the number of requests currently executed.
+   */
+  int getActiveRequests() {
+    return activeRequests.get();
+  }
+
+  /**
+   * Returns the number of complete requests waiting to be executed.
+   */
+  int getQueuedRequests() {
+    return queuedRequests.get();
+  }
+
+  /**
+   * Executes the given request task.
+   *
+   * @throws RejectedExecutionException if the request queue is full or the pool is shut down
+   */
+  @Override
+  public void execute(Runnable task) {
+    queuedRequests.incrementAndGet();
+    try {
+      executor.execute(() -> {
+        queuedRequests.decrementAndGet();
+        activeRequests.incrementAndGet();
+        try {
+          task.run();
+        }
+        finally {
+          activeRequests.decrementAndGet();
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {
+      queuedRequests.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * Initiates an orderly shutdown, already submitted requests will be executed.
+   */
+  void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -3,6 +3,9 @@ package com.purej.vminspect.http.servlet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.core.env.Environment;
+import com.purej.vminspect.data.statistics.OverrunPolicy;
+import com.purej.vminspect.data.statistics.StatisticsConfig;
+import com.purej.vminspect.data.statistics.SyncPolicy;
 import com.purej.vminspect.http.MBeanAccessControl;
 import jakarta.annotation.PostConstruct;
 
@@ -36,9 +39,21 @@ public class VmInspectRegistrationBean extends ServletRegistrationBean<VmInspect
       var mbeansReadonly = env.getProperty("vminspect.mbeans.readonly", Boolean.class, false);
       var mbeansWriteConfirmation = env.getProperty("vminspect.mbeans.write-confirmation", Boolean.class, false);
       var accessControlFactoryClz = env.getProperty("vminspect.mbeans.access-control-factory");
+      getServlet().setMBeanAttributeTimeoutMillis(env.getProperty("vminspect.mbeans.attribute-timeout-ms", Integer.class, 2000));
       var collectionFrequency = env.getProperty("vminspect.statistics.collection.frequency-ms", Integer.class, 60000);
       var storageDir = env.getProperty("vminspect.statistics.storage.dir");
-      getServlet().init(accessControlFactoryClz, defaultDomainFilter, mbeansReadonly, mbeansWriteConfirmation, collectionFrequency, storageDir);
+      var statisticsConfig = new StatisticsConfig();
+      statisticsConfig.setOverrunPolicy(OverrunPolicy.valueOf(env.getProperty("vminspect.statistics.collection.overrun-policy", "skip").toUpperCase()));
+      statisticsConfig.setCollectionThreads(env.getProperty("vminspect.statistics.collection.threads", Integer.class, 2));
+      statisticsConfig.setCollectionTimeoutMillis(env.getProperty("vminspect.statistics.collection.timeout-ms", Integer.class, 5000));
+      statisticsConfig.setHighResolutionMillis(env.getProperty("vminspect.statistics.collection.high-resolution-ms", Integer.class, 0));
+      statisticsConfig.setBatchedStorage(env.getProperty("vminspect.statistics.storage.batched", Boolean.class, false));
+      statisticsConfig.setOldFilesRetentionDays(env.getProperty("vminspect.statistics.storage.old-files-retention-days", Integer.class, 30));
+      statisticsConfig.setMappedStorage(env.getProperty("vminspect.statistics.storage.mapped", Boolean.class, false));
+      statisticsConfig.setSyncPolicy(SyncPolicy.valueOf(env.getProperty("vminspect.statistics.storage.sync-policy", "always").toUpperCase()));
+      statisticsConfig.setSyncInterval(env.getProperty("vminspect.statistics.storage.sync-interval", Integer.class, 1));
+      getServlet().init(accessControlFactoryClz, defaultDomainFilter, mbeansReadonly, mbeansWriteConfirmation, collectionFrequency, storageDir,
+          statisticsConfig);
     }
   }
 
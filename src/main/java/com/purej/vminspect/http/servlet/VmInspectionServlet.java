@@ -4,7 +4,12 @@ package com.purej.vminspect.http.servlet;
 import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.purej.vminspect.data.MBeanNameIndex;
+import com.purej.vminspect.data.statistics.OverrunPolicy;
 import com.purej.vminspect.data.statistics.StatisticsCollector;
+import com.purej.vminspect.data.statistics.StatisticsConfig;
+import com.purej.vminspect.data.statistics.SyncPolicy;
+import com.purej.vminspect.http.HttpCompression;
 import com.purej.vminspect.http.HttpRequest;
 import com.purej.vminspect.http.HttpResponse;
 import com.purej.vminspect.http.MBeanAccessControl;
@@ -24,9 +29,22 @@ import jakarta.servlet.http.HttpServletResponse;
  * <li>vminspect.mbeans.readonly: true/false, specifies if VmInspect is allowed to edit MBean values or invoke non-info operations (default: false)</li>
  * <li>vminspect.mbeans.writeConfirmation: true/false, specifies if a confirmation screen is displayed before edit MBean attributes or invoke MBean operations</li>
  * <li>vminspect.mbeans.accessControlFactory: fully qualified class name of an implementation of the {@link MBeanAccessControlFactory} interface</li>
+ * <li>vminspect.mbeans.attributeTimeoutMs: Number of milliseconds to wait for each attribute value of the MBean page, values not read in time
+ * are loaded asynchronously, 0 to read sequentially without timeout (default: 2'000ms)</li>
  * <li>vminspect.statistics.collection.frequencyMs: Number of milliseconds for the statistics collection timer (default: 60'000ms)</li>
+ * <li>vminspect.statistics.collection.overrunPolicy: catch_up/skip, specifies what happens with collections missed by a slow collection
+ * (default: skip)</li>
+ * <li>vminspect.statistics.collection.threads: Number of threads that collect the statistics values in parallel (default: 2)</li>
+ * <li>vminspect.statistics.collection.timeoutMs: Number of milliseconds to wait for the statistics values of a collection (default: 5'000ms)</li>
+ * <li>vminspect.statistics.collection.highResolutionMs: Number of milliseconds between two in-memory values of the last 5 minutes, 100 to
+ * 1'000ms or 0 to disable (default: 0)</li>
  * <li>vminspect.statistics.storage.dir: Optional Path where to store the statistics files (default: no storage directory). If no storage
  * directory is configured, the statistics will be kept in-memory and thus will be lost after a VM restart.</li>
+ * <li>vminspect.statistics.storage.batched: true/false, specifies if all statistics are stored in a single file (default: false)</li>
+ * <li>vminspect.statistics.storage.mapped: true/false, specifies if the statistics files are memory-mapped (default: false)</li>
+ * <li>vminspect.statistics.storage.oldFilesRetentionDays: Number of days to keep old statistics files, 0 to keep forever (default: 30)</li>
+ * <li>vminspect.statistics.storage.syncPolicy: always/ticks/seconds/shutdown, specifies when the statistics files are synced (default: always)</li>
+ * <li>vminspect.statistics.storage.syncInterval: Number of collections or seconds between two syncs for the ticks/seconds sync policy (default: 1)</li>
  * </ul>
  *
  * @author Stefan Mueller
@@ -38,6 +56,7 @@ public class VmInspectionServlet extends HttpServlet {
   // Members that get set in the init method:
   private StatisticsCollector collector;
   private RequestController controller;
+  private int mbeanAttributeTimeoutMillis = 2000;
 
   /**
    * Returns if this servlet is already initalized.
@@ -57,10 +76,45 @@ public class VmInspectionServlet extends HttpServlet {
       var mbeansReadonly = Boolean.parseBoolean(getServletConfig().getInitParameter("vminspect.mbeans.readonly"));
       var mbeansWriteConfirmation = Boolean.parseBoolean(getServletConfig().getInitParameter("vminspect.mbeans.writeConfirmation"));
       var accessControlFactoryClz = getServletConfig().getInitParameter("vminspect.mbeans.accessControlFactory");
+      var attributeTimeout = getServletConfig().getInitParameter("vminspect.mbeans.attributeTimeoutMs");
+      if (attributeTimeout != null) {
+        setMBeanAttributeTimeoutMillis(Integer.parseInt(attributeTimeout));
+      }
       var collectionFrequency = getServletConfig().getInitParameter("vminspect.statistics.collection.frequencyMs");
       var storageDir = getServletConfig().getInitParameter("vminspect.statistics.storage.dir");
+      var statisticsConfig = new StatisticsConfig();
+      var overrunPolicy = getServletConfig().getInitParameter("vminspect.statistics.collection.overrunPolicy");
+      if (overrunPolicy != null) {
+        statisticsConfig.setOverrunPolicy(OverrunPolicy.valueOf(overrunPolicy.toUpperCase()));
+      }
+      var collectionThreads = getServletConfig().getInitParameter("vminspect.statistics.collection.threads");
+      if (collectionThreads != null) {
+        statisticsConfig.setCollectionThreads(Integer.parseInt(collectionThreads));
+      }
+      var collectionTimeout = getServletConfig().getInitParameter("vminspect.statistics.collection.timeoutMs");
+      if (collectionTimeout != null) {
+        statisticsConfig.setCollectionTimeoutMillis(Integer.parseInt(collectionTimeout));
+      }
+      var highResolution = getServletConfig().getInitParameter("vminspect.statistics.collection.highResolutionMs");
+      if (highResolution != null) {
+        statisticsConfig.setHighResolutionMillis(Integer.parseInt(highResolution));
+      }
+      statisticsConfig.setBatchedStorage(Boolean.parseBoolean(getServletConfig().getInitParameter("vminspect.statistics.storage.batched")));
+      statisticsConfig.setMappedStorage(Boolean.parseBoolean(getServletConfig().getInitParameter("vminspect.statistics.storage.mapped")));
+      var syncPolicy = getServletConfig().getInitParameter("vminspect.statistics.storage.syncPolicy");
+      if (syncPolicy != null) {
+        statisticsConfig.setSyncPolicy(SyncPolicy.valueOf(syncPolicy.toUpperCase()));
+      }
+      var retentionDays = getServletConfig().getInitParameter("vminspect.statistics.storage.oldFilesRetentionDays");
+      if (retentionDays != null) {
+        statisticsConfig.setOldFilesRetentionDays(Integer.parseInt(retentionDays));
+      }
+      var syncInterval = getServletConfig().getInitParameter("vminspect.statistics.storage.syncInterval");
+      if (syncInterval != null) {
+        statisticsConfig.setSyncInterval(Integer.parseInt(syncInterval));
+      }
       init(accessControlFactoryClz, defaultDomainFilter, mbeansReadonly, mbeansWriteConfirmation,
-          collectionFrequency != null ? Integer.parseInt(collectionFrequency) : 60000, storageDir);
+          collectionFrequency != null ? Integer.parseInt(collectionFrequency) : 60000, storageDir, statisticsConfig);
     }
   }
 
@@ -77,6 +131,24 @@ public class VmInspectionServlet extends HttpServlet {
    */
   public void init(String mbeanAccessControlFactoryClz, String defaultDomainFilter, boolean mbeansReadonly, boolean mbeansWriteConfirmation, int statisticsCollectionFrequencyMs,
       String statisticsStorageDir) {
+    init(mbeanAccessControlFactoryClz, defaultDomainFilter, mbeansReadonly, mbeansWriteConfirmation, statisticsCollectionFrequencyMs, statisticsStorageDir,
+        new StatisticsConfig());
+  }
+
+  /**
+   * Initializes this VM inspection instance programmatically.
+   * Note: Initialize can only be called once for this instance!
+   *
+   * @param mbeanAccessControlFactoryClz the optional {@link MBeanAccessControl} class, if null a default instance will be used
+   * @param defaultDomainFilter the default MBean domain filter if no cookie value is found
+   * @param mbeansReadonly if MBeans should be readonly
+   * @param mbeansWriteConfirmation if MBean operation calls need a confirmation
+   * @param statisticsCollectionFrequencyMs the statistics collection frequency in milliseconds (60'000 recommended)
+   * @param statisticsStorageDir the optional statistics storage directory
+   * @param statisticsConfig the statistics tuning configuration
+   */
+  public void init(String mbeanAccessControlFactoryClz, String defaultDomainFilter, boolean mbeansReadonly, boolean mbeansWriteConfirmation, int statisticsCollectionFrequencyMs,
+      String statisticsStorageDir, StatisticsConfig statisticsConfig) {
     // Create the correct MBeanAccessControlFactory instance (custom or default):
     MBeanAccessControlFactory accessControlFactory;
     if (mbeanAccessControlFactoryClz != null) {
@@ -88,7 +160,7 @@ public class VmInspectionServlet extends HttpServlet {
     } else {
       accessControlFactory = new DefaultMBeanAccessControlFactory(defaultDomainFilter, mbeansReadonly, mbeansWriteConfirmation);
     }
-    init(accessControlFactory, statisticsCollectionFrequencyMs, statisticsStorageDir);
+    init(accessControlFactory, statisticsCollectionFrequencyMs, statisticsStorageDir, statisticsConfig);
   }
 
   /**
@@ -100,6 +172,20 @@ public class VmInspectionServlet extends HttpServlet {
    * @param statisticsStorageDir the optional statistics storage directory
    */
   public void init(MBeanAccessControlFactory mbeanAccessControlFactory, int statisticsCollectionFrequencyMs, String statisticsStorageDir) {
+    init(mbeanAccessControlFactory, statisticsCollectionFrequencyMs, statisticsStorageDir, new StatisticsConfig());
+  }
+
+  /**
+   * Initializes this VM inspection instance programmatically.
+   * Note: Initialize can only be called once for this instance!
+   *
+   * @param mbeanAccessControlFactory the factory to create {@link MBeanAccessControl} instances for fine-grained MBeans access control
+   * @param statisticsCollectionFrequencyMs the statistics collection frequency in milliseconds (60'000 recommended)
+   * @param statisticsStorageDir the optional statistics storage directory
+   * @param statisticsConfig the statistics tuning configuration
+   */
+  public void init(MBeanAccessControlFactory mbeanAccessControlFactory, int statisticsCollectionFrequencyMs, String statisticsStorageDir,
+      StatisticsConfig statisticsConfig) {
     if (isInitialized()) {
       throw new IllegalStateException("This instance is already initialized, cannot initialize twice!");
     }
@@ -107,13 +193,27 @@ public class VmInspectionServlet extends HttpServlet {
       throw new IllegalArgumentException("MBeanAccessControlFactory is null!");
     }
     // Get or create collector, create controller:
-    collector = StatisticsCollector.init(statisticsStorageDir, statisticsCollectionFrequencyMs, this);
+    collector = StatisticsCollector.init(statisticsStorageDir, statisticsCollectionFrequencyMs, statisticsConfig, this);
+    MBeanNameIndex.init(this);
     controller = new RequestController(mbeanAccessControlFactory, collector);
+    controller.setMBeanAttributeTimeoutMillis(mbeanAttributeTimeoutMillis);
+  }
+
+  /**
+   * Sets the number of milliseconds to wait for each attribute value of the MBean page, 0 to read sequentially without timeout.
+   * Must be called before this instance gets initialized.
+   */
+  public void setMBeanAttributeTimeoutMillis(int mbeanAttributeTimeoutMillis) {
+    if (mbeanAttributeTimeoutMillis < 0) {
+      throw new IllegalArgumentException("Value of 'mbeanAttributeTimeoutMillis' must not be negative!");
+    }
+    this.mbeanAttributeTimeoutMillis = mbeanAttributeTimeoutMillis;
   }
 
   @Override
   public void destroy() {
     StatisticsCollector.destroy(this); // Makes sure the collector is destroyed if this was the last reference...
+    MBeanNameIndex.destroy(this); // Stops listening to the MBean servers if this was the last reference, recreated on next use
     collector = null;
     controller = null;
   }
@@ -133,27 +233,52 @@ public class VmInspectionServlet extends HttpServlet {
 
       // Now write the rendered output:
       try {
-        writeHttpResponse(httpResponse, request.getRequestURI(), response);
+        writeHttpResponse(httpRequest, httpResponse, request.getRequestURI(), response);
       } catch (IOException e) {
         // Might happen if the browser already cut the connection...
         LOGGER.debug("Exception writing the output to the response stream!", e);
       }
     } catch (Exception e) {
       LOGGER.warn("An error occurred processing request!", e);
+      if (response.isCommitted()) {
+        return; // Streaming response failed after the buffer was sent, too late for an error page
+      }
+      response.reset(); // Headers of a partially rendered streaming response
       var code = e instanceof SecurityException ? 401 : 500;
       response.sendError(code, Utils.getExceptionInfo(e));
     }
   }
 
-  private static void writeHttpResponse(HttpResponse httpResponse, String requestURI, HttpServletResponse response) throws IOException {
-    // Sanity check first:
-    var data = httpResponse.getContentBytes();
-    if (data == null || data.length == 0) {
+  private static void writeHttpResponse(HttpRequest httpRequest, HttpResponse httpResponse, String requestURI, HttpServletResponse response)
+      throws IOException {
+    // Sanity check first (streaming responses are rendered while writing):
+    var streaming = httpResponse.isStreaming();
+    var data = streaming ? null : httpResponse.getContentBytes();
+    if (!streaming && (data == null || data.length == 0)) {
       response.sendError(HttpServletResponse.SC_NOT_FOUND);
       return;
     }
 
-    // a) Cookies:
+    // a) Caching, send the headers only if the client has the current content already:
+    var gzip = HttpCompression.isGzip(httpRequest, httpResponse, data);
+    if (httpResponse.getCacheSeconds() > 0) {
+      response.addHeader("Cache-Control", "max-age=" + httpResponse.getCacheSeconds());
+    } else {
+      response.addHeader("Cache-Control", "no-cache");
+    }
+    var etag = httpResponse.getETag(gzip);
+    if (etag != null) {
+      response.setHeader("ETag", etag);
+    }
+    if (httpResponse.isCompressible()) {
+      response.addHeader("Vary", "Accept-Encoding");
+    }
+    if (httpResponse.isNotModified(httpRequest)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    // b) Cookies:
     for (var entry : httpResponse.getCookies().entrySet()) {
       var cookie = new Cookie(entry.getKey(), Utils.urlEncode(entry.getValue()));
       cookie.setMaxAge(30 * 24 * 60 * 60); // 30 days
@@ -161,15 +286,22 @@ public class VmInspectionServlet extends HttpServlet {
       response.addCookie(cookie);
     }
 
-    // b) Caching:
-    if (httpResponse.getCacheSeconds() > 0) {
-      response.addHeader("Cache-Control", "max-age=" + httpResponse.getCacheSeconds());
-    } else {
-      response.addHeader("Cache-Control", "no-cache");
-    }
-
-    // c) content type and length:
+    // c) content type, encoding and length (unknown for streaming responses, the container chooses the transfer encoding):
     response.setContentType(httpResponse.getContentType());
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    if (streaming) {
+      if (gzip) {
+        HttpCompression.writeGzipContent(httpResponse, response.getOutputStream());
+      } else {
+        httpResponse.writeContent(response.getOutputStream());
+      }
+      return;
+    }
+    if (gzip) {
+      data = httpResponse.getGzipContentBytes(data);
+    }
     response.setContentLength(data.length);
 
     // d) binary content:
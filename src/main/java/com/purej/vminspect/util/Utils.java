@@ -116,6 +116,27 @@ public final class Utils {
         .replace("\n", "<br/>");
   }
 
+  /**
+   * Encodes the given text to a quoted JSON string.
+   */
+  public static String jsonEncode(String txt) {
+    if (txt == null) {
+      return "null";
+    }
+    var builder = new StringBuilder(txt.length() + 2).append('"');
+    for (var i = 0; i < txt.length(); i++) {
+      var c = txt.charAt(i);
+      if (c == '"' || c == '\\') {
+        builder.append('\\').append(c);
+      } else if (c < 0x20) {
+        builder.append(String.format("\\u%04x", (int) c));
+      } else {
+        builder.append(c);
+      }
+    }
+    return builder.append('"').toString();
+  }
+
   /**
    * Compares the two given objects and handles null values for both of them.
    */
@@ -131,63 +152,9 @@ public final class Utils {
    * Returns if the given text matches the given search expression.
    * @param text the text to check
    * @param pattern the pattern to match with or without wildcards, for example 'x*y*z'
+   * @see WildCardMatcher
    */
   public static boolean wildCardMatch(String text, String pattern) {
-    if (pattern == null || pattern.length() == 0 || (pattern.length() == 1 && pattern.charAt(0) == '*')) {
-      return true;
-    }
-    if (text == null || text.length() == 0) {
-      return false;
-    }
-
-    int patternIdx = 0;
-    int txtIdx = 0;
-    var matchTag = new StringBuilder();
-    boolean isFirst = true;
-    while (true) {
-      matchTag.setLength(0);
-      patternIdx = nextMatchTag(pattern, patternIdx, matchTag);
-      if (matchTag.length() == 0) {
-        // Wildcard...
-        if (patternIdx == -1) {
-          return true;
-        }
-        isFirst = false;
-        continue;
-      }
-      var matchTagString = matchTag.toString();
-      if (isFirst && patternIdx == -1) {
-        // First pattern equals last pattern <> *, txt must be equals:
-        return text.equals(matchTagString);
-      } else if (isFirst) {
-        // First pattern part <> *, txt must start with matchTag:
-        if (!text.startsWith(matchTagString)) {
-          return false;
-        }
-        txtIdx = matchTag.length();
-      } else if (patternIdx == -1) {
-        // Last pattern part <> *, txt must end with matchTag:
-        return text.endsWith(matchTagString);
-      } else {
-        // Pattern in between, txt must contain it:
-        txtIdx = text.indexOf(matchTagString, txtIdx);
-        if (txtIdx == -1) {
-          return false;
-        }
-      }
-      isFirst = false;
-    }
-  }
-
-  private static int nextMatchTag(String pattern, int fromIdx, StringBuilder tag) {
-    for (var i = fromIdx; i < pattern.length(); i++) {
-      var c = pattern.charAt(i);
-      if (c == '*') {
-        return i + 1;
-      } else {
-        tag.append(c);
-      }
-    }
-    return -1;
+    return WildCardMatcher.compile(pattern).matches(text);
   }
 }
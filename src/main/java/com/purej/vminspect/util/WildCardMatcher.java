@@ -0,0 +1,108 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.util;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A wildcard pattern parsed once that matches texts without allocations, see {@link Utils#wildCardMatch(String, String)}.
+ * The matchers of a limited number of patterns are cached, a cached matcher is returned without locking.
+ *
+ * @author Stefan Mueller
+ */
+public final class WildCardMatcher {
+  private static final int CACHE_SIZE = 32;
+  private static final WildCardMatcher MATCH_ALL = new WildCardMatcher(null, new String[0], false, false);
+  private static final Map<String, WildCardMatcher> CACHE = new ConcurrentHashMap<>();
+
+  private final String pattern;
+  private final String[] parts; // The non-empty parts between the wildcards
+  private final boolean anchoredStart; // If the first part must be at the start of the text
+  private final boolean anchoredEnd; // If the last part must be at the end of the text
+
+  private WildCardMatcher(String pattern, String[] parts, boolean anchoredStart, boolean anchoredEnd) {
+    this.pattern = pattern;
+    this.parts = parts;
+    this.anchoredStart = anchoredStart;
+    this.anchoredEnd = anchoredEnd;
+  }
+
+  /**
+   * Returns the matcher for the given pattern with or without wildcards, for example 'x*y*z'. Null, empty or '*' match all texts.
+   */
+  public static WildCardMatcher compile(String pattern) {
+    if (pattern == null || pattern.length() == 0 || (pattern.length() == 1 && pattern.charAt(0) == '*')) {
+      return MATCH_ALL;
+    }
+    var matcher = CACHE.get(pattern);
+    if (matcher == null) {
+      if (CACHE.size() >= CACHE_SIZE) {
+        // Full, start over (parsing is cheap, concurrent misses might exceed the size a little):
+        CACHE.clear();
+      }
+      matcher = parse(pattern);
+      var existing = CACHE.putIfAbsent(pattern, matcher);
+      if (existing != null) {
+        return existing;
+      }
+    }
+    return matcher;
+  }
+
+  private static WildCardMatcher parse(String pattern) {
+    var parts = new ArrayList<String>();
+    var start = 0;
+    for (var i = 0; i <= pattern.length(); i++) {
+      if (i == pattern.length() || pattern.charAt(i) == '*') {
+        if (i > start) {
+          parts.add(pattern.substring(start, i));
+        }
+        start = i + 1;
+      }
+    }
+    return new WildCardMatcher(pattern, parts.toArray(new String[parts.size()]), pattern.charAt(0) != '*',
+        pattern.charAt(pattern.length() - 1) != '*');
+  }
+
+  /**
+   * Returns the pattern of this matcher, null if it matches all texts.
+   */
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+   * Returns if the given text matches the pattern of this matcher.
+   */
+  public boolean matches(String text) {
+    if (this == MATCH_ALL) {
+      return true;
+    }
+    if (text == null || text.length() == 0) {
+      return false;
+    }
+    var i = 0;
+    var txtIdx = 0;
+    if (anchoredStart) {
+      if (parts.length == 1 && anchoredEnd) {
+        return text.equals(parts[0]);
+      }
+      if (!text.startsWith(parts[0])) {
+        return false;
+      }
+      txtIdx = parts[0].length();
+      i = 1;
+    }
+    for (; i < parts.length; i++) {
+      if (i == parts.length - 1 && anchoredEnd) {
+        return text.endsWith(parts[i]);
+      }
+      txtIdx = text.indexOf(parts[i], txtIdx);
+      if (txtIdx == -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -1,6 +1,8 @@
 window.addEventListener('load', () => {
   registerShowHide();
   xsrfToForm();
+  registerStatsChart();
+  loadPendingValues();
 });
 
 // Register the show/hide links
@@ -32,6 +34,39 @@ function showHide(id) {
   }
 }
 
+// Loads the MBean attribute values that were not read within the timeout
+function loadPendingValues() {
+  if (!window.fetch) {
+    return;
+  }
+  for (const span of document.querySelectorAll('span[data-value]')) {
+    loadPendingValue(span);
+  }
+}
+
+// Replaces the placeholder by the value, polls again if still not read (at most 60 times, the server times out before)
+function loadPendingValue(span, polls = 1) {
+  fetch(span.getAttribute('data-value'))
+    .then(response => {
+      if (!response.ok) {
+        throw new Error('Loading value failed: ' + response.status);
+      }
+      return response.text();
+    })
+    .then(html => {
+      const template = document.createElement('template');
+      template.innerHTML = html;
+      const pending = template.content.querySelector('span[data-value]');
+      span.replaceWith(template.content);
+      if (pending && polls < 60) {
+        setTimeout(() => loadPendingValue(pending, polls + 1), 1000);
+      } else if (pending) {
+        pending.textContent = 'Timeout loading value';
+      }
+    })
+    .catch(error => span.textContent = error.message);
+}
+
 function xsrfToForm() {
   const cookie = getCookie('XSRF-TOKEN');
   if (cookie) {
@@ -47,6 +82,238 @@ function xsrfToForm() {
   }
 }
 
+// Draws the statistics values in the browser, zooming and panning without further server requests
+function registerStatsChart() {
+  const canvas = document.getElementById('statsChart');
+  if (!canvas) {
+    return;
+  }
+  if (!canvas.getContext || !window.fetch) {
+    statsChartFallback(canvas);
+    return;
+  }
+  fetch(canvas.getAttribute('data-values'))
+    .then(response => {
+      if (!response.ok) {
+        throw new Error('Loading values failed: ' + response.status);
+      }
+      return response.json();
+    })
+    .then(data => initStatsChart(canvas, data))
+    .catch(() => statsChartFallback(canvas));
+}
+
+function statsChartFallback(canvas) {
+  const img = document.createElement('img');
+  img.className = 'synthese';
+  img.alt = 'zoom';
+  img.src = canvas.getAttribute('data-fallback');
+  canvas.replaceWith(img);
+}
+
+function initStatsChart(canvas, data) {
+  const values = data.values;
+  const chart = {canvas: canvas, data: data, minTs: 0, maxTs: 0, from: 0, to: 0};
+  if (values.length > 0) {
+    chart.minTs = values[0][0];
+    chart.maxTs = values[values.length - 1][0];
+  }
+  chart.minSpan = Math.max(data.stepSeconds * 1000 * 4, 1);
+  chart.from = chart.minTs;
+  chart.to = chart.maxTs;
+  const draw = () => drawStatsChart(chart);
+
+  canvas.addEventListener('wheel', event => {
+    event.preventDefault();
+    zoomStatsChart(chart, event.deltaY > 0 ? 1.25 : 0.8, statsChartFraction(canvas, event.offsetX));
+    draw();
+  }, {passive: false});
+  canvas.addEventListener('dblclick', () => {
+    chart.from = chart.minTs;
+    chart.to = chart.maxTs;
+    draw();
+  });
+  let dragX = null;
+  canvas.addEventListener('mousedown', event => {
+    dragX = event.offsetX;
+  });
+  canvas.addEventListener('mousemove', event => {
+    if (dragX !== null) {
+      const plotWidth = canvas.width - STATS_CHART_MARGIN.left - STATS_CHART_MARGIN.right;
+      panStatsChart(chart, (dragX - event.offsetX) * (chart.to - chart.from) / plotWidth);
+      dragX = event.offsetX;
+      draw();
+    }
+  });
+  canvas.addEventListener('mouseup', () => dragX = null);
+  canvas.addEventListener('mouseleave', () => dragX = null);
+  for (const button of document.querySelectorAll('[chartZoom]')) {
+    const factor = parseFloat(button.getAttribute('chartZoom'));
+    button.addEventListener('click', () => {
+      if (factor > 0) {
+        zoomStatsChart(chart, factor, 0.5);
+      } else {
+        chart.from = chart.minTs;
+        chart.to = chart.maxTs;
+      }
+      draw();
+    });
+  }
+  draw();
+}
+
+const STATS_CHART_MARGIN = {left: 70, right: 20, top: 30, bottom: 40};
+
+function statsChartFraction(canvas, x) {
+  const plotWidth = canvas.width - STATS_CHART_MARGIN.left - STATS_CHART_MARGIN.right;
+  return Math.min(Math.max((x - STATS_CHART_MARGIN.left) / plotWidth, 0), 1);
+}
+
+function zoomStatsChart(chart, factor, fraction) {
+  const span = chart.to - chart.from;
+  const newSpan = Math.min(Math.max(span * factor, chart.minSpan), chart.maxTs - chart.minTs);
+  const center = chart.from + span * fraction;
+  chart.from = center - newSpan * fraction;
+  chart.to = chart.from + newSpan;
+  panStatsChart(chart, 0);
+}
+
+function panStatsChart(chart, delta) {
+  const span = chart.to - chart.from;
+  chart.from = Math.min(Math.max(chart.from + delta, chart.minTs), chart.maxTs - span);
+  chart.to = chart.from + span;
+}
+
+function drawStatsChart(chart) {
+  const canvas = chart.canvas;
+  const ctx = canvas.getContext('2d');
+  const m = STATS_CHART_MARGIN;
+  const width = canvas.width - m.left - m.right;
+  const height = canvas.height - m.top - m.bottom;
+  ctx.clearRect(0, 0, canvas.width, canvas.height);
+  ctx.fillStyle = '#ffffff';
+  ctx.fillRect(0, 0, canvas.width, canvas.height);
+  ctx.font = '10px Helvetica, Arial, sans-serif';
+  ctx.fillStyle = '#000000';
+  ctx.textAlign = 'center';
+  ctx.fillText(chart.data.label + (chart.data.unit ? ' (' + chart.data.unit + ')' : ''), canvas.width / 2, 15);
+
+  // Visible values including one neighbour on each side, so lines run to the borders:
+  const values = chart.data.values;
+  let first = 0;
+  while (first < values.length - 1 && values[first + 1][0] < chart.from) {
+    first++;
+  }
+  let last = values.length - 1;
+  while (last > 0 && values[last - 1][0] > chart.to) {
+    last--;
+  }
+  const visible = values.slice(first, last + 1);
+  let yMax = 0;
+  for (const v of visible) {
+    yMax = Math.max(yMax, v[1] || 0, v[2] || 0);
+  }
+  const yStep = statsChartStep(yMax > 0 ? yMax : 1);
+  yMax = Math.ceil((yMax > 0 ? yMax : 1) / yStep) * yStep;
+  const span = Math.max(chart.to - chart.from, 1);
+  const x = ts => m.left + (ts - chart.from) * width / span;
+  const y = value => m.top + height - value * height / yMax;
+
+  // Grid and axis labels:
+  ctx.strokeStyle = '#dddddd';
+  ctx.textAlign = 'right';
+  for (let value = 0; value <= yMax; value += yStep) {
+    ctx.beginPath();
+    ctx.moveTo(m.left, y(value));
+    ctx.lineTo(m.left + width, y(value));
+    ctx.stroke();
+    ctx.fillText(statsChartNumber(value), m.left - 5, y(value) + 3);
+  }
+  ctx.textAlign = 'center';
+  for (let i = 0; i <= 4; i++) {
+    const ts = chart.from + span * i / 4;
+    ctx.beginPath();
+    ctx.moveTo(x(ts), m.top);
+    ctx.lineTo(x(ts), m.top + height);
+    ctx.stroke();
+    statsChartDate(ts, span).forEach((line, idx) => ctx.fillText(line, x(ts), m.top + height + 14 + idx * 12));
+  }
+
+  // Average as area and max as line, unknown values interrupt both:
+  ctx.save();
+  ctx.beginPath();
+  ctx.rect(m.left, m.top, width, height);
+  ctx.clip();
+  const gradient = ctx.createLinearGradient(0, m.top, 0, m.top + height);
+  gradient.addColorStop(0, '#ff0000');
+  gradient.addColorStop(1, '#00ff00');
+  ctx.fillStyle = gradient;
+  statsChartSegments(visible, 1).forEach(segment => {
+    ctx.beginPath();
+    ctx.moveTo(x(segment[0][0]), y(0));
+    segment.forEach(v => ctx.lineTo(x(v[0]), y(v[1])));
+    ctx.lineTo(x(segment[segment.length - 1][0]), y(0));
+    ctx.closePath();
+    ctx.fill();
+  });
+  ctx.strokeStyle = '#0000ff';
+  statsChartSegments(visible, 2).forEach(segment => {
+    ctx.beginPath();
+    segment.forEach((v, idx) => idx === 0 ? ctx.moveTo(x(v[0]), y(v[2])) : ctx.lineTo(x(v[0]), y(v[2])));
+    ctx.stroke();
+  });
+  ctx.restore();
+  ctx.strokeStyle = '#000000';
+  ctx.strokeRect(m.left, m.top, width, height);
+}
+
+function statsChartSegments(values, idx) {
+  const segments = [];
+  let segment = [];
+  for (const v of values) {
+    if (v[idx] === null) {
+      if (segment.length > 0) {
+        segments.push(segment);
+      }
+      segment = [];
+    } else {
+      segment.push(v);
+    }
+  }
+  if (segment.length > 0) {
+    segments.push(segment);
+  }
+  return segments;
+}
+
+function statsChartStep(max) {
+  const raw = max / 5;
+  const magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+  const normalized = raw / magnitude;
+  return (normalized <= 1 ? 1 : normalized <= 2 ? 2 : normalized <= 5 ? 5 : 10) * magnitude;
+}
+
+function statsChartNumber(value) {
+  const units = [[1e9, 'G'], [1e6, 'M'], [1e3, 'k']];
+  for (const unit of units) {
+    if (Math.abs(value) >= unit[0]) {
+      return parseFloat((value / unit[0]).toFixed(2)) + ' ' + unit[1];
+    }
+  }
+  return String(parseFloat(value.toFixed(2)));
+}
+
+function statsChartDate(ts, span) {
+  const date = new Date(ts);
+  const pad = nr => String(nr).padStart(2, '0');
+  const time = pad(date.getHours()) + ':' + pad(date.getMinutes());
+  const day = pad(date.getDate()) + '.' + pad(date.getMonth() + 1) + '.' + date.getFullYear();
+  if (span < 60 * 60 * 1000) {
+    return [time + ':' + pad(date.getSeconds())];
+  }
+  return span < 24 * 60 * 60 * 1000 ? [time] : [day, time];
+}
+
 function getCookie(name) {
   const value = `; ${document.cookie}`;
   const parts = value.split(`; ${name}=`);
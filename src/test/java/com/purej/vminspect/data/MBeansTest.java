@@ -4,8 +4,15 @@ package com.purej.vminspect.data;
 import java.lang.management.ManagementFactory;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanException;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.StandardMBean;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -47,6 +54,147 @@ public class MBeansTest {
     }
   }
 
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testMBeanNameIndex() throws Exception {
+    List<MBeanName> names = MBeanUtils.getMBeanNames();
+    Assertions.assertSame(names, MBeanUtils.getMBeanNames()); // Unchanged snapshot
+    Assertions.assertEquals(ManagementFactory.getPlatformMBeanServer().getMBeanCount().intValue(), names.size());
+    for (int i = 1; i < names.size(); i++) {
+      Assertions.assertTrue(new MBeanNameComparator().compare(names.get(i - 1), names.get(i)) <= 0);
+    }
+
+    // Registrations are added and unregistrations removed without a new query:
+    ObjectName name = new ObjectName("purej.vminspect:type=MyIndexSample,name=test");
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new MySample(false), name);
+    try {
+      List<MBeanName> registered = MBeanUtils.getMBeanNames();
+      Assertions.assertEquals(names.size() + 1, registered.size());
+      Assertions.assertTrue(registered.stream().anyMatch(n -> n.getObjectName().equals(name)));
+      Assertions.assertFalse(names.stream().anyMatch(n -> n.getObjectName().equals(name)));
+    }
+    finally {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+    Assertions.assertEquals(names.size(), MBeanUtils.getMBeanNames().size());
+    Assertions.assertFalse(MBeanUtils.getMBeanNames().stream().anyMatch(n -> n.getObjectName().equals(name)));
+
+    // Shared until the last reference is destroyed:
+    Object ref1 = new Object();
+    Object ref2 = new Object();
+    MBeanNameIndex.init(ref1);
+    MBeanNameIndex.init(ref2);
+    MBeanNameIndex index = MBeanNameIndex.getInstance();
+    MBeanNameIndex.destroy(ref1);
+    Assertions.assertSame(index, MBeanNameIndex.getInstance());
+    MBeanNameIndex.destroy(ref2);
+    Assertions.assertNotSame(index, MBeanNameIndex.getInstance());
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testMBeanBulkAttributes() throws Exception {
+    AtomicInteger singleReads = new AtomicInteger();
+    StandardMBean sample = new StandardMBean(new MySample(true), MySampleMBean.class) {
+      @Override
+      public Object getAttribute(String attribute) throws AttributeNotFoundException, MBeanException, ReflectionException {
+        singleReads.incrementAndGet();
+        return super.getAttribute(attribute);
+      }
+    };
+    String name = "purej.vminspect:type=MyBulkSample";
+    ManagementFactory.getPlatformMBeanServer().registerMBean(sample, new ObjectName(name));
+    try {
+      // Only the failing attribute is read again:
+      MBeanData mbean = MBeanUtils.getMBean(0, name);
+      Assertions.assertEquals(1, singleReads.get());
+      Assertions.assertTrue(String.valueOf(mbean.getAttribute("ThatThrowsUp").getValue()).startsWith("Exception reading attribute value"));
+      Assertions.assertEquals("B", String.valueOf(mbean.getAttribute("MyEnum").getValue()));
+    }
+    finally {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testMBeanAttributeTimeout() throws Exception {
+    AtomicInteger slowReads = new AtomicInteger();
+    AtomicInteger bulkReads = new AtomicInteger();
+    StandardMBean sample = new StandardMBean(new MySample(true), MySampleMBean.class) {
+      @Override
+      public Object getAttribute(String attribute) throws AttributeNotFoundException, MBeanException, ReflectionException {
+        if (attribute.equals("String")) {
+          slowReads.incrementAndGet();
+          try {
+            Thread.sleep(1000);
+          }
+          catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        return super.getAttribute(attribute);
+      }
+
+      @Override
+      public AttributeList getAttributes(String[] attributes) {
+        // Blocked by the slow attribute like most dynamic MBeans:
+        bulkReads.incrementAndGet();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+          try {
+            list.add(new Attribute(attribute, getAttribute(attribute)));
+          }
+          catch (Exception e) {
+            // Ignore...
+          }
+        }
+        return list;
+      }
+    };
+    String name = "purej.vminspect:type=MySlowSample";
+    ManagementFactory.getPlatformMBeanServer().registerMBean(sample, new ObjectName(name));
+    try {
+      long start = System.currentTimeMillis();
+      MBeanData mbean = MBeanUtils.getMBean(0, name, 200);
+      Assertions.assertTrue(System.currentTimeMillis() - start < 900, "Duration: " + (System.currentTimeMillis() - start));
+      Assertions.assertTrue(mbean.getAttribute("String").isPending());
+      Assertions.assertNull(mbean.getAttribute("String").getValue());
+      Assertions.assertFalse(mbean.getAttribute("MyEnum").isPending());
+      Assertions.assertEquals("B", String.valueOf(mbean.getAttribute("MyEnum").getValue()));
+      Assertions.assertEquals(0, bulkReads.get()); // Would call the slow getter as well
+
+      // The running read is continued by the next page and the polls, the getter is called once:
+      Assertions.assertTrue(MBeanUtils.getMBean(0, name, 200).getAttribute("String").isPending());
+      Assertions.assertTrue(MBeanUtils.isPending(MBeanUtils.getAttributeValue(0, name, "String", 100, 30000)));
+      Object value = MBeanUtils.getAttributeValue(0, name, "String", 5000, 30000);
+      Assertions.assertFalse(MBeanUtils.isPending(value));
+      Assertions.assertTrue(System.currentTimeMillis() - start < 1900, "Duration: " + (System.currentTimeMillis() - start));
+      Assertions.assertEquals(1, slowReads.get());
+      Assertions.assertEquals(mbean.getAttribute("MyEnum").getValue(), MBeanUtils.getAttributeValue(0, name, "MyEnum", 5000, 30000));
+
+      // Timed out, but not called again while still running:
+      Assertions.assertEquals("Timeout reading attribute value after 100ms", MBeanUtils.getAttributeValue(0, name, "String", 5000, 100));
+      Assertions.assertEquals("Timeout reading attribute value after 100ms", MBeanUtils.getAttributeValue(0, name, "String", 5000, 100));
+      Assertions.assertTrue(MBeanUtils.getMBean(0, name, 200).getAttribute("String").isPending());
+      Assertions.assertEquals(2, slowReads.get());
+      Assertions.assertTrue(MBeanUtils.getAttributeValue(1000, name, "String", 100, 100).toString().startsWith("Exception reading attribute"));
+
+      // Without timeout, read at once:
+      Assertions.assertEquals(value, MBeanUtils.getMBean(0, name).getAttribute("String").getValue());
+      Assertions.assertEquals(1, bulkReads.get());
+    }
+    finally {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+    }
+  }
+
   /**
    * Tests the named functionality.
    */
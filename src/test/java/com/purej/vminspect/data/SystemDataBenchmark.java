@@ -0,0 +1,215 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.data;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import com.sun.management.UnixOperatingSystemMXBean;
+
+/**
+ * JMH benchmark that measures the costs of creating {@link SystemData} instances compared to the construction of older
+ * versions that looked up the MXBeans and static facts again for each instance. Run the main method from the IDE with the
+ * test classpath.
+ *
+ * @author Stefan Mueller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemDataBenchmark {
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SystemDataBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  /**
+   * All values as shown by the system page, constructed as done by older versions.
+   */
+  @Benchmark
+  public long snapshotBefore() {
+    var data = new SystemDataBefore();
+    data.ensureSampled(SystemData.ALL);
+    var sum = data.rtInfo.length() + data.rtb.getVmName().length() + data.rtb.getVmVendor().length() + data.rtb.getVmVersion().length();
+    sum += data.osb.getName().length() + data.osb.getArch().length() + data.osb.getVersion().length() + data.gcName.length();
+    return sum + data.memoryHeap.getUsed() + data.memoryNonHeap.getUsed() + data.memoryPhysical.getUsed() + data.threadCurrentCount
+        + data.clLoadedClassCount + data.gcCollectionTimeMillis + (long) (data.processCpuLoadPct + data.systemCpuLoadPct)
+        + data.openFileDescriptorCount;
+  }
+
+  /**
+   * All values as shown by the system page.
+   */
+  @Benchmark
+  public long snapshot() {
+    var data = SystemData.create();
+    var sum = data.getRtInfo().length() + data.getVmName().length() + data.getVmVendor().length() + data.getVmVersion().length();
+    sum += data.getOsName().length() + data.getOsArchitecture().length() + data.getOsVersion().length() + data.getGcName().length();
+    return sum + data.getMemoryHeap().getUsed() + data.getMemoryNonHeap().getUsed() + data.getMemoryPhysical().getUsed()
+        + data.getThreadCurrentCount() + data.getCLLoadedClassCount() + data.getGcCollectionTimeMillis()
+        + (long) (data.getProcessCpuLoadPct() + data.getSystemCpuLoadPct()) + data.getOpenFileDescriptorCount();
+  }
+
+  /**
+   * The values read by the default statistics, constructed as done by older versions.
+   */
+  @Benchmark
+  public long statisticsBefore() {
+    var data = new SystemDataBefore();
+    data.ensureSampled(SystemData.MEMORY_HEAP | SystemData.MEMORY_NON_HEAP | SystemData.MEMORY_PHYSICAL | SystemData.THREADS
+        | SystemData.CLASS_LOADING | SystemData.GC | SystemData.PROCESS_CPU_LOAD | SystemData.SYSTEM_CPU_LOAD
+        | SystemData.FILE_DESCRIPTORS);
+    return data.memoryHeap.getUsed() + data.memoryNonHeap.getUsed() + data.memoryPhysical.getUsed() + data.threadCurrentCount
+        + data.clLoadedClassCount + data.gcCollectionTimeMillis + (long) (data.processCpuLoadPct + data.systemCpuLoadPct)
+        + data.openFileDescriptorCount;
+  }
+
+  /**
+   * The values read by the default statistics.
+   */
+  @Benchmark
+  public long statistics() {
+    var data = SystemData.createLazy();
+    return data.getMemoryHeap().getUsed() + data.getMemoryNonHeap().getUsed() + data.getMemoryPhysical().getUsed()
+        + data.getThreadCurrentCount() + data.getCLLoadedClassCount() + data.getGcCollectionTimeMillis()
+        + (long) (data.getProcessCpuLoadPct() + data.getSystemCpuLoadPct()) + data.getOpenFileDescriptorCount();
+  }
+
+  /**
+   * The construction and sampling of {@link SystemData} and {@link SunSystemData} before the MXBeans and facts were cached.
+   */
+  @SuppressWarnings("restriction")
+  private static final class SystemDataBefore {
+    private final String rtInfo;
+    private final RuntimeMXBean rtb;
+    private final OperatingSystemMXBean osb;
+    private int sampled;
+    private int threadCurrentCount;
+    private int clLoadedClassCount;
+    private long clTotalLoadedClassCount;
+    private String gcName;
+    private long gcCollectionCount;
+    private long gcCollectionTimeMillis;
+    private MemoryData memoryHeap;
+    private MemoryData memoryNonHeap;
+    private MemoryData memoryPhysical;
+    private MemoryData memorySwap;
+    private long processCpuTimeMillis;
+    private double processCpuLoadPct;
+    private double systemCpuLoadPct;
+    private long openFileDescriptorCount;
+    private long maxFileDescriptorCount;
+
+    SystemDataBefore() {
+      rtInfo = System.getProperty("java.runtime.name") + ", " + System.getProperty("java.runtime.version");
+      rtb = ManagementFactory.getRuntimeMXBean();
+      osb = ManagementFactory.getOperatingSystemMXBean();
+      memoryPhysical = MemoryData.UNKNOWN;
+      memorySwap = MemoryData.UNKNOWN;
+      processCpuTimeMillis = -1;
+      processCpuLoadPct = -1;
+      systemCpuLoadPct = -1;
+      openFileDescriptorCount = -1;
+      maxFileDescriptorCount = -1;
+    }
+
+    synchronized void ensureSampled(int values) {
+      var missing = values & ~sampled;
+      for (var value = 1; missing != 0; value <<= 1) {
+        if ((missing & value) != 0) {
+          sample(value);
+          sampled |= value;
+          missing &= ~value;
+        }
+      }
+    }
+
+    private void sample(int value) {
+      if (osb instanceof com.sun.management.OperatingSystemMXBean) {
+        var ssb = (com.sun.management.OperatingSystemMXBean)osb;
+        switch (value) {
+        case SystemData.MEMORY_PHYSICAL:
+          var memPhysTotal = ssb.getTotalMemorySize();
+          var memPhysFree = ssb.getFreeMemorySize();
+          memoryPhysical = new MemoryData(memPhysTotal != -1 ? memPhysTotal - memPhysFree : -1, -1, memPhysTotal);
+          return;
+        case SystemData.MEMORY_SWAP:
+          var memSwapTotal = ssb.getTotalSwapSpaceSize();
+          var memSwapFree = ssb.getFreeSwapSpaceSize();
+          memorySwap = new MemoryData(memSwapTotal != -1 ? memSwapTotal - memSwapFree : -1, -1, memSwapTotal);
+          return;
+        case SystemData.PROCESS_CPU_TIME:
+          var cpuTime = ssb.getProcessCpuTime();
+          processCpuTimeMillis = cpuTime > 0 ? cpuTime / 1000000 : -1;
+          return;
+        case SystemData.PROCESS_CPU_LOAD:
+          var cpuLoad = ssb.getProcessCpuLoad();
+          processCpuLoadPct = cpuLoad < 0 ? cpuLoad : cpuLoad * 100;
+          return;
+        case SystemData.SYSTEM_CPU_LOAD:
+          var systemLoad = ssb.getCpuLoad();
+          systemCpuLoadPct = systemLoad < 0 ? systemLoad : systemLoad * 100;
+          return;
+        default:
+          break;
+        }
+      }
+      if (value == SystemData.FILE_DESCRIPTORS && osb instanceof UnixOperatingSystemMXBean) {
+        var usb = (UnixOperatingSystemMXBean)osb;
+        openFileDescriptorCount = usb.getOpenFileDescriptorCount();
+        maxFileDescriptorCount = usb.getMaxFileDescriptorCount();
+        return;
+      }
+      switch (value) {
+      case SystemData.THREADS:
+        threadCurrentCount = ManagementFactory.getThreadMXBean().getThreadCount();
+        break;
+      case SystemData.CLASS_LOADING:
+        var clb = ManagementFactory.getClassLoadingMXBean();
+        clLoadedClassCount = clb.getLoadedClassCount();
+        clTotalLoadedClassCount = clb.getTotalLoadedClassCount();
+        break;
+      case SystemData.GC:
+        var tmpGcCollectionCount = 0L;
+        var tmpGcCollectionTimeMillis = 0L;
+        var tmpGcName = new StringBuilder();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+          if (tmpGcName.length() > 0) {
+            tmpGcName.append(", ");
+          }
+          tmpGcName.append(gc.getName());
+          tmpGcCollectionCount += gc.getCollectionCount();
+          tmpGcCollectionTimeMillis += gc.getCollectionTime();
+        }
+        gcName = tmpGcName.toString();
+        gcCollectionCount = tmpGcCollectionCount;
+        gcCollectionTimeMillis = tmpGcCollectionTimeMillis;
+        break;
+      case SystemData.MEMORY_HEAP:
+        memoryHeap = new MemoryData(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage());
+        break;
+      case SystemData.MEMORY_NON_HEAP:
+        memoryNonHeap = new MemoryData(ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage());
+        break;
+      default:
+        break;
+      }
+    }
+  }
+}
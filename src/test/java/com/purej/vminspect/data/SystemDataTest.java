@@ -1,7 +1,12 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.data;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -42,6 +47,74 @@ public class SystemDataTest {
     Assertions.assertTrue(data.getMemorySwap().getMax() > 0);
   }
 
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testLazyData() throws Exception {
+    SystemData data = new SunSystemData();
+    Assertions.assertFalse(data.isSampled(SystemData.THREADS));
+    Assertions.assertFalse(data.isSampled(SystemData.PROCESS_CPU_LOAD));
+    var threads = data.getThreadCurrentCount();
+    Assertions.assertTrue(threads > 0);
+    Assertions.assertTrue(data.isSampled(SystemData.THREADS));
+    Assertions.assertFalse(data.isSampled(SystemData.MEMORY_HEAP));
+
+    // Memoized, even if new threads are started:
+    var thread = new Thread(() -> { });
+    thread.start();
+    thread.join();
+    Assertions.assertEquals(threads, data.getThreadCurrentCount());
+    Assertions.assertTrue(data.getProcessCpuLoadPct() > -1);
+    Assertions.assertTrue(data.isSampled(SystemData.THREADS | SystemData.PROCESS_CPU_LOAD));
+
+    // Eager snapshot samples everything:
+    Assertions.assertTrue(SystemData.create().isSampled(SystemData.ALL));
+    Assertions.assertFalse(SystemData.createLazy().isSampled(SystemData.GC));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testLazyDataConcurrent() throws Exception {
+    var samples = new AtomicIntegerArray(32);
+    var data = new SunSystemData() {
+      @Override
+      protected void sample(int value) {
+        samples.incrementAndGet(Integer.numberOfTrailingZeros(value));
+        super.sample(value);
+      }
+    };
+    Assertions.assertEquals(0, samples.get(Integer.numberOfTrailingZeros(SystemData.THREADS))); // Nothing sampled when created
+
+    // Each group is sampled exactly once, all threads see the same values:
+    var threads = new ConcurrentHashMap<Integer, Boolean>();
+    var heaps = new ConcurrentHashMap<MemoryData, Boolean>();
+    var pool = Executors.newFixedThreadPool(8);
+    try {
+      var tasks = new ArrayList<Callable<Object>>();
+      for (var i = 0; i < 64; i++) {
+        tasks.add(() -> {
+          threads.put(data.getThreadCurrentCount(), Boolean.TRUE);
+          heaps.put(data.getMemoryHeap(), Boolean.TRUE);
+          return data.getGcCollectors();
+        });
+      }
+      for (var future : pool.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    Assertions.assertEquals(1, threads.size());
+    Assertions.assertEquals(1, heaps.size());
+    Assertions.assertEquals(1, samples.get(Integer.numberOfTrailingZeros(SystemData.THREADS)));
+    Assertions.assertEquals(1, samples.get(Integer.numberOfTrailingZeros(SystemData.MEMORY_HEAP)));
+    Assertions.assertEquals(1, samples.get(Integer.numberOfTrailingZeros(SystemData.GC)));
+    Assertions.assertEquals(0, samples.get(Integer.numberOfTrailingZeros(SystemData.CLASS_LOADING)));
+  }
+
   /**
    * Tests the named functionality.
    */
@@ -124,5 +197,7 @@ public class SystemDataTest {
     // Note: gc execution cannot be forced...
     // Assertions.assertTrue(data.getGcCollectionCount() > 0);
     // Assertions.assertTrue(data.getGcCollectionTimeMillis() > 0);
+    Assertions.assertFalse(data.getGcCollectors().isEmpty());
+    Assertions.assertNotNull(data.getGcCollectors().get(0).getName());
   }
 }
@@ -6,11 +6,14 @@ import java.io.File;
 import java.io.FileOutputStream;
 import org.jrobin.core.FetchData;
 import org.jrobin.core.FetchRequest;
+import org.jrobin.core.RrdBackendFactory;
 import org.jrobin.core.RrdDb;
 import org.jrobin.core.RrdDef;
 import org.jrobin.core.Sample;
 import org.jrobin.graph.RrdGraph;
 import org.jrobin.graph.RrdGraphDef;
+import com.purej.vminspect.data.statistics.rrd.JRobinImpl;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -80,4 +83,16 @@ public class JRobinTest {
     }
   }
 
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testFetch() throws Exception {
+    var rrd = new JRobinImpl("fetchTest", null, 60, RrdBackendFactory.getFactory("MEMORY"));
+    rrd.addValue(12);
+    var series = rrd.fetch(Range.createPeriodRange(Period.WEEK));
+    Assertions.assertEquals(3600, series.getStepSeconds());
+    Assertions.assertTrue(series.size() >= 7 * 24, "Size: " + series.size());
+    Assertions.assertTrue(Double.isNaN(series.getMax(0)));
+  }
 }
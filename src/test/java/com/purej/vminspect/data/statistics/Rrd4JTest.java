@@ -4,14 +4,20 @@ package com.purej.vminspect.data.statistics;
 import java.awt.Color;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdMemoryBackendFactory;
 import org.rrd4j.core.Sample;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphDef;
+import com.purej.vminspect.data.statistics.rrd.Rrd4jImpl;
+import com.purej.vminspect.data.statistics.rrd.RrdProvider;
 
 /**
  * Tests some RRD4J stuff.
@@ -66,4 +72,143 @@ public class Rrd4JTest {
     }
   }
 
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testFetch() throws Exception {
+    var rrd = new Rrd4jImpl("fetchTest", null, 60, new RrdMemoryBackendFactory());
+    rrd.addValue(12);
+    var series = rrd.fetch(Range.createPeriodRange(Period.DAY));
+    Assertions.assertEquals(60, series.getStepSeconds());
+    Assertions.assertTrue(series.size() >= 24 * 60, "Size: " + series.size());
+    Assertions.assertTrue(series.getTimestamp(1) - series.getTimestamp(0) == 60000);
+    Assertions.assertTrue(Double.isNaN(series.getAverage(0)));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testBatchedStorage() throws Exception {
+    var dir = new File("target/rrd4j-batched");
+    if (dir.exists()) {
+      for (var file : dir.listFiles()) {
+        file.delete();
+      }
+    }
+    dir.mkdirs();
+
+    // Create an old per-statistics file with the last hour filled:
+    var now = System.currentTimeMillis() / 1000;
+    var rrdDef = new RrdDef(new File(dir, "oldStats.rrd").getPath(), now - 3600, 60);
+    rrdDef.addDatasource("oldStats", DsType.GAUGE, 120, 0, Double.NaN);
+    rrdDef.addArchive(ConsolFun.AVERAGE, 0.25, 1, 1440);
+    rrdDef.addArchive(ConsolFun.MAX, 0.25, 1, 1440);
+    try (RrdDb rrdDb = RrdDb.getBuilder().setRrdDef(rrdDef).build()) {
+      for (var time = now - 3540; time < now; time += 60) {
+        rrdDb.createSample(time).setValue("oldStats", 42).update();
+      }
+    }
+
+    // All statistics in a single file, the old values are migrated:
+    var config = new StatisticsConfig();
+    config.setBatchedStorage(true);
+    var provider = new RrdProvider(dir.getPath(), 60000, config);
+    var oldStats = provider.create("oldStats");
+    var newStats = provider.create("newStats");
+    oldStats.addValue(1);
+    newStats.addValue(2);
+    provider.commit();
+    Assertions.assertTrue(new File(dir, "vminspect-statistics.rrd").exists());
+    Assertions.assertFalse(new File(dir, "oldStats.rrd").exists());
+    Assertions.assertFalse(new File(dir, "newStats.rrd").exists());
+
+    var series = oldStats.fetch(Range.createPeriodRange(Period.DAY));
+    var migrated = 0;
+    for (var i = 0; i < series.size(); i++) {
+      if (series.getAverage(i) == 42) {
+        migrated++;
+      }
+    }
+    Assertions.assertTrue(migrated >= 55, "Migrated: " + migrated);
+    Assertions.assertNotNull(newStats.createPng("New", "", Range.createPeriodRange(Period.DAY), 200, 100));
+
+    // Nothing left to sync:
+    provider.sync();
+
+    // A statistics registered later is added to the existing file:
+    var lateStats = provider.create("lateStats");
+    Assertions.assertEquals(60, lateStats.fetch(Range.createPeriodRange(Period.DAY)).getStepSeconds());
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testSyncPolicy() throws Exception {
+    var dir = new File("target/rrd4j-sync");
+    new File(dir, "syncStats.rrd").delete();
+    var config = new StatisticsConfig();
+    config.setSyncPolicy(SyncPolicy.TICKS);
+    config.setSyncInterval(2);
+    var syncs = new AtomicInteger();
+    var provider = new RrdProvider(dir.getPath(), 1000, config) {
+      @Override
+      public synchronized void sync() throws IOException {
+        syncs.incrementAndGet();
+        super.sync();
+      }
+    };
+    var rrd = provider.create("syncStats");
+    rrd.addValue(1);
+    provider.commit();
+    Assertions.assertEquals(0, syncs.get()); // Not yet synced
+    provider.commit();
+    Assertions.assertEquals(1, syncs.get()); // Synced with the explicit file backend
+    provider.commit();
+    Assertions.assertEquals(1, syncs.get());
+    provider.commit();
+    Assertions.assertEquals(2, syncs.get());
+
+    // The synced value is read back from the file:
+    try (var rrdDb = RrdDb.getBuilder().setPath(new File(dir, "syncStats.rrd").getPath()).readOnly().build()) {
+      Assertions.assertEquals(1, rrdDb.getLastDatasourceValue("syncStats"));
+    }
+    Assertions.assertNotNull(rrd.createPng("Sync", "", Range.createPeriodRange(Period.DAY), 200, 100));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new RrdProvider(dir.getPath(), 500, config));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> config.setSyncInterval(0));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> config.setSyncPolicy(null));
+  }
+
+  /**
+   * Tests the memory-mapped storage.
+   */
+  @Test
+  public void testMappedStorage() throws Exception {
+    var dir = new File("target/rrd4j-mapped");
+    new File(dir, "mappedStats.rrd").delete();
+    var config = new StatisticsConfig();
+    config.setMappedStorage(true);
+    config.setSyncPolicy(SyncPolicy.SHUTDOWN);
+    var provider = new RrdProvider(dir.getPath(), 1000, config);
+    var rrd = provider.create("mappedStats");
+    rrd.addValue(3);
+    provider.commit();
+    Assertions.assertNotNull(rrd.createPng("Mapped", "", Range.createPeriodRange(Period.DAY), 200, 100));
+    var series = rrd.fetch(Range.createPeriodRange(Period.DAY));
+    var stored = false;
+    for (var i = 0; i < series.size(); i++) {
+      stored |= series.getAverage(i) == 3;
+    }
+    Assertions.assertTrue(stored);
+    provider.sync();
+
+    // The synced value is read back from the file:
+    try (var rrdDb = RrdDb.getBuilder().setPath(new File(dir, "mappedStats.rrd").getPath()).readOnly().build()) {
+      Assertions.assertEquals(3, rrdDb.getLastDatasourceValue("mappedStats"));
+    }
+  }
+
 }
@@ -1,8 +1,24 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.data.statistics;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.imageio.ImageIO;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import com.purej.vminspect.data.GcMonitor;
+import com.purej.vminspect.data.SystemData;
 
 /**
  * Tests the named functionality.
@@ -83,4 +99,449 @@ public class StatisticsCollectorTest {
     }
     Assertions.assertNull(StatisticsCollector.getInstance());
   }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGraphCache() throws Exception {
+    StatisticsCollector collector = StatisticsCollector.init(null, 10000, this);
+    try {
+      Assertions.assertEquals(0, collector.getGraphCacheSeconds()); // no collect yet
+      collector.collect();
+      var seconds = collector.getGraphCacheSeconds();
+      Assertions.assertTrue(seconds > 0 && seconds <= 10, "Seconds: " + seconds);
+
+      // Same graph is rendered once per collect tick:
+      var day = Range.createPeriodRange(Period.DAY);
+      var png = collector.getGraph("threads", day, 200, 50);
+      Assertions.assertNotNull(png);
+      Assertions.assertSame(png, collector.getGraph("threads", day, 200, 50));
+      Assertions.assertNotSame(png, collector.getGraph("threads", day, 201, 50));
+      Assertions.assertNotSame(png, collector.getGraph("threads", Range.createPeriodRange(Period.WEEK), 200, 50));
+      Assertions.assertNull(collector.getGraph("unknown", day, 200, 50));
+      collector.collect();
+      Assertions.assertNotSame(png, collector.getGraph("threads", day, 200, 50));
+    } finally {
+      StatisticsCollector.destroy(this);
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGraphSprite() throws Exception {
+    StatisticsCollector collector = StatisticsCollector.init(null, 10000, this);
+    try {
+      collector.collect();
+      var day = Range.createPeriodRange(Period.DAY);
+      GraphSprite sprite;
+      // Not blocked by a running collection that holds the collector lock:
+      var executor = Executors.newSingleThreadExecutor();
+      synchronized (collector) {
+        sprite = executor.submit(() -> collector.getGraphSprite(day, 200, 50)).get(10, TimeUnit.SECONDS);
+      }
+      executor.shutdown();
+      var count = collector.getStatistics().size();
+      var image = ImageIO.read(new ByteArrayInputStream(sprite.getPng()));
+      var rows = (count + StatisticsCollector.SPRITE_COLUMNS - 1) / StatisticsCollector.SPRITE_COLUMNS;
+      Assertions.assertEquals(sprite.getCellWidth() * StatisticsCollector.SPRITE_COLUMNS, image.getWidth());
+      Assertions.assertEquals(sprite.getCellHeight() * rows, image.getHeight());
+      Assertions.assertTrue(sprite.getCellWidth() >= 200 && sprite.getCellHeight() >= 50);
+      Assertions.assertEquals(sprite.getCellWidth(), sprite.getX(1));
+      Assertions.assertEquals(sprite.getCellHeight(), sprite.getY(StatisticsCollector.SPRITE_COLUMNS));
+
+      Assertions.assertEquals(collector.getStatistics(), sprite.getStatistics());
+
+      // Cached until the next collection, kept by id afterwards:
+      Assertions.assertSame(sprite, collector.getGraphSprite(day, 200, 50));
+      collector.collect();
+      var next = collector.getGraphSprite(day, 200, 50);
+      Assertions.assertNotSame(sprite, next);
+      Assertions.assertNotEquals(sprite.getId(), next.getId());
+      Assertions.assertSame(sprite, collector.getGraphSprite(sprite.getId()));
+      Assertions.assertNull(collector.getGraphSprite(-1));
+    } finally {
+      StatisticsCollector.destroy(this);
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testCollectIsolated() throws Exception {
+    var config = new StatisticsConfig();
+    config.setCollectionTimeoutMillis(200);
+    StatisticsCollector collector = StatisticsCollector.init(null, 10000, config, this);
+    try {
+      collector.registerStatistics("slowStats", "Slow", "", "Slow", data -> {
+        try {
+          Thread.sleep(5000);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return 1;
+      });
+      collector.registerStatistics("failingStats", "Failing", "", "Failing", data -> {
+        throw new IllegalStateException("Test");
+      });
+      collector.registerStatistics("unknownStats", "Unknown", "", "Unknown", data -> Double.NaN);
+      collector.collect();
+      Assertions.assertTrue(collector.getLastCollectDurationMs() < 2000, "Duration: " + collector.getLastCollectDurationMs());
+      Assertions.assertEquals(1, collector.getStatistics("slowStats").getCollectFailures());
+      Assertions.assertEquals(1, collector.getStatistics("failingStats").getCollectFailures());
+      Assertions.assertEquals(0, collector.getStatistics("unknownStats").getCollectFailures()); // Expected unknown value
+      Assertions.assertEquals(0, collector.getStatistics("threads").getCollectFailures());
+      Assertions.assertThrows(IllegalArgumentException.class, () -> config.setCollectionThreads(0));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> config.setCollectionTimeoutMillis(0));
+    } finally {
+      StatisticsCollector.destroy(this);
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testCollectHungProvider() throws Exception {
+    var config = new StatisticsConfig();
+    config.setCollectionThreads(1);
+    config.setCollectionTimeoutMillis(300);
+    StatisticsCollector collector = StatisticsCollector.init(null, 10000, config, this);
+    var hungCalls = new AtomicInteger();
+    var released = new CountDownLatch(1);
+    try {
+      // Ignores the interrupt of the timeout:
+      collector.registerStatistics("hungStats", "Hung", "", "Hung", data -> {
+        hungCalls.incrementAndGet();
+        while (released.getCount() > 0) {
+          sleep(10);
+          Thread.interrupted();
+        }
+        return 1;
+      });
+      // Queued behind each other on the single thread, the timeout starts when called:
+      collector.registerStatistics("slowStats1", "Slow 1", "", "Slow 1", data -> {
+        sleep(200);
+        return 1;
+      });
+      collector.registerStatistics("slowStats2", "Slow 2", "", "Slow 2", data -> {
+        sleep(200);
+        return 1;
+      });
+      collector.collect();
+      collector.collect();
+
+      // The hung provider is not called again and does not block the other statistics:
+      Assertions.assertEquals(1, hungCalls.get());
+      Assertions.assertEquals(2, collector.getStatistics("hungStats").getCollectFailures());
+      Assertions.assertEquals(0, collector.getStatistics("slowStats1").getCollectFailures());
+      Assertions.assertEquals(0, collector.getStatistics("slowStats2").getCollectFailures());
+      Assertions.assertEquals(0, collector.getStatistics("threads").getCollectFailures());
+    } finally {
+      released.countDown();
+      StatisticsCollector.destroy(this);
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testHighResolution() throws Exception {
+    var config = new StatisticsConfig();
+    Assertions.assertEquals(0, config.getHighResolutionMillis()); // Opt-in
+    config.setHighResolutionMillis(100);
+    StatisticsCollector collector = StatisticsCollector.init(null, 10000, config, this);
+    try {
+      Thread.sleep(1500);
+      var minutes = Range.createPeriodRange(Period.MINUTES);
+      var threads = collector.getStatistics("threads");
+      Assertions.assertTrue(threads.isHighResolution());
+      Assertions.assertFalse(collector.getStatistics("gcTime").isHighResolution());
+      var series = threads.fetchSeries(minutes);
+      Assertions.assertEquals(1, series.getStepSeconds());
+      Assertions.assertEquals(Period.MINUTES.getDurationSeconds(), series.size());
+      Assertions.assertTrue(series.getMax(series.size() - 2) > 0, "Max: " + series.getMax(series.size() - 2));
+      Assertions.assertNotNull(collector.getGraph("threads", minutes, 200, 50));
+      Assertions.assertEquals(0, collector.getGraphCacheSeconds(minutes));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> config.setHighResolutionMillis(50));
+    } finally {
+      StatisticsCollector.destroy(this);
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGcStatistics() throws Exception {
+    StatisticsCollector collector = StatisticsCollector.init(null, 10000, this);
+    try {
+      var gcCollectors = SystemData.createLazy().getGcCollectors();
+      Assertions.assertFalse(gcCollectors.isEmpty());
+      for (var gc : gcCollectors) {
+        var prefix = StatisticsCollector.getGcStatisticsPrefix(gc.getName());
+        Assertions.assertNotNull(collector.getStatistics(prefix + "Count"));
+        Assertions.assertNotNull(collector.getStatistics(prefix + "Time"));
+        Assertions.assertNotNull(collector.getStatistics(prefix + "MaxPause"));
+      }
+      Assertions.assertNotNull(collector.getStatistics("allocationRate"));
+
+      // Named after the garbage collector:
+      Assertions.assertEquals("gcG1YG", StatisticsCollector.getGcStatisticsPrefix("G1 Young Generation"));
+      Assertions.assertEquals("gcPSMS", StatisticsCollector.getGcStatisticsPrefix("PS MarkSweep"));
+      Assertions.assertEquals("gcMSC", StatisticsCollector.getGcStatisticsPrefix("MarkSweepCompact"));
+      Assertions.assertEquals("gcZGCC", StatisticsCollector.getGcStatisticsPrefix("ZGC Cycles"));
+
+      // Unique and not too long even if the collectors get the same prefix:
+      var prefixes = new HashSet<String>();
+      var longName = "A B C D E F G H I J K L M";
+      Assertions.assertEquals("gcABCDEFGHIJ", StatisticsCollector.getGcStatisticsPrefix(longName, prefixes));
+      Assertions.assertEquals("gcABCDEFGHI1", StatisticsCollector.getGcStatisticsPrefix(longName, prefixes));
+      Assertions.assertEquals("gcABCDEFGHI2", StatisticsCollector.getGcStatisticsPrefix(longName, prefixes));
+      Assertions.assertEquals("gcMSC", StatisticsCollector.getGcStatisticsPrefix("MarkSweepCompact", prefixes));
+      Assertions.assertEquals("gcMSC1", StatisticsCollector.getGcStatisticsPrefix("MarkSweepCompact", prefixes));
+      for (var prefix : prefixes) {
+        Assertions.assertTrue((prefix + "MaxPause").length() <= 20, prefix);
+      }
+    } finally {
+      StatisticsCollector.destroy(this);
+    }
+
+    try (var monitor = new GcMonitor()) {
+      Assertions.assertTrue(monitor.isSupported());
+      var allocatedBytes = monitor.getAllocatedBytes();
+      Assertions.assertTrue(allocatedBytes > 0);
+      var garbage = new byte[16][];
+      for (var i = 0; i < garbage.length; i++) {
+        garbage[i] = new byte[1024 * 1024];
+      }
+      garbage = null;
+      System.gc();
+      // The notifications are sent asynchronously, the garbage is allocated even if the collection is not yet reported:
+      var minAllocatedBytes = allocatedBytes + 8 * 1024 * 1024;
+      for (var i = 0; i < 50 && monitor.getAllocatedBytes() < minAllocatedBytes; i++) {
+        Thread.sleep(100);
+      }
+      Assertions.assertTrue(monitor.getAllocatedBytes() >= minAllocatedBytes);
+      for (var gc : SystemData.createLazy().getGcCollectors()) {
+        Assertions.assertTrue(monitor.takeMaxPauseMillis(gc.getName()) >= 0);
+      }
+      Assertions.assertTrue(Double.isNaN(monitor.takeMaxPauseMillis("unknown")));
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testStorageMonitor() throws Exception {
+    var dir = new File("target/stats-monitor");
+    dir.mkdirs();
+    var now = System.currentTimeMillis();
+    var undeletable = new File(dir, "e-old-" + (now - TimeUnit.DAYS.toMillis(40)) + ".rrd");
+    new File(undeletable, "content").delete();
+    for (var file : dir.listFiles()) {
+      file.delete();
+    }
+    Files.write(new File(dir, "a.rrd").toPath(), new byte[100]);
+    Files.write(new File(dir, "b-old-" + (now - TimeUnit.DAYS.toMillis(40)) + ".rrd").toPath(), new byte[10]);
+    Files.write(new File(dir, "c-old-" + now + ".rrd").toPath(), new byte[20]);
+    try (var monitor = new StorageMonitor(dir.getPath(), 30)) {
+      monitor.update();
+      Assertions.assertEquals(120, monitor.getDiskUsage());
+      Assertions.assertEquals(20, monitor.getOldFilesDiskUsage());
+      Assertions.assertEquals(1, monitor.getOldFiles());
+      Assertions.assertFalse(new File(dir, "b-old-" + (now - TimeUnit.DAYS.toMillis(40)) + ".rrd").exists());
+
+      // A file that cannot be deleted does not stop the scan:
+      undeletable.mkdir();
+      Files.write(new File(undeletable, "content").toPath(), new byte[1]);
+      Files.write(new File(dir, "f.rrd").toPath(), new byte[10]);
+      for (var i = 0; i < 50 && monitor.getOldFiles() == 1; i++) {
+        Thread.sleep(100);
+        monitor.update();
+      }
+      Assertions.assertEquals(2, monitor.getOldFiles());
+      Assertions.assertTrue(undeletable.exists());
+      Files.delete(new File(undeletable, "content").toPath());
+      Files.delete(undeletable.toPath());
+      Files.delete(new File(dir, "f.rrd").toPath());
+      for (var i = 0; i < 50 && monitor.getOldFiles() == 2; i++) {
+        Thread.sleep(100);
+        monitor.update();
+      }
+
+      // New files are reported by the file system:
+      Files.write(new File(dir, "d.rrd").toPath(), new byte[30]);
+      for (var i = 0; i < 50 && monitor.getDiskUsage() == 120; i++) {
+        Thread.sleep(100);
+        monitor.update();
+      }
+      Assertions.assertEquals(150, monitor.getDiskUsage());
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testRingBuffer() {
+    var buffer = new RingBuffer(3);
+    buffer.add(10_100, 1);
+    buffer.add(10_600, 3);
+    buffer.add(11_500, Double.NaN);
+    Assertions.assertEquals(3, buffer.size());
+    var series = buffer.toTimeSeries(9, 12);
+    Assertions.assertEquals(3, series.size());
+    Assertions.assertEquals(10_000, series.getTimestamp(0));
+    Assertions.assertTrue(Double.isNaN(series.getAverage(0)));
+    Assertions.assertEquals(2, series.getAverage(1));
+    Assertions.assertEquals(3, series.getMax(1));
+    Assertions.assertTrue(Double.isNaN(series.getMax(2)));
+
+    // The oldest value gets overwritten:
+    buffer.add(11_800, 4);
+    Assertions.assertEquals(3, buffer.size());
+    series = buffer.toTimeSeries(9, 12);
+    Assertions.assertEquals(3, series.getAverage(1));
+    Assertions.assertEquals(4, series.getAverage(2));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testCollectionScheduler() throws Exception {
+    var starts = new CopyOnWriteArrayList<Long>();
+    var boundaries = new CopyOnWriteArrayList<Long>();
+    var schedulerRef = new AtomicReference<CollectionScheduler>();
+    var scheduler = new CollectionScheduler("Test-Scheduler", 100, OverrunPolicy.SKIP, () -> {
+      starts.add(System.currentTimeMillis());
+      boundaries.add(schedulerRef.get().getLastTickMillis());
+      if (starts.size() == 2) {
+        sleep(250); // Overrun
+      }
+    });
+    schedulerRef.set(scheduler);
+    scheduler.start();
+    try {
+      Thread.sleep(800);
+    } finally {
+      scheduler.stop();
+    }
+    Assertions.assertTrue(scheduler.awaitTermination(1000));
+    Assertions.assertTrue(scheduler.getTicks() >= 3, "Ticks: " + scheduler.getTicks());
+    Assertions.assertTrue(scheduler.getMissedTicks() >= 2, "Missed: " + scheduler.getMissedTicks());
+    Assertions.assertEquals(scheduler.getTicks(), starts.size());
+    // Runs stay on the boundaries, the run after the overrun is not shifted:
+    Assertions.assertTrue(starts.get(2) - starts.get(1) >= 250, "Start: " + starts);
+    // Runs are on the wall-clock boundaries of the period:
+    for (var i = 0; i < starts.size(); i++) {
+      Assertions.assertEquals(0, boundaries.get(i) % 100, "Boundaries: " + boundaries);
+      Assertions.assertTrue(starts.get(i) > boundaries.get(i) - 10, "Start: " + starts + ", boundaries: " + boundaries);
+    }
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new CollectionScheduler("Test-Scheduler", 0, OverrunPolicy.SKIP, () -> { }));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testCollectionSchedulerCatchUp() throws Exception {
+    var starts = new CopyOnWriteArrayList<Long>();
+    var scheduler = new CollectionScheduler("Test-Scheduler", 100, OverrunPolicy.CATCH_UP, () -> {
+      starts.add(System.currentTimeMillis());
+      if (starts.size() == 1) {
+        sleep(250); // Overrun
+      }
+    });
+    scheduler.start();
+    try {
+      Thread.sleep(600);
+    } finally {
+      scheduler.stop();
+    }
+    Assertions.assertTrue(scheduler.awaitTermination(1000));
+    // The most recent missed boundary runs late, the one before is missed:
+    Assertions.assertTrue(starts.get(1) - starts.get(0) < 300, "Start: " + starts);
+    Assertions.assertTrue(scheduler.getLateTicks() >= 1, "Late: " + scheduler.getLateTicks());
+    Assertions.assertTrue(scheduler.getMissedTicks() >= 1, "Missed: " + scheduler.getMissedTicks());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGraphCacheEviction() {
+    var cache = new GraphCache(100);
+    var tick = cache.getTick();
+    cache.put("a", tick, new byte[40]);
+    cache.put("b", tick, new byte[40]);
+    Assertions.assertNotNull(cache.get("a")); // a is now the most recently used
+    cache.put("c", tick, new byte[40]);
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertNull(cache.get("b"));
+    cache.put("d", tick, new byte[101]); // too large
+    Assertions.assertNull(cache.get("d"));
+
+    // Graphs rendered before a tick are outdated:
+    cache.invalidate();
+    Assertions.assertEquals(0, cache.size());
+    cache.put("a", tick, new byte[40]);
+    Assertions.assertNull(cache.get("a"));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGraphCacheSingleFlight() throws Exception {
+    var cache = new GraphCache(1000);
+    var renderings = new AtomicInteger();
+    GraphCache.Renderer renderer = () -> {
+      renderings.incrementAndGet();
+      try {
+        Thread.sleep(200);
+      }
+      catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return new byte[10];
+    };
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      var futures = new ArrayList<Future<byte[]>>();
+      for (var i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> cache.get("a", renderer)));
+      }
+      var png = futures.get(0).get();
+      for (var future : futures) {
+        Assertions.assertSame(png, future.get());
+      }
+      Assertions.assertEquals(1, renderings.get());
+      Assertions.assertSame(png, cache.get("a"));
+
+      // Failures are thrown and not cached:
+      GraphCache.Renderer failing = () -> {
+        throw new IOException("Rendering failed");
+      };
+      Assertions.assertThrows(IOException.class, () -> cache.get("b", failing));
+      Assertions.assertNull(cache.get("b"));
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
 }
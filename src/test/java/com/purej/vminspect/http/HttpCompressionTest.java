@@ -0,0 +1,44 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the named functionality.
+ *
+ * @author Stefan Mueller
+ */
+class HttpCompressionTest {
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGzipAccepted() {
+    Assertions.assertFalse(HttpCompression.isGzipAccepted(null));
+    Assertions.assertFalse(HttpCompression.isGzipAccepted(""));
+    Assertions.assertFalse(HttpCompression.isGzipAccepted("deflate, br"));
+    Assertions.assertFalse(HttpCompression.isGzipAccepted("gzip;q=0, *"));
+    Assertions.assertFalse(HttpCompression.isGzipAccepted("*;q=0"));
+    Assertions.assertTrue(HttpCompression.isGzipAccepted("gzip"));
+    Assertions.assertTrue(HttpCompression.isGzipAccepted("deflate, GZIP;q=0.8, br"));
+    Assertions.assertTrue(HttpCompression.isGzipAccepted("x-gzip"));
+    Assertions.assertTrue(HttpCompression.isGzipAccepted("br, *;q=0.1"));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testMinSize() {
+    var request = new HttpRequest();
+    request.getHeaders().put("accept-encoding", "gzip");
+    var response = new HttpTextResponse("text/plain");
+    Assertions.assertFalse(HttpCompression.isGzip(request, response, new byte[HttpCompression.MIN_SIZE - 1]));
+    Assertions.assertTrue(HttpCompression.isGzip(request, response, new byte[HttpCompression.MIN_SIZE]));
+    Assertions.assertTrue(HttpCompression.isGzip(request, new HttpStreamResponse("text/html"), null));
+    Assertions.assertFalse(HttpCompression.isGzip(request, new HttpPngResponse("x"), new byte[HttpCompression.MIN_SIZE]));
+    Assertions.assertFalse(HttpCompression.isGzip(new HttpRequest(), response, new byte[HttpCompression.MIN_SIZE]));
+  }
+}
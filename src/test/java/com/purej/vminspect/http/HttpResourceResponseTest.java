@@ -0,0 +1,49 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.http;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the named functionality.
+ *
+ * @author Stefan Mueller
+ */
+class HttpResourceResponseTest {
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testCachedResource() throws Exception {
+    var response = new HttpResourceResponse("vminspect.css");
+    var bytes = response.getContentBytes();
+    Assertions.assertTrue(bytes.length > 0);
+    Assertions.assertSame(bytes, new HttpResourceResponse("vminspect.css").getContentBytes());
+    Assertions.assertSame(response.getGzipContentBytes(bytes), new HttpResourceResponse("vminspect.css").getGzipContentBytes(bytes));
+    Assertions.assertEquals(response.getETag(false), new HttpResourceResponse("vminspect.css").getETag(false));
+    Assertions.assertNotEquals(response.getETag(false), new HttpResourceResponse("vminspect.js").getETag(false));
+
+    var missing = new HttpResourceResponse("missing.png");
+    Assertions.assertNull(missing.getContentBytes());
+    Assertions.assertNull(missing.getETag(false));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testNotModified() throws Exception {
+    var response = new HttpResourceResponse("vminspect.css");
+    var request = new HttpRequest();
+    Assertions.assertFalse(response.isNotModified(request));
+    request.getHeaders().put("if-none-match", "\"abc\", W/" + response.getETag(false));
+    Assertions.assertTrue(response.isNotModified(request));
+    request.getHeaders().put("if-none-match", response.getETag(true));
+    Assertions.assertTrue(response.isNotModified(request));
+    request.getHeaders().put("if-none-match", "\"abc\"");
+    Assertions.assertFalse(response.isNotModified(request));
+    request.getHeaders().put("if-none-match", "*");
+    Assertions.assertFalse(new HttpTextResponse("text/plain").isNotModified(request));
+  }
+}
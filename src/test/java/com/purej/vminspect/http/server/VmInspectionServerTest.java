@@ -1,10 +1,27 @@
 // Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
 package com.purej.vminspect.http.server;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
 import javax.management.ObjectName;
-
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import com.purej.vminspect.data.MBeanAttribute;
+import com.purej.vminspect.data.MBeanData;
 import com.purej.vminspect.data.MySample;
+import com.purej.vminspect.data.statistics.StatisticsCollector;
+import com.purej.vminspect.http.DefaultMBeanAccessControl;
+import com.purej.vminspect.http.servlet.DefaultMBeanAccessControlFactory;
+import com.purej.vminspect.http.servlet.MBeanAccessControlFactory;
 
 /**
  * Tests the named functionality.
@@ -13,6 +30,441 @@ import com.purej.vminspect.data.MySample;
  */
 class VmInspectionServerTest {
 
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGetRequests() throws Exception {
+    var config = new VmInspectionServerConfig();
+    config.setWorkerThreads(2);
+    config.setMaxConnections(2);
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, config);
+    try {
+      var response = request(server.getPort(), "GET /inspect?page=system HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertTrue(response.contains("PureJ VM Inspection"));
+
+      response = request(server.getPort(), "GET /inspect?resource=vminspect.css HTTP/1.0\r\nCookie: a=b\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertTrue(response.contains("Content-Type: text/css"));
+
+      response = request(server.getPort(), "GET /inspect?resource=unknown.png HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 404 Not Found"), response);
+
+      // Statistics values export:
+      response = request(server.getPort(), "GET /inspect?statsData=threads&statsPeriod=day HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.contains("Content-Type: application/json"), response);
+      Assertions.assertTrue(response.contains("{\"name\":\"threads\",\"label\":\"Live Threads\",\"unit\":\"\",\"range\":\"day\""), response);
+      Assertions.assertTrue(response.trim().endsWith("]}"), response);
+      response = request(server.getPort(), "GET /inspect?statsData=vmLoad&statsFormat=csv HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.contains("Content-Type: text/csv"), response);
+      Assertions.assertTrue(response.contains("\r\n\r\ntimestamp,average,max\n"), response);
+      response = request(server.getPort(), "GET /inspect?statsData=unknown HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 404 Not Found"), response);
+
+      // Statistics overview with all graphs in a single image:
+      response = request(server.getPort(), "GET /inspect?page=statistics&statsMode=sprite HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.contains("Set-Cookie: purej.vminspect.statsMode=sprite"), response);
+      Assertions.assertTrue(response.contains("usemap='#statsSprite'"), response);
+      var statisticsCount = StatisticsCollector.getInstance().getStatistics().size();
+      Assertions.assertEquals(statisticsCount, count(response, "<area shape='rect'"), response);
+      var spriteId = response.substring(response.indexOf("statsSpriteId=") + 14).split("&")[0];
+      var sprite = StatisticsCollector.getInstance().getGraphSprite(Long.parseLong(spriteId));
+      var png = requestBytes(server.getPort(), "GET /inspect?statsSprite=overview&statsSpriteId=" + spriteId + "&statsWidth=200&statsHeight=50 HTTP/1.0\r\n\r\n");
+      Assertions.assertArrayEquals(sprite.getPng(), body(png));
+      response = request(server.getPort(), "GET /inspect?statsSprite=overview&statsWidth=200&statsHeight=50&statsPeriod=day HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertTrue(response.contains("Content-Type: image/png"), response);
+
+      // Statistics detail drawn in the browser, the image stays the fallback:
+      response = request(server.getPort(), "GET /inspect?page=statistics&statsDetail=threads&statsWidth=800&statsHeight=300&statsChart=client HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.contains("Set-Cookie: purej.vminspect.statsChart=client"), response);
+      Assertions.assertTrue(response.contains("<canvas class='synthese' id='statsChart' width='800' height='300' data-values='?statsData=threads"), response);
+      Assertions.assertTrue(response.contains("data-fallback='?statsGraph=threads"), response);
+      response = request(server.getPort(), "GET /inspect?page=statistics&statsDetail=threads&statsWidth=800&statsHeight=300&statsChart=image HTTP/1.0\r\n\r\n");
+      Assertions.assertFalse(response.contains("<canvas"), response);
+      Assertions.assertTrue(response.contains("<img class='synthese' id='img' src='?statsGraph=threads"), response);
+
+      // MBeans table with a single page rendered:
+      response = request(server.getPort(), "GET /inspect?page=mbeans&mbPageSize=5&mbOffset=5 HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.contains("Set-Cookie: purej.vminspect.pageSize=5"), response);
+      Assertions.assertEquals(5, count(response, "clickable-row"), response);
+      Assertions.assertTrue(response.contains(", showing 6-10"), response);
+      Assertions.assertTrue(response.contains("<a href='?page=mbeans&amp;mbOffset=0'>Previous</a>"), response);
+      Assertions.assertTrue(response.contains("<a href='?page=mbeans&amp;mbOffset=10'>Next</a>"), response);
+
+      // MBean attribute value loaded asynchronously:
+      response = request(server.getPort(), "GET /inspect?page=mbeans&mbSrvIdx=0&mbName=java.lang%3Atype%3DRuntime&mbAtrRead=VmName HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertTrue(response.endsWith("\r\n\r\n" + ManagementFactory.getRuntimeMXBean().getVmName()), response);
+      response = request(server.getPort(), "GET /inspect?page=mbeans&mbSrvIdx=x&mbName=java.lang%3Atype%3DRuntime&mbAtrRead=VmName HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertTrue(response.endsWith("\r\n\r\nInvalid MBean server index: x"), response);
+      response = request(server.getPort(), "GET /inspect?page=mbeans&mbSrvIdx=99&mbName=java.lang%3Atype%3DRuntime&mbAtrRead=VmName HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertTrue(response.contains("\r\n\r\nException reading attribute value: "), response);
+
+      // Request split into several packets:
+      try (var socket = new Socket("localhost", server.getPort())) {
+        socket.getOutputStream().write("GET /inspect?page=thr".getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        Thread.sleep(50);
+        socket.getOutputStream().write("eadsDump HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        response = readAll(socket.getInputStream());
+        Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+        Assertions.assertTrue(response.contains("THREADS DUMP"));
+      }
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testKeepAliveAndPipelining() throws Exception {
+    var config = new VmInspectionServerConfig();
+    config.setMaxKeepAliveRequests(3);
+    config.setKeepAliveTimeoutMs(300);
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, config);
+    try {
+      // Pipelined requests, answered in order - the last one closes the connection:
+      var css = "GET /inspect?resource=vminspect.css HTTP/1.1\r\nHost: localhost\r\n\r\n";
+      var js = "GET /inspect?resource=vminspect.js HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+      var response = request(server.getPort(), css + css + js);
+      Assertions.assertEquals(3, count(response, "HTTP/1.1 200 OK"), response);
+      Assertions.assertEquals(2, count(response, "Connection: keep-alive"), response);
+      Assertions.assertEquals(2, count(response, "Keep-Alive: timeout=1,"), response);
+      Assertions.assertTrue(response.lastIndexOf("Content-Type: text/css") < response.indexOf("Content-Type: application/x-javascript"));
+
+      // Request limit per connection reached:
+      response = request(server.getPort(), css + css + css + css);
+      Assertions.assertEquals(3, count(response, "HTTP/1.1 200 OK"), response);
+      Assertions.assertTrue(response.contains("Connection: close"));
+
+      // HTTP/1.0 closes by default:
+      response = request(server.getPort(), "GET /inspect?resource=vminspect.css HTTP/1.0\r\n\r\n" + css);
+      Assertions.assertEquals(1, count(response, "200 OK"), response);
+
+      // Idle connections get closed by the server:
+      try (var socket = new Socket("localhost", server.getPort())) {
+        socket.setSoTimeout(5000);
+        socket.getOutputStream().write(css.getBytes(StandardCharsets.US_ASCII));
+        response = readAll(socket.getInputStream());
+        Assertions.assertEquals(1, count(response, "HTTP/1.1 200 OK"), response);
+      }
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testRejectedRequests() throws Exception {
+    var config = new VmInspectionServerConfig();
+    config.setWorkerThreads(1);
+    config.setWorkerQueueSize(1);
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, config);
+    var name = new ObjectName("purej.vminspect:type=MySlowSample");
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new MySample(true) {
+      @Override
+      public String getString() {
+        try {
+          Thread.sleep(500);
+        }
+        catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        return super.getString();
+      }
+    }, name);
+    try {
+      // The first request blocks the worker, the second one waits in the queue:
+      var slow = "GET /inspect?page=mbeans&mbSrvIdx=0&mbName=purej.vminspect%3Atype%3DMySlowSample HTTP/1.0\r\n\r\n";
+      try (var first = send(server.getPort(), slow)) {
+        await(() -> server.getActiveRequests() == 1);
+        try (var second = send(server.getPort(), slow)) {
+          await(() -> server.getQueuedRequests() == 1);
+          var response = request(server.getPort(), slow);
+          Assertions.assertTrue(response.startsWith("HTTP/1.0 503 Service Unavailable"), response);
+          Assertions.assertTrue(response.contains("Retry-After: 1"), response);
+
+          // The accepted requests are executed nevertheless:
+          response = readAll(first.getInputStream());
+          Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+          response = readAll(second.getInputStream());
+          Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+        }
+      }
+    }
+    finally {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testConnectionLimit() throws Exception {
+    var config = new VmInspectionServerConfig();
+    config.setMaxConnections(1);
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, config);
+    try {
+      var css = "GET /inspect?resource=vminspect.css HTTP/1.0\r\n\r\n";
+      var open = new Socket("localhost", server.getPort());
+      try (var waiting = new Socket("localhost", server.getPort())) {
+        // The second connection waits in the backlog and is not served:
+        waiting.setSoTimeout(300);
+        waiting.getOutputStream().write(css.getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertThrows(SocketTimeoutException.class, () -> waiting.getInputStream().read());
+
+        // Accepted once the open connection gets closed:
+        open.close();
+        waiting.setSoTimeout(5000);
+        var response = readAll(waiting.getInputStream());
+        Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      }
+      finally {
+        open.close(); // Already closed unless failed before
+      }
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testVirtualThreads() throws Exception {
+    var config = new VmInspectionServerConfig();
+    config.setVirtualThreads(true);
+    var handler = new AtomicReference<Thread>();
+    var accessControlFactory = new DefaultMBeanAccessControlFactory(null, true, false);
+    MBeanAccessControlFactory recordingFactory = request -> {
+      handler.set(Thread.currentThread());
+      return accessControlFactory.create(request);
+    };
+    var server = new VmInspectionServer(recordingFactory, 60000, null, 0, config);
+    try {
+      // Falls back to platform threads on older runtimes:
+      Assertions.assertEquals(Runtime.version().feature() >= 21, server.isVirtualThreads());
+      var response = request(server.getPort(), "GET /inspect?page=mbeans HTTP/1.0\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.0 200 OK"), response);
+      Assertions.assertEquals(server.isVirtualThreads(), isVirtual(handler.get()), handler.get().toString());
+      Assertions.assertTrue(handler.get().getName().startsWith("VmInspect-Request-Executor-"), handler.get().getName());
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testStreamingResponses() throws Exception {
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, new VmInspectionServerConfig());
+    try {
+      // Chunked HTML page followed by a pipelined request on the same connection:
+      var page = "GET /inspect?page=threads HTTP/1.1\r\nHost: localhost\r\n\r\n";
+      var css = "GET /inspect?resource=vminspect.css HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+      var response = request(server.getPort(), page + css);
+      Assertions.assertEquals(2, count(response, "HTTP/1.1 200 OK"), response);
+      Assertions.assertEquals(1, count(response, "Transfer-Encoding: chunked"), response);
+      var cssIdx = response.indexOf("HTTP/1.1 200 OK", 1);
+      var bytes = response.getBytes(StandardCharsets.UTF_8);
+      var html = new String(decodeChunks(bytes, response.indexOf("\r\n\r\n") + 4, cssIdx), StandardCharsets.UTF_8);
+      Assertions.assertTrue(html.contains("VmInspect-Http-Listener"));
+      Assertions.assertTrue(html.trim().endsWith("</html>"), html);
+
+      // No chunks for HTTP/1.0 clients, the connection gets closed instead:
+      response = request(server.getPort(), "GET /inspect?page=threadsDump HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+      Assertions.assertTrue(response.contains("Connection: close"), response);
+      Assertions.assertFalse(response.contains("Transfer-Encoding"), response);
+      Assertions.assertFalse(response.contains("Content-Length"), response);
+      Assertions.assertTrue(response.contains("THREADS DUMP"));
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testStreamingResponseError() throws Exception {
+    MBeanAccessControlFactory failingFactory = request -> new DefaultMBeanAccessControl(null, false, false) {
+      @Override
+      public boolean isChangeAllowed(MBeanData mbean, MBeanAttribute attribute) {
+        throw new IllegalStateException("Access check failed");
+      }
+    };
+    var server = new VmInspectionServer(failingFactory, 60000, null, 0, new VmInspectionServerConfig());
+    try {
+      // Fails while rendering, but before the first bytes are sent:
+      var page = "GET /inspect?page=mbeans&mbSrvIdx=0&mbName=java.lang%3Atype%3DMemory HTTP/1.1\r\nHost: localhost\r\n";
+      var response = request(server.getPort(), page + "Accept-Encoding: gzip\r\n\r\n" + page + "Connection: close\r\n\r\n");
+      Assertions.assertEquals(2, count(response, "HTTP/1.1 500 Server Error"), response);
+      Assertions.assertEquals(2, count(response, "Access check failed"), response);
+      Assertions.assertFalse(response.contains("200 OK"), response);
+      Assertions.assertFalse(response.contains("Content-Encoding"), response);
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testGzipResponses() throws Exception {
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, new VmInspectionServerConfig());
+    try {
+      // In-memory resource:
+      var plain = requestBytes(server.getPort(), "GET /inspect?resource=vminspect.css HTTP/1.0\r\n\r\n");
+      var zipped = requestBytes(server.getPort(), "GET /inspect?resource=vminspect.css HTTP/1.0\r\nAccept-Encoding: gzip, deflate\r\n\r\n");
+      Assertions.assertFalse(header(plain).contains("Content-Encoding"));
+      Assertions.assertTrue(header(zipped).contains("Content-Encoding: gzip"), header(zipped));
+      Assertions.assertTrue(header(zipped).contains("Vary: Accept-Encoding"), header(zipped));
+      Assertions.assertArrayEquals(body(plain), gunzip(body(zipped)));
+
+      // Images never get compressed:
+      var png = requestBytes(server.getPort(), "GET /inspect?resource=background.png HTTP/1.0\r\nAccept-Encoding: gzip\r\n\r\n");
+      Assertions.assertTrue(header(png).startsWith("HTTP/1.0 200 OK"), header(png));
+      Assertions.assertFalse(header(png).contains("Content-Encoding"));
+
+      // Streaming response, chunked and compressed:
+      zipped = requestBytes(server.getPort(), "GET /inspect?page=threadsDump HTTP/1.1\r\nAccept-Encoding: gzip\r\nConnection: close\r\n\r\n");
+      Assertions.assertTrue(header(zipped).contains("Transfer-Encoding: chunked"), header(zipped));
+      Assertions.assertTrue(header(zipped).contains("Content-Encoding: gzip"), header(zipped));
+      var dump = new String(gunzip(decodeChunks(zipped, header(zipped).length() + 4, zipped.length)), StandardCharsets.UTF_8);
+      Assertions.assertTrue(dump.contains("THREADS DUMP"), dump);
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testResourceETags() throws Exception {
+    var server = new VmInspectionServer(new DefaultMBeanAccessControlFactory(null, true, false), 60000, null, 0, new VmInspectionServerConfig());
+    try {
+      var plain = header(requestBytes(server.getPort(), "GET /inspect?resource=vminspect.js HTTP/1.0\r\n\r\n"));
+      var zipped = header(requestBytes(server.getPort(), "GET /inspect?resource=vminspect.js HTTP/1.0\r\nAccept-Encoding: gzip\r\n\r\n"));
+      var etag = plain.substring(plain.indexOf("ETag: ") + 6).split("\r\n")[0];
+      var gzipEtag = zipped.substring(zipped.indexOf("ETag: ") + 6).split("\r\n")[0];
+      Assertions.assertTrue(etag.startsWith("\"") && etag.endsWith("\""), etag);
+      Assertions.assertNotEquals(etag, gzipEtag);
+
+      // Revalidation on a persistent connection, the 304 has no body:
+      var js = "GET /inspect?resource=vminspect.js HTTP/1.1\r\nHost: localhost\r\nIf-None-Match: ";
+      var response = request(server.getPort(), js + "\"other\", " + gzipEtag + "\r\n\r\n" + js + "\"other\"\r\nConnection: close\r\n\r\n");
+      Assertions.assertTrue(response.startsWith("HTTP/1.1 304 Not Modified"), response);
+      Assertions.assertTrue(response.contains("\r\n\r\nHTTP/1.1 200 OK"), response);
+      Assertions.assertEquals(2, count(response, "ETag: " + etag), response);
+    }
+    finally {
+      server.shutdown();
+    }
+  }
+
+  private static String header(byte[] response) {
+    var text = new String(response, StandardCharsets.ISO_8859_1);
+    return text.substring(0, text.indexOf("\r\n\r\n"));
+  }
+
+  private static byte[] body(byte[] response) {
+    return Arrays.copyOfRange(response, header(response).length() + 4, response.length);
+  }
+
+  private static byte[] gunzip(byte[] data) throws Exception {
+    try (var in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static byte[] decodeChunks(byte[] bytes, int start, int end) {
+    var result = new ByteArrayOutputStream();
+    var pos = start;
+    while (true) {
+      var lineEnd = pos;
+      while (bytes[lineEnd] != '\r') {
+        lineEnd++;
+      }
+      var size = Integer.parseInt(new String(bytes, pos, lineEnd - pos, StandardCharsets.US_ASCII), 16);
+      if (size == 0) {
+        Assertions.assertEquals(lineEnd + 4, end);
+        return result.toByteArray();
+      }
+      result.write(bytes, lineEnd + 2, size);
+      pos = lineEnd + 2 + size + 2;
+    }
+  }
+
+  private static int count(String text, String part) {
+    var count = 0;
+    for (var idx = text.indexOf(part); idx != -1; idx = text.indexOf(part, idx + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  private static String request(int port, String request) throws Exception {
+    return new String(requestBytes(port, request), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] requestBytes(int port, String request) throws Exception {
+    try (var socket = new Socket("localhost", port)) {
+      socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+      socket.getOutputStream().flush();
+      return socket.getInputStream().readAllBytes();
+    }
+  }
+
+  private static boolean isVirtual(Thread thread) throws Exception {
+    try {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread); // Java 21+
+    }
+    catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static Socket send(int port, String request) throws Exception {
+    var socket = new Socket("localhost", port);
+    socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+    socket.getOutputStream().flush();
+    return socket;
+  }
+
+  private static void await(BooleanSupplier condition) throws Exception {
+    var deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timeout waiting for condition");
+      Thread.sleep(10);
+    }
+  }
+
+  private static String readAll(InputStream in) throws Exception {
+    var out = new ByteArrayOutputStream();
+    in.transferTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
   /**
    * Starts the {@link VmInspectionServer} on port 8080 for testing with a browser.
    */
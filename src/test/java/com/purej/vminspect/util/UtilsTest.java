@@ -46,6 +46,17 @@ public class UtilsTest {
     Assertions.assertEquals("ja v-<>a.*", Utils.urlDecode("ja+v-<>a.*")); // produced by html forms with get
   }
 
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testJsonEncode() throws Exception {
+    Assertions.assertEquals("null", Utils.jsonEncode(null));
+    Assertions.assertEquals("\"\"", Utils.jsonEncode(""));
+    Assertions.assertEquals("\"hello 'world' \\\"\\\\\"", Utils.jsonEncode("hello 'world' \"\\"));
+    Assertions.assertEquals("\"a\\u000ab\\u0009\"", Utils.jsonEncode("a\nb\t"));
+  }
+
   /**
    * Tests the named functionality.
    */
@@ -128,4 +139,38 @@ public class UtilsTest {
     Assertions.assertEquals(false, Utils.wildCardMatch(s5, "*tantzt"));
     Assertions.assertEquals(false, Utils.wildCardMatch(s5, "*er*dm *nzt*"));
   }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testWildCardMatchRepeated() throws Exception {
+    String s2 = "";
+    String s4 = "abcdefg";
+    Assertions.assertEquals(true, Utils.wildCardMatch(s4, "**"));
+    Assertions.assertEquals(false, Utils.wildCardMatch(s2, "**"));
+    Assertions.assertEquals(true, Utils.wildCardMatch(s4, "ab**fg"));
+    Assertions.assertEquals(false, Utils.wildCardMatch(s4, "ab**fx"));
+  }
+
+  /**
+   * Tests the named functionality.
+   */
+  @Test
+  public void testWildCardMatcher() throws Exception {
+    WildCardMatcher matcher = WildCardMatcher.compile("java.*");
+    Assertions.assertSame(matcher, WildCardMatcher.compile("java.*"));
+    Assertions.assertEquals("java.*", matcher.getPattern());
+    Assertions.assertEquals(true, matcher.matches("java.lang"));
+    Assertions.assertEquals(false, matcher.matches("javax.management"));
+    Assertions.assertEquals(false, matcher.matches(null));
+    Assertions.assertSame(WildCardMatcher.compile(null), WildCardMatcher.compile("*"));
+    Assertions.assertEquals(true, WildCardMatcher.compile("").matches(null));
+
+    // The cache is bounded, other patterns get evicted:
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals(true, WildCardMatcher.compile("*" + i).matches("x" + i));
+    }
+    Assertions.assertNotSame(matcher, WildCardMatcher.compile("java.*"));
+  }
 }
@@ -0,0 +1,150 @@
+// Copyright (c), 2013, adopus consulting GmbH Switzerland, all rights reserved.
+package com.purej.vminspect.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark that measures the costs of filtering the MBeans page with a {@link WildCardMatcher} compared to parsing the
+ * patterns again for each MBean, as done by older versions. Run the main method from the IDE with the test classpath.
+ *
+ * @author Stefan Mueller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildCardMatcherBenchmark {
+  private static final int MBEANS = 40_000;
+  private static final String DOMAIN_FILTER = "com.*.pool*";
+  private static final String TYPE_FILTER = "*Connection*";
+  private final String[] domains = new String[MBEANS];
+  private final String[] types = new String[MBEANS];
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(WildCardMatcherBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  /**
+   * Creates the names of the MBeans to filter.
+   */
+  @Setup
+  public void setup() {
+    for (var i = 0; i < MBEANS; i++) {
+      domains[i] = (i % 3 == 0 ? "com.example.pool" : "org.example.cache") + (i % 100);
+      types[i] = i % 2 == 0 ? "DataSourceConnectionPool" + i : "CacheStatistics" + i;
+    }
+  }
+
+  /**
+   * Filters the page by parsing the patterns per MBean (old).
+   */
+  @Benchmark
+  public long filterUncompiled() {
+    var matched = 0L;
+    for (var i = 0; i < MBEANS; i++) {
+      if (wildCardMatchUncompiled(domains[i], DOMAIN_FILTER) && wildCardMatchUncompiled(types[i], TYPE_FILTER)) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Filters the page with {@link Utils#wildCardMatch(String, String)} that uses the cached matchers.
+   */
+  @Benchmark
+  public long filterCached() {
+    var matched = 0L;
+    for (var i = 0; i < MBEANS; i++) {
+      if (Utils.wildCardMatch(domains[i], DOMAIN_FILTER) && Utils.wildCardMatch(types[i], TYPE_FILTER)) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Filters the page with matchers compiled once per page.
+   */
+  @Benchmark
+  public long filterCompiled() {
+    var domainMatcher = WildCardMatcher.compile(DOMAIN_FILTER);
+    var typeMatcher = WildCardMatcher.compile(TYPE_FILTER);
+    var matched = 0L;
+    for (var i = 0; i < MBEANS; i++) {
+      if (domainMatcher.matches(domains[i]) && typeMatcher.matches(types[i])) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+
+  private static boolean wildCardMatchUncompiled(String text, String pattern) {
+    // What Utils.wildCardMatch did before the patterns were compiled:
+    if (pattern == null || pattern.length() == 0 || (pattern.length() == 1 && pattern.charAt(0) == '*')) {
+      return true;
+    }
+    if (text == null || text.length() == 0) {
+      return false;
+    }
+    var patternIdx = 0;
+    var txtIdx = 0;
+    var matchTag = new StringBuilder();
+    var isFirst = true;
+    while (true) {
+      matchTag.setLength(0);
+      patternIdx = nextMatchTag(pattern, patternIdx, matchTag);
+      if (matchTag.length() == 0) {
+        if (patternIdx == -1) {
+          return true;
+        }
+        isFirst = false;
+        continue;
+      }
+      var matchTagString = matchTag.toString();
+      if (isFirst && patternIdx == -1) {
+        return text.equals(matchTagString);
+      } else if (isFirst) {
+        if (!text.startsWith(matchTagString)) {
+          return false;
+        }
+        txtIdx = matchTag.length();
+      } else if (patternIdx == -1) {
+        return text.endsWith(matchTagString);
+      } else {
+        txtIdx = text.indexOf(matchTagString, txtIdx);
+        if (txtIdx == -1) {
+          return false;
+        }
+      }
+      isFirst = false;
+    }
+  }
+
+  private static int nextMatchTag(String pattern, int fromIdx, StringBuilder tag) {
+    for (var i = fromIdx; i < pattern.length(); i++) {
+      var c = pattern.charAt(i);
+      if (c == '*') {
+        return i + 1;
+      } else {
+        tag.append(c);
+      }
+    }
+    return -1;
+  }
+}